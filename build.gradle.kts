@@ -7,6 +7,7 @@ plugins {
     `maven-publish`
     id("com.github.johnrengelman.shadow") version "7.0.0"
     id("org.openapi.generator") version "6.6.0"
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 buildscript {
@@ -36,6 +37,8 @@ val jacksonDatabindNullableVersion = "0.2.2"
 val jakartaAnnotationVersion = "1.3.5"
 val springWebVersion = "5.3.18"
 val jodatimeVersion = "2.9.9"
+val httpClientVersion = "4.5.14"
+val jmhToolVersion = "1.37"
 
 dependencies {
 
@@ -51,6 +54,7 @@ dependencies {
     implementation("org.openapitools:jackson-databind-nullable:$jacksonDatabindNullableVersion")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:$jacksonVersion")
     implementation("jakarta.annotation:jakarta.annotation-api:$jakartaAnnotationVersion")
+    implementation("org.apache.httpcomponents:httpclient:$httpClientVersion")
 
     testImplementation("org.junit.jupiter:junit-jupiter-api:$junitVersion")
     testImplementation("org.junit.jupiter:junit-jupiter-engine:$junitVersion")
@@ -76,6 +80,8 @@ tasks.register("generate-http-client", org.openapitools.generator.gradle.plugin.
             "packageName" to packageName,
             "artifactId" to clientArtifactId,
             "artifactVersion" to clientArtifactVersion,
+            // Lets persistent KVStores snapshot cached responses with plain Java serialization
+            "serializableModel" to "true",
         ),
     )
     additionalProperties.set(
@@ -94,14 +100,13 @@ tasks.register("build-http-client", org.gradle.api.tasks.Exec::class.java) {
     dependsOn("generate-http-client")
 }
 
-project.dependencies.add(
-    "implementation",
-    files(
-        "$clientOutputDir/build/libs/" +
-            "$clientArtifactId${if (clientArtifactVersion == "unspecified") "" else "-$clientArtifactVersion"}.jar",
-    ),
+val generatedClientJar = file(
+    "$clientOutputDir/build/libs/" +
+        "$clientArtifactId${if (clientArtifactVersion == "unspecified") "" else "-$clientArtifactVersion"}.jar",
 )
 
+project.dependencies.add("implementation", files(generatedClientJar))
+
 tasks.named("compileJava").configure {
     dependsOn("build-http-client")
     dependsOn()
@@ -116,15 +121,85 @@ tasks.named<ShadowJar>("shadowJar").configure {
     relocate("org.springframework", "dev.commandk.org.springframework")
 }
 
+// The slim artifact: SlimCommandKClient with the credentials, exceptions and generated models it needs, and nothing
+// from Spring, Jackson or Apache HttpClient. It is published as dev.commandk:java-sdk-slim.
+val slimJar = tasks.register<Jar>("slimJar") {
+    archiveClassifier.set("slim")
+    from(sourceSets.main.get().output) {
+        include("dev/commandk/javasdk/slim/**")
+        include("dev/commandk/javasdk/exception/**")
+        include("dev/commandk/javasdk/common/EnvironmentRegistry*.class")
+        include("dev/commandk/javasdk/common/Headers.class")
+        include("dev/commandk/javasdk/credential/CommandKCredentials.class")
+        include("dev/commandk/javasdk/credential/CommandKCredentialsProvider.class")
+        include("dev/commandk/javasdk/credential/EnvironmentVariablesCredentialsProvider.class")
+        include("dev/commandk/javasdk/credential/SystemPropertiesCredentialsProvider.class")
+    }
+    from({ zipTree(generatedClientJar) }) {
+        include("dev/commandk/javasdk/models/**")
+    }
+}
+
 tasks.named("assemble").configure {
     dependsOn("javadoc")
     dependsOn("shadowJar")
+    dependsOn(slimJar)
+}
+
+// ./gradlew compareArtifacts prints the size of the shaded and the slim jar, and the time, classes and metaspace
+// of a first fetch with each of them alone on the classpath. It runs as part of check.
+val artifactProbe = sourceSets.create("artifactProbe") {
+    java {
+        srcDir("src/artifactProbe/java")
+        srcDir("src/jmh/java")
+        include("**/ArtifactStartupProbe.java", "**/StubCommandKServer.java", "**/BenchmarkPayloads.java")
+    }
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+val shadowJar = tasks.named<ShadowJar>("shadowJar")
+
+val startupProbeFull = tasks.register<JavaExec>("startupProbeFull") {
+    classpath = artifactProbe.output + files(shadowJar)
+    mainClass.set("dev.commandk.javasdk.ArtifactStartupProbe")
+    args("full", shadowJar.get().archiveFileName.get())
+}
+
+val startupProbeSlim = tasks.register<JavaExec>("startupProbeSlim") {
+    classpath = artifactProbe.output + files(slimJar)
+    mainClass.set("dev.commandk.javasdk.ArtifactStartupProbe")
+    args("slim", slimJar.get().archiveFileName.get())
+    mustRunAfter(startupProbeFull)
+}
+
+tasks.register("compareArtifacts") {
+    dependsOn(startupProbeFull, startupProbeSlim)
+    doLast {
+        listOf(shadowJar.get(), slimJar.get()).forEach {
+            val jar = it.archiveFile.get().asFile
+            println("${jar.name}: ${jar.length() / 1024} KiB")
+        }
+    }
+}
+
+tasks.named("check").configure {
+    dependsOn("compareArtifacts")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// ./gradlew jmh runs the benchmarks in src/jmh/java, -Pjmh.includes=<regex> narrows them down. Results are written
+// as JSON so that runs of different releases can be compared, e.g. with https://jmh.morethan.io
+jmh {
+    jmhVersion.set(jmhToolVersion)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    (project.findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+    failOnError.set(true)
+}
+
 tasks.withType<Javadoc>() {
     options.overview("src/main/javadoc/overview.html")
 }
@@ -138,6 +213,15 @@ publishing {
 
             from(components["java"])
         }
+        create<MavenPublication>("slim") {
+            groupId = "dev.commandk"
+            artifactId = "java-sdk-slim"
+            version = System.getenv("VERSION_TAG")?.replace("v", "") ?: version
+
+            artifact(slimJar) {
+                classifier = null
+            }
+        }
     }
     repositories {
         maven {
@@ -0,0 +1,85 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.kvstore.GlobalKVStoreFactory;
+import dev.commandk.javasdk.slim.SlimCommandKClient;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.util.concurrent.Callable;
+
+/**
+ * Measures the cost of a client's first fetch in a fresh JVM, run by {@code ./gradlew compareArtifacts} against the
+ * shaded and the slim jar alone on the classpath: the time it takes, the classes it loads and the metaspace it
+ * fills. The host is a stub on loopback, started before the measurement.
+ * <p>
+ * Usage: {@code ArtifactStartupProbe full|slim <jar name>}
+ */
+public final class ArtifactStartupProbe {
+
+    private static final String CATALOG_APP_ID = "probe-app";
+
+    private ArtifactStartupProbe() {}
+
+    public static void main(String[] args) throws Exception {
+        try (StubCommandKServer stubCommandKServer = new StubCommandKServer(BenchmarkPayloads.renderedAppSecrets(100), false)) {
+            // Each client only gets loaded when its fetch runs, so the other one may be missing from the classpath
+            Callable<Integer> firstFetch = "slim".equals(args[0])
+                    ? new SlimClientFetch(stubCommandKServer.getHost())
+                    : new FullClientFetch(stubCommandKServer.getHost());
+
+            long classesBefore = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+            long metaspaceBefore = metaspaceUsed();
+            long startedAt = System.nanoTime();
+            int secrets = firstFetch.call();
+            long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+            System.out.printf(
+                    "%s: first fetch of %d secrets in %d ms, %d classes loaded, %d KiB of metaspace%n",
+                    args.length > 1 ? args[1] : args[0],
+                    secrets,
+                    elapsedMillis,
+                    ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount() - classesBefore,
+                    (metaspaceUsed() - metaspaceBefore) / 1024
+            );
+        }
+    }
+
+    private static long metaspaceUsed() {
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(memoryPool.getName())) return memoryPool.getUsage().getUsed();
+        }
+        return 0;
+    }
+
+    private static final class FullClientFetch implements Callable<Integer> {
+        private final String host;
+
+        FullClientFetch(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public Integer call() {
+            CommandKClient commandKClient = new CommandKClient(
+                    new GlobalKVStoreFactory<Object, CommandKResponse>(),
+                    () -> new CommandKCredentials(host, "probe-token")
+            );
+            return commandKClient.getRenderedAppSecrets(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME, null).size();
+        }
+    }
+
+    private static final class SlimClientFetch implements Callable<Integer> {
+        private final String host;
+
+        SlimClientFetch(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public Integer call() {
+            SlimCommandKClient slimCommandKClient = new SlimCommandKClient(() -> new CommandKCredentials(host, "probe-token"));
+            return slimCommandKClient.getRenderedAppSecrets(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME, null).size();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dev.commandk.javasdk;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Response bodies shaped like the ones the CommandK host returns
+ */
+final class BenchmarkPayloads {
+
+    static final String ENVIRONMENT_ID = "0f4f7a62-3b0e-4d36-9d53-1f0b5cc7f0a1";
+    static final String ENVIRONMENT_NAME = "production";
+
+    private BenchmarkPayloads() {}
+
+    static byte[] renderedAppSecrets(int secretCount) {
+        StringBuilder json = new StringBuilder(secretCount * 160 + 128)
+                .append("{\"changelogId\":\"changelog-").append(secretCount).append('"')
+                .append(",\"secretDigest\":\"digest-").append(secretCount).append('"')
+                .append(",\"incrementalId\":").append(secretCount)
+                .append(",\"secrets\":[");
+        for (int i = 0; i < secretCount; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"key\":\"SECRET_").append(i).append('"')
+                    .append(",\"serializedValue\":\"value-").append(i).append("-0123456789abcdef0123456789abcdef\"")
+                    .append(",\"valueType\":\"urn:rendered-app-secret:value-type:String\"")
+                    .append(",\"secretId\":\"secret-id-").append(i).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] environments() {
+        return ("{\"environments\":[{\"id\":\"" + ENVIRONMENT_ID + "\",\"slug\":\"" + ENVIRONMENT_NAME
+                + "\",\"name\":\"" + ENVIRONMENT_NAME + "\",\"label\":\"Production\"}]}").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package dev.commandk.javasdk;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of rendered secrets payloads: the streaming decoder the client uses, its visitor mode, and Jackson data
+ * binding as the baseline. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int secretCount;
+
+    private byte[] payload;
+    private ObjectReader dataBindingReader;
+
+    @Setup
+    public void setup() {
+        payload = BenchmarkPayloads.renderedAppSecrets(secretCount);
+        dataBindingReader = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readerFor(RenderedAppSecretsResponse.class);
+    }
+
+    @Benchmark
+    public RenderedAppSecretsResponse streamingDecode() throws IOException {
+        return RenderedAppSecretsDecoder.decode(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public RenderedAppSecretsResponse streamingVisit(Blackhole blackhole) throws IOException {
+        return RenderedAppSecretsDecoder.decode(new ByteArrayInputStream(payload), blackhole::consume);
+    }
+
+    @Benchmark
+    public RenderedAppSecretsResponse dataBindingDecode() throws IOException {
+        return dataBindingReader.readValue(payload);
+    }
+}
@@ -0,0 +1,72 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.kvstore.BoundedKVStoreFactory;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.transport.PooledHttpTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link CommandKClient#getRenderedAppSecrets} against an in-process stub host over loopback, once with
+ * the host always sending the full payload and once answering the client's conditional requests with a
+ * {@code 304}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetRenderedAppSecretsBenchmark {
+
+    private static final String CATALOG_APP_ID = "benchmark-app";
+
+    @Param({"200", "304"})
+    public int responseStatus;
+
+    @Param({"100"})
+    public int secretCount;
+
+    private StubCommandKServer stubCommandKServer;
+    private PooledHttpTransport transport;
+    private CommandKClient commandKClient;
+
+    @Setup
+    public void setup() throws IOException {
+        stubCommandKServer = new StubCommandKServer(BenchmarkPayloads.renderedAppSecrets(secretCount), responseStatus == 304);
+        transport = new PooledHttpTransport();
+        commandKClient = new CommandKClient(
+                new BoundedKVStoreFactory<>(),
+                () -> new CommandKCredentials(stubCommandKServer.getHost(), "benchmark-token"),
+                new CommandKClientOptions().transport(transport)
+        );
+        // Resolves the environment and, for the 304 case, primes the cached ETag
+        commandKClient.getRenderedAppSecrets(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        transport.close();
+        stubCommandKServer.close();
+    }
+
+    @Benchmark
+    public List<RenderedAppSecret> getRenderedAppSecrets() {
+        return commandKClient.getRenderedAppSecrets(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME, null);
+    }
+}
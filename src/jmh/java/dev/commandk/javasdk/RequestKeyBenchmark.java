@@ -0,0 +1,59 @@
+package dev.commandk.javasdk;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing and lookup of the cache keys the client builds on every fetch
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestKeyBenchmark {
+
+    private static final int APP_COUNT = 1000;
+
+    private final Map<Object, Object> cache = new HashMap<>();
+    private GetRenderedAppSecretsRequest fullSnapshotRequest;
+    private GetRenderedAppSecretsRequest filteredRequest;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < APP_COUNT; i++) {
+            cache.put(new GetRenderedAppSecretsRequest("app-" + i, BenchmarkPayloads.ENVIRONMENT_ID), Boolean.TRUE);
+        }
+        fullSnapshotRequest = new GetRenderedAppSecretsRequest("app-" + APP_COUNT / 2, BenchmarkPayloads.ENVIRONMENT_ID);
+        filteredRequest = new GetRenderedAppSecretsRequest("app-" + APP_COUNT / 2, BenchmarkPayloads.ENVIRONMENT_ID, Arrays.asList("DB_URL", "DB_PASSWORD"));
+    }
+
+    @Benchmark
+    public int hashFullSnapshotRequest() {
+        return fullSnapshotRequest.hashCode();
+    }
+
+    @Benchmark
+    public int hashFilteredRequest() {
+        return filteredRequest.hashCode();
+    }
+
+    @Benchmark
+    public Object createAndLookUpRequest() {
+        return cache.get(new GetRenderedAppSecretsRequest("app-" + APP_COUNT / 2, BenchmarkPayloads.ENVIRONMENT_ID));
+    }
+}
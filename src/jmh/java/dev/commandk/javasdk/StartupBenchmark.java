@@ -0,0 +1,85 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.kvstore.BoundedKVStoreFactory;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of a client: the time from constructing it in a fresh JVM to holding the first secret, and the number
+ * of classes loaded on the way. The application's own startup work between the two is simulated with a sleep, which
+ * a prefetch overlaps with fetching the secrets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    private static final String CATALOG_APP_ID = "benchmark-app";
+
+    @Param({"false", "true"})
+    public boolean prefetch;
+
+    @Param({"0", "200"})
+    public int applicationStartupMillis;
+
+    private StubCommandKServer stubCommandKServer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ClassLoading {
+        public long classesLoaded;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        stubCommandKServer = new StubCommandKServer(BenchmarkPayloads.renderedAppSecrets(100), false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stubCommandKServer.close();
+    }
+
+    @Benchmark
+    public Optional<RenderedAppSecret> timeToFirstSecret(ClassLoading classLoading) throws InterruptedException {
+        long loadedBefore = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+
+        CommandKClientOptions options = new CommandKClientOptions();
+        if (prefetch) {
+            options.prefetch(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME);
+        }
+        CommandKClient commandKClient = new CommandKClient(
+                new BoundedKVStoreFactory<>(),
+                () -> new CommandKCredentials(stubCommandKServer.getHost(), "benchmark-token"),
+                options
+        );
+        if (applicationStartupMillis > 0) {
+            Thread.sleep(applicationStartupMillis);
+        }
+        Optional<RenderedAppSecret> secret = commandKClient.getSecret(CATALOG_APP_ID, BenchmarkPayloads.ENVIRONMENT_NAME, "SECRET_0");
+
+        classLoading.classesLoaded = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount() - loadedBefore;
+        return secret;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.commandk.javasdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-process stand-in for the CommandK host that serves one app with a fixed payload over loopback
+ */
+final class StubCommandKServer implements Closeable {
+
+    static final String E_TAG = "\"benchmark-etag\"";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+    private final byte[] renderedAppSecrets;
+    private final byte[] environments = BenchmarkPayloads.environments();
+    private final boolean honorIfNoneMatch;
+
+    /**
+     * @param honorIfNoneMatch whether a request carrying the current ETag is answered with a {@code 304}; when not,
+     *                         every request gets the full payload
+     */
+    StubCommandKServer(byte[] renderedAppSecrets, boolean honorIfNoneMatch) throws IOException {
+        this.renderedAppSecrets = renderedAppSecrets;
+        this.honorIfNoneMatch = honorIfNoneMatch;
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(4);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/environments", exchange -> respond(exchange, 200, environments, null));
+        httpServer.createContext("/apps/", this::handleRenderedAppSecrets);
+        httpServer.start();
+    }
+
+    String getHost() {
+        return String.format("http://%s:%d", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort());
+    }
+
+    private void handleRenderedAppSecrets(HttpExchange exchange) throws IOException {
+        if (honorIfNoneMatch && E_TAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            respond(exchange, 304, null, E_TAG);
+        } else {
+            respond(exchange, 200, renderedAppSecrets, E_TAG);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body, String eTag) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            while (requestBody.read() != -1) {
+                // Drain the request so the connection can be kept alive
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (eTag != null) exchange.getResponseHeaders().set("ETag", eTag);
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+}
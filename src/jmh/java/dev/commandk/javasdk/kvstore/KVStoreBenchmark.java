@@ -0,0 +1,85 @@
+package dev.commandk.javasdk.kvstore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes of the stores under contention: four readers, and three readers racing one writer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KVStoreBenchmark {
+
+    @Param({"inMemory", "bounded"})
+    public String storeType;
+
+    @Param({"1024"})
+    public int keyCount;
+
+    private KVStore<String, Object> store;
+    private String[] keys;
+    private Object value;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        store = "bounded".equals(storeType)
+                ? new BoundedKVStore<>(new BoundedKVStoreOptions(), System::nanoTime)
+                : new InMemoryKVStore<>();
+        keys = new String[keyCount];
+        value = new Object();
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+            store.set(keys[i], value);
+        }
+    }
+
+    private String nextKey(Cursor cursor) {
+        String key = keys[cursor.next];
+        cursor.next = cursor.next + 1 == keys.length ? 0 : cursor.next + 1;
+        return key;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Object> get(Cursor cursor) {
+        return store.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Optional<Object> readWriteGet(Cursor cursor) {
+        return store.get(nextKey(cursor));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWriteSet(Cursor cursor) {
+        store.set(nextKey(cursor), value);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An app and the environment (name, slug or id) to fetch its secrets in, used to address batch fetches
+ */
+public final class AppEnvKey {
+
+    @Nonnull
+    private final String catalogAppId, environment;
+
+    public AppEnvKey(@Nonnull String catalogAppId, @Nonnull String environment) {
+        if (catalogAppId == null || environment == null) {
+            throw new IllegalArgumentException("catalogAppId and environment must not be null");
+        }
+        this.catalogAppId = catalogAppId;
+        this.environment = environment;
+    }
+
+    @Nonnull
+    public String getCatalogAppId() { return catalogAppId; }
+
+    @Nonnull
+    public String getEnvironment() { return environment; }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof AppEnvKey)) return false;
+        AppEnvKey appEnvKey = (AppEnvKey) obj;
+        return catalogAppId.equals(appEnvKey.catalogAppId) && environment.equals(appEnvKey.environment);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * catalogAppId.hashCode() + environment.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s", catalogAppId, environment);
+    }
+}
@@ -0,0 +1,30 @@
+package dev.commandk.javasdk;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Sets the bearer token of every request from the token the client currently holds, so that a rotated token is
+ * used by the next request without rebuilding the transport
+ */
+class AuthorizationInterceptor implements ClientHttpRequestInterceptor {
+
+    @Nonnull
+    private final Supplier<String> apiToken;
+
+    AuthorizationInterceptor(@Nonnull Supplier<String> apiToken) {
+        this.apiToken = apiToken;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        request.getHeaders().set("Authorization", String.format("Bearer %s", apiToken.get()));
+        return execution.execute(request, body);
+    }
+}
@@ -0,0 +1,116 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.metrics.MetricsRecorder;
+import dev.commandk.javasdk.metrics.Operation;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reports the size of every response body to a {@link MetricsRecorder} once the response is closed. The body is
+ * counted as read by the client, i.e. decompressed, since transports like Apache HttpClient decompress responses
+ * before any interceptor sees them. Only installed when a recorder is set.
+ */
+class ByteCountingInterceptor implements ClientHttpRequestInterceptor {
+
+    @Nonnull
+    private final MetricsRecorder metricsRecorder;
+
+    ByteCountingInterceptor(@Nonnull MetricsRecorder metricsRecorder) {
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+        Operation operation = operationOf(request.getURI().getPath());
+        return operation != null ? new CountingResponse(response, operation) : response;
+    }
+
+    @Nullable
+    static Operation operationOf(@Nullable String path) {
+        if (path == null) return null;
+        if (path.endsWith("/secrets/rendered")) return Operation.GET_RENDERED_APP_SECRETS;
+        if (path.endsWith("/environments")) return Operation.GET_ENVIRONMENTS;
+        return null;
+    }
+
+    private class CountingResponse implements ClientHttpResponse {
+        @Nonnull
+        private final ClientHttpResponse delegate;
+        @Nonnull
+        private final Operation operation;
+        @Nullable
+        private CountingInputStream body;
+
+        CountingResponse(@Nonnull ClientHttpResponse delegate, @Nonnull Operation operation) {
+            this.delegate = delegate;
+            this.operation = operation;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = new CountingInputStream(delegate.getBody());
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() { return delegate.getHeaders(); }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException { return delegate.getStatusCode(); }
+
+        @Override
+        public int getRawStatusCode() throws IOException { return delegate.getRawStatusCode(); }
+
+        @Override
+        public String getStatusText() throws IOException { return delegate.getStatusText(); }
+
+        @Override
+        public void close() {
+            try {
+                if (body != null) metricsRecorder.recordBytesReceived(operation, body.count);
+            } finally {
+                delegate.close();
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(@Nonnull InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
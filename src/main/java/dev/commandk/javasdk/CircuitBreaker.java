@@ -0,0 +1,95 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to a host after a run of consecutive failures.
+ * <p>
+ * Once {@code failureThreshold} requests in a row have failed, the circuit opens and requests are refused without
+ * being sent for {@code openNanos}. After that, a single probe request is let through: its success closes the
+ * circuit, its failure opens it for another period.
+ * <p>
+ * Clients share the breaker of their host through {@link #forHost(String, int, long)}, so that the failures seen by
+ * every client of a host count towards the same circuit.
+ */
+class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final ConcurrentMap<String, CircuitBreaker> HOST_BREAKERS = new ConcurrentHashMap<>();
+
+    private final int failureThreshold;
+    private final long openNanos;
+    @Nonnull
+    private final LongSupplier nanoClock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    @Nullable
+    private RuntimeException lastFailure;
+
+    CircuitBreaker(int failureThreshold, long openNanos, @Nonnull LongSupplier nanoClock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * The process-wide breaker of the host. Clients configured with other settings get a breaker of their own.
+     */
+    static @Nonnull CircuitBreaker forHost(@Nonnull String host, int failureThreshold, long openNanos) {
+        return HOST_BREAKERS.computeIfAbsent(
+                host + '#' + failureThreshold + '#' + openNanos,
+                key -> new CircuitBreaker(failureThreshold, openNanos, System::nanoTime)
+        );
+    }
+
+    /**
+     * Whether a request may be sent now. When it returns {@code true}, the outcome of the request must be reported
+     * with {@link #onSuccess()} or {@link #onFailure(RuntimeException)}.
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nanoClock.getAsLong() - openedAt < openNanos) return false;
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // A probe is already in flight
+                return false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    synchronized void onFailure(@Nonnull RuntimeException failure) {
+        lastFailure = failure;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+        }
+    }
+
+    /**
+     * The failure reported last, which explains why the circuit is open
+     */
+    @Nullable
+    synchronized RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -1,62 +1,136 @@
 package dev.commandk.javasdk;
 
 import dev.commandk.javasdk.api.SdkApi;
+import dev.commandk.javasdk.common.DaemonThreadFactory;
+import dev.commandk.javasdk.common.EnvironmentRegistry;
 import dev.commandk.javasdk.common.Headers;
 import dev.commandk.javasdk.credential.CommandKCredentials;
 import dev.commandk.javasdk.credential.CommandKCredentialsProvider;
 import dev.commandk.javasdk.credential.DefaultCredentialsProviderChain;
+import dev.commandk.javasdk.credential.RefreshableCredentialsProvider;
+import dev.commandk.javasdk.exception.CircuitOpenException;
 import dev.commandk.javasdk.exception.ClientException;
 import dev.commandk.javasdk.exception.ConfigException;
 import dev.commandk.javasdk.exception.ResponseNotModifiedException;
 import dev.commandk.javasdk.kvstore.GlobalKVStoreFactory;
+import dev.commandk.javasdk.kvstore.InstrumentedKVStore;
 import dev.commandk.javasdk.kvstore.KVStore;
 import dev.commandk.javasdk.kvstore.KVStoreFactory;
+import dev.commandk.javasdk.metrics.MetricsRecorder;
+import dev.commandk.javasdk.metrics.Operation;
+import dev.commandk.javasdk.metrics.Outcome;
 import dev.commandk.javasdk.models.*;
+import dev.commandk.javasdk.transport.HttpTransport;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-import static java.util.Collections.emptyList;
 
-class CommandKResponse {
+/**
+ * CommandKClient provides an interface to communicate with the CommandK host
+ */
+public class CommandKClient implements Closeable {
+
+    // Looked up by its wire value, which doesn't depend on how the generator names the constant
+    private static final RenderingMode PREVIEW_ONLY = RenderingMode.fromValue("PreviewOnly");
+    private static final int STORE_LOCK_STRIPES = 64;
 
     @Nonnull
-    private String eTag;
+    private KVStore<Object, CommandKResponse> eTagsStore;
+
+    // Created on first use, or ahead of it by a warm-up, so that constructing a client doesn't pay for loading the
+    // HTTP and JSON stacks. Read through sdkApi() and restTemplate().
+    @Nullable
+    private volatile SdkApi sdkApi;
+
+    // Shared with sdkApi; used directly for requests that stream the response body
+    @Nullable
+    private volatile RestTemplate restTemplate;
+
     @Nonnull
-    private Object response;
+    private final Object transportLock = new Object();
 
-    public CommandKResponse(@Nonnull String eTag, @Nonnull Object response){
-        this.eTag = eTag;
-        this.response = response;
-    }
+    @Nonnull
+    private final String host;
 
+    // Swapped in place when the credentials are rotated, see updateCredentials
     @Nonnull
-    String getETag() { return this.eTag; }
+    private final AtomicReference<String> apiToken;
 
     @Nonnull
-    Object getResponse() { return this.response; }
-}
+    private final CommandKClientOptions options;
 
-/**
- * CommandKClient provides an interface to communicate with the CommandK host
- */
-public class CommandKClient {
+    @Nonnull
+    private final EnvironmentRegistry environmentRegistry;
 
     @Nonnull
-    private KVStore<Object, CommandKResponse> eTagsStore;
+    private final HostCallExecutor hostCallExecutor;
 
+    // Subscribed to the credentials provider when it is refreshable, until close
+    @Nullable
+    private final RefreshableCredentialsProvider refreshableCredentialsProvider;
     @Nonnull
-    private SdkApi sdkApi;
+    private final Consumer<CommandKCredentials> refreshListener = this::onCredentialsRefreshed;
+
+    @Nonnull
+    private final MetricsRecorder metricsRecorder;
+    // Measurements are skipped altogether without a recorder
+    private final boolean metricsEnabled;
+
+    @Nonnull
+    private final SingleFlight<FetchKey, CommandKResponse> inFlightFetches = new SingleFlight<>();
+
+    // Serialize the writes of each key, so that a response overtaken by a newer one is never written over it. Striped,
+    // so that they take no memory per key.
+    @Nonnull
+    private final Object[] storeLocks = newLocks(STORE_LOCK_STRIPES);
+    // Writes per stripe, guarded by its lock. A write sees from them whether the response it looked up is still the
+    // latest one without reading the store again.
+    @Nonnull
+    private final long[] storeGenerations = new long[STORE_LOCK_STRIPES];
 
     public CommandKClient(
             @Nonnull KVStoreFactory<? extends Object, ? extends Object> kvStoreFactory,
             @Nonnull CommandKCredentialsProvider commandKCredentialsProvider
     ) {
+        this(kvStoreFactory, commandKCredentialsProvider, new CommandKClientOptions());
+    }
+
+    public CommandKClient(
+            @Nonnull KVStoreFactory<? extends Object, ? extends Object> kvStoreFactory,
+            @Nonnull CommandKCredentialsProvider commandKCredentialsProvider,
+            @Nonnull CommandKClientOptions options
+    ) {
+        if(options==null){
+            throw new IllegalArgumentException("options is null");
+        }
         if(commandKCredentialsProvider==null){
             throw new IllegalArgumentException("commandKCredentialsProvider is null");
         }
@@ -77,7 +151,38 @@ public class CommandKClient {
             throw new ConfigException("KVStoreFactory return null");
         }
         this.eTagsStore = kvStore;
-        this.sdkApi = CommandKClient.createSdkApiWithCredentials(credentials);
+        this.host = credentials.host;
+        this.apiToken = new AtomicReference<>(credentials.apiToken);
+        this.metricsRecorder = options.getMetricsRecorder();
+        this.metricsEnabled = metricsRecorder != MetricsRecorder.NOOP;
+        if (metricsEnabled && kvStore instanceof InstrumentedKVStore) {
+            metricsRecorder.bindCacheStats(((InstrumentedKVStore<Object, CommandKResponse>) kvStore)::getStats);
+        }
+        this.options = options;
+        this.hostCallExecutor = new HostCallExecutor(
+                host,
+                options.getRetryPolicy(),
+                CircuitBreaker.forHost(
+                        host,
+                        options.getCircuitBreakerFailureThreshold(),
+                        options.getCircuitBreakerOpenDuration().toNanos()
+                )
+        );
+        this.environmentRegistry = new EnvironmentRegistry(
+                this::loadEnvironments,
+                backgroundExecutor(),
+                options.getEnvironmentsTtl().toNanos()
+        );
+
+        if (commandKCredentialsProvider instanceof RefreshableCredentialsProvider) {
+            this.refreshableCredentialsProvider = (RefreshableCredentialsProvider) commandKCredentialsProvider;
+            refreshableCredentialsProvider.addRefreshListener(refreshListener);
+        } else {
+            this.refreshableCredentialsProvider = null;
+        }
+        if (options.isWarmUp() || !options.getPrefetches().isEmpty()) {
+            backgroundExecutor().execute(this::warmUp);
+        }
     }
 
     public static @Nonnull CommandKClient withDefaults() {
@@ -93,69 +198,844 @@ public class CommandKClient {
             @Nonnull String environment,
             @Nullable List<String> secretNames
     ) {
+        return (List<RenderedAppSecret>) readRenderedAppSecrets(catalogAppId, environment, secretNames).getResponse();
+    }
+
+    /**
+     * Like {@link #getRenderedAppSecrets(String, String, List)}, but reports whether the secrets changed since the
+     * previous result, and reports failures in the result instead of throwing them:
+     * <pre>{@code
+     * result = commandKClient.fetch(catalogAppId, environment, null, result);
+     * if (result.isModified()) reload(result.getSecrets());
+     * }</pre>
+     *
+     * @param previous the result of the caller's previous fetch of the same secrets, {@code null} for the first one
+     */
+    public @Nonnull FetchResult fetch(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames,
+            @Nullable FetchResult previous
+    ) {
+        if(catalogAppId==null || environment==null){
+            throw new IllegalArgumentException("catalogAppId or environment is null");
+        }
+        try {
+            return FetchResult.of(readRenderedAppSecrets(catalogAppId, environment, secretNames), previous);
+        } catch (ClientException e) {
+            return FetchResult.failure(e, previous);
+        } catch (RuntimeException e) {
+            return FetchResult.failure(new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e), previous);
+        }
+    }
 
-        Optional<EnvironmentDescriptor> environmentDescriptor = getEnvironments().stream().filter( it ->
-                it.getName().equals(environment) || it.getSlug().equals(environment)
-        ).findAny();
+    /**
+     * The secrets of an app in an environment as an indexed, immutable snapshot. The cached full snapshot is returned
+     * without a request while the host confirmed it within {@link CommandKClientOptions#getSnapshotMaxAge()};
+     * otherwise it is revalidated first.
+     */
+    public @Nonnull SecretSnapshot getSecretSnapshot(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment
+    ) {
+        return currentFullSnapshot(catalogAppId, environment).getSecretSnapshot();
+    }
 
-        if(!environmentDescriptor.isPresent()) {
-            throw new ClientException("No such environment was found");
+    /**
+     * Looks up a single secret by its key in the current snapshot of the app, see
+     * {@link #getSecretSnapshot(String, String)}
+     */
+    public @Nonnull Optional<RenderedAppSecret> getSecret(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nonnull String key
+    ) {
+        if(key==null){
+            throw new IllegalArgumentException("key is null");
         }
+        return getSecretSnapshot(catalogAppId, environment).get(key);
+    }
 
-        String environmentId = environmentDescriptor.get().getId();
+    /**
+     * Asynchronous variant of {@link #getRenderedAppSecrets(String, String, List)} that runs on
+     * {@link CommandKClientOptions#getAsyncExecutor()}. Concurrent calls for the same app, environment and secret
+     * names, synchronous or not, share a single request and its result.
+     */
+    public @Nonnull CompletableFuture<List<RenderedAppSecret>> getRenderedAppSecretsAsync(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+        Executor executor = options.getAsyncExecutor() != null ? options.getAsyncExecutor() : backgroundExecutor();
+        if (options.isStaleWhileRevalidate()) {
+            // Usually answered from the cache; the fetches it does fall back to are still coalesced
+            return CompletableFuture.supplyAsync(
+                    () -> (List<RenderedAppSecret>) readRenderedAppSecrets(catalogAppId, environment, secretNames).getResponse(),
+                    executor
+            );
+        }
+        return inFlightFetches.execute(
+                new FetchKey(catalogAppId, environment, secretNames),
+                () -> fetchRenderedAppSecretsUncoalesced(catalogAppId, environment, secretNames),
+                executor
+        ).thenApply(commandKResponse -> (List<RenderedAppSecret>) commandKResponse.getResponse());
+    }
 
-        GetRenderedAppSecretsRequest getRenderedAppSecretsRequest =
-                new GetRenderedAppSecretsRequest(catalogAppId, environmentId);
+    /**
+     * Fetches the secrets of many apps and environments at once, with at most
+     * {@link CommandKClientOptions#getBatchParallelism()} requests in flight. A failure is reported in the result of
+     * its key and doesn't affect the others.
+     *
+     * @return the result of every distinct key, in the order the keys were given
+     */
+    public @Nonnull Map<AppEnvKey, RenderedAppSecretsResult> getRenderedAppSecrets(@Nonnull Collection<AppEnvKey> appEnvKeys) {
+        if(appEnvKeys==null){
+            throw new IllegalArgumentException("appEnvKeys is null");
+        }
+
+        // Resolve every environment up front so the listing is loaded once, not raced by the fan out below
+        Map<String, ClientException> environmentErrors = new HashMap<>();
+        for (AppEnvKey appEnvKey : appEnvKeys) {
+            String environment = appEnvKey.getEnvironment();
+            if (environmentErrors.containsKey(environment)) continue;
+            try {
+                environmentRegistry.resolve(environment);
+                environmentErrors.put(environment, null);
+            } catch (ClientException e) {
+                environmentErrors.put(environment, e);
+            }
+        }
 
-        Optional<CommandKResponse> commandKResponseOptional = eTagsStore.get(getRenderedAppSecretsRequest);
+        Semaphore permits = new Semaphore(options.getBatchParallelism());
+        Map<AppEnvKey, CompletableFuture<List<RenderedAppSecret>>> futures = new LinkedHashMap<>();
+        Map<AppEnvKey, RenderedAppSecretsResult> results = new LinkedHashMap<>();
+        for (AppEnvKey appEnvKey : appEnvKeys) {
+            if (futures.containsKey(appEnvKey) || results.containsKey(appEnvKey)) continue;
+            ClientException environmentError = environmentErrors.get(appEnvKey.getEnvironment());
+            if (environmentError != null) {
+                results.put(appEnvKey, RenderedAppSecretsResult.failure(environmentError));
+                continue;
+            }
+
+            permits.acquireUninterruptibly();
+            CompletableFuture<List<RenderedAppSecret>> future;
+            try {
+                future = getRenderedAppSecretsAsync(appEnvKey.getCatalogAppId(), appEnvKey.getEnvironment(), null);
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+            future.whenComplete((renderedAppSecrets, throwable) -> permits.release());
+            futures.put(appEnvKey, future);
+        }
+
+        for (Map.Entry<AppEnvKey, CompletableFuture<List<RenderedAppSecret>>> entry : futures.entrySet()) {
+            RenderedAppSecretsResult result;
+            try {
+                result = RenderedAppSecretsResult.success(SingleFlight.join(entry.getValue()));
+            } catch (ClientException e) {
+                result = RenderedAppSecretsResult.failure(e);
+            } catch (RuntimeException e) {
+                result = RenderedAppSecretsResult.failure(new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e));
+            }
+            results.put(entry.getKey(), result);
+        }
+
+        // Keep the order of the keys as given
+        Map<AppEnvKey, RenderedAppSecretsResult> orderedResults = new LinkedHashMap<>();
+        for (AppEnvKey appEnvKey : appEnvKeys) {
+            orderedResults.putIfAbsent(appEnvKey, results.get(appEnvKey));
+        }
+        return orderedResults;
+    }
+
+    /**
+     * Streams the rendered secrets of an app to the visitor, one at a time and in order, as the response is decoded.
+     * The secrets are never collected into a list, which keeps memory flat for apps with very many secrets. The
+     * response always comes from the host and bypasses the cache; exceptions thrown by the visitor are propagated
+     * as is. Transient failures are retried only until the first secret reaches the visitor, so no secret is visited
+     * twice.
+     */
+    public void forEachRenderedAppSecret(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames,
+            @Nonnull Consumer<RenderedAppSecret> visitor
+    ) {
+        if(visitor==null){
+            throw new IllegalArgumentException("visitor is null");
+        }
+        String environmentId = environmentRegistry.resolve(environment).getId();
+        AtomicBoolean visited = new AtomicBoolean();
+        Consumer<RenderedAppSecret> guardedVisitor = renderedAppSecret -> {
+            visited.set(true);
+            try {
+                visitor.accept(renderedAppSecret);
+            } catch (RuntimeException e) {
+                throw new VisitorException(e);
+            }
+        };
+        long startedAt = metricsEnabled ? System.nanoTime() : 0;
+        try {
+            hostCallExecutor.execute(() -> {
+                try {
+                    return restTemplate().execute(
+                            renderedAppSecretsUri(catalogAppId, environmentId, secretNames),
+                            HttpMethod.GET,
+                            request -> request.getHeaders().set("Accept", MediaType.APPLICATION_JSON_VALUE),
+                            response -> {
+                                RenderedAppSecretsDecoder.decode(response.getBody(), guardedVisitor);
+                                return null;
+                            }
+                    );
+                } catch (RestClientException e) {
+                    // Retrying after a secret was visited would replay it to the visitor
+                    if (visited.get()) throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+                    throw e;
+                }
+            });
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.OK, System.nanoTime() - startedAt);
+        } catch (VisitorException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (ClientException e) {
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.ERROR, System.nanoTime() - startedAt);
+            throw e;
+        } catch (RuntimeException e) {
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.ERROR, System.nanoTime() - startedAt);
+            throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Swaps the API token used by the following requests. Pooled connections, the cache and the watchers are kept,
+     * and requests already sent finish with the previous token. Called automatically when the client was created
+     * with a {@link RefreshableCredentialsProvider}.
+     *
+     * @throws ConfigException when the credentials are incomplete or point to another host, which a client can't
+     *                         switch to
+     */
+    public void updateCredentials(@Nonnull CommandKCredentials credentials) {
+        if(credentials==null || credentials.host==null || credentials.apiToken==null){
+            throw new ConfigException("Provided CommandKCredentials object is missing host or apiToken");
+        }
+        if(!host.equals(credentials.host)){
+            throw new ConfigException(String.format("The host of a client can't change from '%s' to '%s'", host, credentials.host));
+        }
+        apiToken.set(credentials.apiToken);
+    }
+
+    /**
+     * Stops following the credentials of a {@link RefreshableCredentialsProvider}, which would otherwise keep this
+     * client reachable for as long as the provider lives. Requests sent afterwards keep using the last token.
+     */
+    @Override
+    public void close() {
+        if (refreshableCredentialsProvider != null) {
+            refreshableCredentialsProvider.removeRefreshListener(refreshListener);
+        }
+    }
+
+    @Nonnull
+    CommandKClientOptions getOptions() {
+        return options;
+    }
+
+    @Nonnull
+    String getApiToken() {
+        return apiToken.get();
+    }
+
+    private void onCredentialsRefreshed(@Nonnull CommandKCredentials credentials) {
+        try {
+            updateCredentials(credentials);
+        } catch (ConfigException ignored) {
+            // Unusable credentials are ignored and the current token is kept
+        }
+    }
+
+    /**
+     * Watches the secrets of an app in an environment, polling the host with the cached ETag about every
+     * {@link CommandKClientOptions#getWatchInterval()}, as the {@link CommandKClientOptions#getRefreshPolicy()} spaces
+     * the polls. The first fetch happens before this method returns, so
+     * {@link SecretsWatcher#getSecrets()} is populated right away, and the listener is then called again only when
+     * the secrets change.
+     */
+    public @Nonnull SecretsWatcher watch(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nonnull SecretsChangeListener listener
+    ) {
+        return watch(catalogAppId, environment, null, listener);
+    }
+
+    public @Nonnull SecretsWatcher watch(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames,
+            @Nonnull SecretsChangeListener listener
+    ) {
+        if(listener==null){
+            throw new IllegalArgumentException("listener is null");
+        }
+        SecretsWatcher secretsWatcher = new SecretsWatcher(this, catalogAppId, environment, secretNames, listener);
+        secretsWatcher.start(options.getWatchInterval());
+        return secretsWatcher;
+    }
+
+    /**
+     * Reads the rendered secrets for a caller. In the stale-while-revalidate mode, a cached response younger than the
+     * max age is returned right away, and one older than the revalidation age is also revalidated in the background;
+     * otherwise this is {@link #fetchRenderedAppSecrets}.
+     */
+    @Nonnull
+    CommandKResponse readRenderedAppSecrets(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+        if (!options.isStaleWhileRevalidate()) {
+            return fetchRenderedAppSecrets(catalogAppId, environment, secretNames);
+        }
+
+        String environmentId = environmentRegistry.resolve(environment).getId();
+        boolean filtered = secretNames != null && !secretNames.isEmpty();
+        // As for fetches, a filtered read is answered from the full snapshot whenever there is one
+        List<String> cachedSecretNames = null;
+        Optional<CommandKResponse> cached = lookup(new GetRenderedAppSecretsRequest(catalogAppId, environmentId));
+        if (!cached.isPresent() && filtered) {
+            cachedSecretNames = secretNames;
+            cached = lookup(new GetRenderedAppSecretsRequest(catalogAppId, environmentId, secretNames));
+        }
+
+        if (cached.isPresent()) {
+            long ageMillis = cached.get().getAgeMillis();
+            if (ageMillis < options.getStaleWhileRevalidateMaxAge().toMillis()) {
+                if (ageMillis >= options.getRevalidateAfter().toMillis()) {
+                    revalidateInBackground(catalogAppId, environment, cachedSecretNames);
+                }
+                if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.LOCAL, 0);
+                return filtered && cachedSecretNames == null ? cached.get().project(secretNames) : cached.get();
+            }
+        }
+        return fetchRenderedAppSecrets(catalogAppId, environment, secretNames);
+    }
+
+    private void revalidateInBackground(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+        // Joins the revalidation already in flight for the key, if any. A failure is dropped: the cached response
+        // keeps being served until it passes the max age, after which reads fetch, and fail, on their own.
+        inFlightFetches.execute(
+                new FetchKey(catalogAppId, environment, secretNames),
+                () -> fetchRenderedAppSecretsUncoalesced(catalogAppId, environment, secretNames),
+                backgroundExecutor()
+        );
+    }
+
+    /**
+     * Fetches the rendered secrets, revalidating the cached response with its ETag, and returns the response that
+     * is current after the call along with the metadata the host sent with it
+     */
+    @Nonnull
+    CommandKResponse fetchRenderedAppSecrets(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+        return SingleFlight.join(inFlightFetches.execute(
+                new FetchKey(catalogAppId, environment, secretNames),
+                () -> fetchRenderedAppSecretsUncoalesced(catalogAppId, environment, secretNames),
+                SingleFlight.CALLER_THREAD
+        ));
+    }
+
+    @Nonnull
+    private CommandKResponse currentFullSnapshot(@Nonnull String catalogAppId, @Nonnull String environment) {
+        String environmentId = environmentRegistry.resolve(environment).getId();
+        Optional<CommandKResponse> fullSnapshot = lookup(new GetRenderedAppSecretsRequest(catalogAppId, environmentId));
+        if (fullSnapshot.isPresent() && fullSnapshot.get().isFresh(options.getSnapshotMaxAge().toMillis())) {
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.LOCAL, 0);
+            return fullSnapshot.get();
+        }
+        return fetchRenderedAppSecrets(catalogAppId, environment, null);
+    }
+
+    @Nonnull
+    private CommandKResponse fetchRenderedAppSecretsUncoalesced(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+
+        String environmentId = environmentRegistry.resolve(environment).getId();
+
+        GetRenderedAppSecretsRequest fullSnapshotRequest = new GetRenderedAppSecretsRequest(catalogAppId, environmentId);
+        if (secretNames == null || secretNames.isEmpty()) {
+            return fetchFromHost(fullSnapshotRequest);
+        }
+
+        // A filtered call is answered from the full snapshot of the app whenever there is one, revalidating it first
+        // if it's older than the snapshot max age. Only without any snapshot is the filter sent to the host.
+        Optional<CommandKResponse> fullSnapshot = lookup(fullSnapshotRequest);
+        if (fullSnapshot.isPresent()) {
+            CommandKResponse snapshot;
+            if (fullSnapshot.get().isFresh(options.getSnapshotMaxAge().toMillis())) {
+                if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.LOCAL, 0);
+                snapshot = fullSnapshot.get();
+            } else {
+                snapshot = fetchFromHost(fullSnapshotRequest);
+            }
+            return snapshot.project(secretNames);
+        }
+        return fetchFromHost(new GetRenderedAppSecretsRequest(catalogAppId, environmentId, secretNames));
+    }
+
+    @Nonnull
+    private CommandKResponse fetchFromHost(@Nonnull GetRenderedAppSecretsRequest getRenderedAppSecretsRequest) {
+
+        int stripe = stripeOf(getRenderedAppSecretsRequest);
+        Optional<CommandKResponse> commandKResponseOptional;
+        long generation;
+        synchronized (storeLocks[stripe]) {
+            commandKResponseOptional = lookup(getRenderedAppSecretsRequest);
+            generation = storeGenerations[stripe];
+        }
+        if (options.isChangeProbes() && getRenderedAppSecretsRequest.isFullSnapshot() && commandKResponseOptional.isPresent()) {
+            CommandKResponse probed = fetchChangesFromHost(getRenderedAppSecretsRequest, commandKResponseOptional.get(), generation);
+            if (probed != null) return probed;
+        }
         String ifNoneMatch = commandKResponseOptional.map(CommandKResponse::getETag).orElse("");
 
+        long startedAt = metricsEnabled ? System.nanoTime() : 0;
         try{
-            List<String> secretNamesToQuery = secretNames != null ? secretNames : emptyList();
-            ResponseEntity<RenderedAppSecretsResponse> renderedAppSecretsWithHttpInfo =
-                    sdkApi.getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, ifNoneMatch, secretNamesToQuery);
+            ResponseEntity<RenderedAppSecretsResponse> renderedAppSecretsWithHttpInfo = hostCallExecutor.execute(
+                    () -> sdkApi().getRenderedAppSecretsWithHttpInfo(
+                            getRenderedAppSecretsRequest.cataglogAppId,
+                            getRenderedAppSecretsRequest.environmentId,
+                            RenderingMode.FULL,
+                            ifNoneMatch,
+                            getRenderedAppSecretsRequest.secretNames()
+                    )
+            );
 
-            List<RenderedAppSecret> renderedAppSecrets = renderedAppSecretsWithHttpInfo.getBody().getSecrets();
-
-            Map<String, List<String>> headers = renderedAppSecretsWithHttpInfo.getHeaders();
-            List<String> eTagValue = headers.get(Headers.E_TAG);
-            if(eTagValue!=null && !eTagValue.isEmpty()){
-                String eTag = eTagValue.get(0);
-                if(eTag!=null)
-                    eTagsStore.set(getRenderedAppSecretsRequest, new CommandKResponse(eTag, renderedAppSecrets));
+            RenderedAppSecretsResponse renderedAppSecretsResponse = renderedAppSecretsWithHttpInfo.getBody();
+            List<RenderedAppSecret> renderedAppSecrets = renderedAppSecretsResponse.getSecrets();
+            if (renderedAppSecrets != null) {
+                renderedAppSecrets = SecretInterner.intern(
+                        renderedAppSecrets,
+                        commandKResponseOptional.map(cached -> (List<RenderedAppSecret>) cached.getResponse()).orElse(null)
+                );
             }
 
-            return renderedAppSecrets;
+            String eTag = eTagOf(renderedAppSecretsWithHttpInfo);
+
+            CommandKResponse commandKResponse = new CommandKResponse(
+                    eTag != null ? eTag : "",
+                    renderedAppSecrets,
+                    renderedAppSecretsResponse.getChangelogId(),
+                    renderedAppSecretsResponse.getIncrementalId(),
+                    renderedAppSecretsResponse.getSecretDigest()
+            );
+            if(eTag!=null)
+                commandKResponse = store(getRenderedAppSecretsRequest, commandKResponse, commandKResponseOptional.orElse(null), generation);
+            commandKResponse.markValidated(millisOf(Headers.maxAge(renderedAppSecretsWithHttpInfo.getHeaders().getFirst(Headers.CACHE_CONTROL))));
+
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.OK, System.nanoTime() - startedAt);
+            return commandKResponse;
         } catch (Exception e) {
+            if (metricsEnabled) {
+                metricsRecorder.recordCall(
+                        Operation.GET_RENDERED_APP_SECRETS,
+                        e instanceof ResponseNotModifiedException ? Outcome.NOT_MODIFIED : Outcome.ERROR,
+                        System.nanoTime() - startedAt
+                );
+            }
             if(e instanceof ResponseNotModifiedException){
-                if(commandKResponseOptional.isPresent())
-                    return (List<RenderedAppSecret>) commandKResponseOptional.get().getResponse();
+                if(commandKResponseOptional.isPresent()) {
+                    commandKResponseOptional.get().markValidated(millisOf(((ResponseNotModifiedException) e).getMaxAge()));
+                    return commandKResponseOptional.get();
+                }
                 else throw new ClientException("Cannot find cached response for getRenderedAppSecrets()");
+            } else if(commandKResponseOptional.isPresent() && canServeStale(e, commandKResponseOptional.get())) {
+                return commandKResponseOptional.get();
             } else if(e instanceof ClientException)
                 throw e;
             else
-                throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()));
+                throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Checks whether the secrets changed with a {@code PreviewOnly} request, which costs the host no rendering of
+     * values, and returns the cached response when they didn't. With
+     * {@link CommandKClientOptions#isFetchOnlyChangedSecrets()}, the secrets whose previews changed are fetched alone
+     * and merged into the cached ones. Returns {@code null} when the full rendering has to be fetched instead, which
+     * is also left to report any failure.
+     */
+    @Nullable
+    private CommandKResponse fetchChangesFromHost(
+            @Nonnull GetRenderedAppSecretsRequest getRenderedAppSecretsRequest,
+            @Nonnull CommandKResponse cached,
+            long generation
+    ) {
+        // A probe can't confirm a response without an ETag or a version, like a merged one
+        if (isVersionless(cached)) return null;
+
+        SecretsPreview cachedPreview = cached.getPreview();
+        // Only a preview of the cached secrets tells what changed since
+        SecretsPreview previous = cachedPreview != null && cachedPreview.getVersion().hasSameSecretsAs(cached.getVersion())
+                ? cachedPreview
+                : null;
+
+        long startedAt = metricsEnabled ? System.nanoTime() : 0;
+        SecretsPreview preview;
+        try {
+            ResponseEntity<RenderedAppSecretsResponse> previewWithHttpInfo = hostCallExecutor.execute(
+                    () -> sdkApi().getRenderedAppSecretsWithHttpInfo(
+                            getRenderedAppSecretsRequest.cataglogAppId,
+                            getRenderedAppSecretsRequest.environmentId,
+                            PREVIEW_ONLY,
+                            previous != null ? previous.getETag() : "",
+                            getRenderedAppSecretsRequest.secretNames()
+                    )
+            );
+            String eTag = eTagOf(previewWithHttpInfo);
+            preview = new SecretsPreview(eTag != null ? eTag : "", previewWithHttpInfo.getBody());
+        } catch (Exception e) {
+            if (e instanceof ResponseNotModifiedException && previous != null) {
+                return confirmed(cached, startedAt);
+            }
+            return null;
+        }
+        // Kept with the cached response, from where a newer response with the preview's version takes it over
+        cached.setPreview(preview);
+        if (preview.getVersion().hasSameSecretsAs(cached.getVersion())) {
+            return confirmed(cached, startedAt);
+        }
+        if (!options.isFetchOnlyChangedSecrets() || previous == null) return null;
+
+        List<String> changedKeys = previous.changedKeys(preview);
+        if (changedKeys == null) return null;
+        List<RenderedAppSecret> changedSecrets = new ArrayList<>();
+        if (!changedKeys.isEmpty()) {
+            try {
+                RenderedAppSecretsResponse changed = hostCallExecutor.execute(
+                        () -> sdkApi().getRenderedAppSecretsWithHttpInfo(
+                                getRenderedAppSecretsRequest.cataglogAppId,
+                                getRenderedAppSecretsRequest.environmentId,
+                                RenderingMode.FULL,
+                                "",
+                                changedKeys
+                        )
+                ).getBody();
+                // Compared without the digests, which describe the filtered secrets only. A change made after the
+                // preview would leave the merge inconsistent.
+                SecretsVersion changedVersion = new SecretsVersion(changed.getChangelogId(), changed.getIncrementalId(), null);
+                SecretsVersion previewVersion = new SecretsVersion(preview.getVersion().getChangelogId(), preview.getVersion().getIncrementalId(), null);
+                if (!changedVersion.hasSameSecretsAs(previewVersion) || changed.getSecrets() == null) return null;
+                changedSecrets = changed.getSecrets();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        List<RenderedAppSecret> cachedSecrets = (List<RenderedAppSecret>) cached.getResponse();
+        List<RenderedAppSecret> merged = preview.merge(cachedSecrets, changedSecrets, changedKeys);
+        if (merged == null) return null;
+        // Stored without an ETag or a version: the previews may have hidden a change to another secret, so nothing
+        // confirms the merge and the next refresh fetches the full rendering
+        CommandKResponse commandKResponse = new CommandKResponse("", SecretInterner.intern(merged, cachedSecrets));
+        commandKResponse.setPreview(preview);
+        if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.OK, System.nanoTime() - startedAt);
+        return store(getRenderedAppSecretsRequest, commandKResponse, cached, generation);
+    }
+
+    private static boolean isVersionless(@Nonnull CommandKResponse cached) {
+        return cached.getETag().isEmpty()
+                && cached.getChangelogId() == null
+                && cached.getIncrementalId() == null
+                && cached.getSecretDigest() == null;
+    }
+
+    @Nonnull
+    private CommandKResponse confirmed(@Nonnull CommandKResponse cached, long startedAt) {
+        cached.markValidated();
+        if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_RENDERED_APP_SECRETS, Outcome.NOT_MODIFIED, System.nanoTime() - startedAt);
+        return cached;
+    }
+
+    private static long millisOf(@Nullable Duration duration) {
+        return duration != null ? duration.toMillis() : 0;
+    }
+
+    @Nullable
+    private static String eTagOf(@Nonnull ResponseEntity<?> responseEntity) {
+        List<String> eTagValue = responseEntity.getHeaders().get(Headers.E_TAG);
+        return eTagValue != null && !eTagValue.isEmpty() ? eTagValue.get(0) : null;
+    }
+
+    /**
+     * Stores a response fetched from the host and returns the response to serve. A response with the same ETag and
+     * secrets as the cached one isn't stored again; the cached one is kept and served. A response older than one
+     * already stored, which concurrent refreshes can receive out of order, is dropped and the newer one is served.
+     * {@code generation} is the write count of the key's stripe when {@code cached} was looked up.
+     */
+    @Nonnull
+    private CommandKResponse store(
+            @Nonnull GetRenderedAppSecretsRequest getRenderedAppSecretsRequest,
+            @Nonnull CommandKResponse fetched,
+            @Nullable CommandKResponse cached,
+            long generation
+    ) {
+        SecretsVersion version = fetched.getVersion();
+        if (cached != null && cached.getETag().equals(fetched.getETag()) && cached.getVersion().hasSameSecretsAs(version)) {
+            cached.markValidated();
+            return cached;
+        }
+
+        int stripe = stripeOf(getRenderedAppSecretsRequest);
+        synchronized (storeLocks[stripe]) {
+            // Read again only when a write of the stripe, maybe of this key, came in since the lookup
+            CommandKResponse latest = storeGenerations[stripe] == generation
+                    ? cached
+                    : eTagsStore.get(getRenderedAppSecretsRequest).orElse(null);
+            CommandKResponse newest = newer(newer(fetched, cached), latest);
+            if (newest != fetched) return newest;
+            SecretsPreview preview = cached != null ? cached.getPreview() : null;
+            if (preview != null && preview.getVersion().hasSameSecretsAs(version)) fetched.setPreview(preview);
+            eTagsStore.set(getRenderedAppSecretsRequest, fetched);
+            storeGenerations[stripe]++;
+            return fetched;
+        }
+    }
+
+    /**
+     * The newer of two responses, {@code current} unless {@code other} is newer
+     */
+    @Nonnull
+    private static CommandKResponse newer(@Nonnull CommandKResponse current, @Nullable CommandKResponse other) {
+        return other != null && other.getVersion().isNewerThan(current.getVersion()) ? other : current;
+    }
+
+    private static int stripeOf(@Nonnull GetRenderedAppSecretsRequest getRenderedAppSecretsRequest) {
+        return (getRenderedAppSecretsRequest.hashCode() & Integer.MAX_VALUE) % STORE_LOCK_STRIPES;
+    }
+
+    @Nonnull
+    private static Object[] newLocks(int stripes) {
+        Object[] locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Loads the environments for the registry and remembers them in the store. When the host can't be reached the
+     * listing remembered last is used instead, which lets a persistent store serve a process that starts during an
+     * outage.
+     */
+    @Nonnull
+    List<EnvironmentDescriptor> loadEnvironments() {
+        GetEnvironmentsRequest getEnvironmentsRequest = new GetEnvironmentsRequest(
+                CommandKClientPool.tenantOf(new CommandKCredentials(host, apiToken.get())));
+        try {
+            List<EnvironmentDescriptor> environments = getEnvironments();
+            eTagsStore.set(getEnvironmentsRequest, new CommandKResponse("", new ArrayList<>(environments)));
+            return environments;
+        } catch (ClientException e) {
+            Optional<CommandKResponse> lastKnownEnvironments = eTagsStore.get(getEnvironmentsRequest);
+            if (lastKnownEnvironments.isPresent() && canServeStale(e.getCause(), lastKnownEnvironments.get())) {
+                return (List<EnvironmentDescriptor>) lastKnownEnvironments.get().getResponse();
+            }
+            throw e;
         }
     }
 
+    /**
+     * Whether the cached response may be returned in place of the given failure: when the host is unreachable,
+     * {@link CommandKClientOptions#isServeLastKnownGoodWhenUnreachable()} and the host confirmed the response within
+     * {@link CommandKClientOptions#getLastKnownGoodMaxAge()}, or when the failure is transient and the host confirmed
+     * the response within {@link CommandKClientOptions#getStaleIfError()}
+     */
+    private boolean canServeStale(@Nullable Throwable e, @Nonnull CommandKResponse cached) {
+        // An open circuit is judged by the failures that opened it: an unreachable host, or a host failing with 5xx
+        if (e instanceof CircuitOpenException) e = e.getCause();
+        boolean unreachable = e instanceof ResourceAccessException;
+        if (unreachable && options.isServeLastKnownGoodWhenUnreachable()
+                && cached.isFresh(options.getLastKnownGoodMaxAge().toMillis())) return true;
+        return (unreachable || HostCallExecutor.isTransient(e)) && cached.isFresh(options.getStaleIfError().toMillis());
+    }
+
+    /**
+     * Fetches every environment of the host, following the {@code after} cursor until an empty page is returned
+     */
     List<EnvironmentDescriptor> getEnvironments() {
+        int pageSize = options.getEnvironmentsPageSize();
+        long startedAt = metricsEnabled ? System.nanoTime() : 0;
         try{
-            ResponseEntity<GetAllEnvironmentsResponse> getAllEnvironmentsResponseResponseEntity =
-                    sdkApi.getEnvironmentsWithHttpInfo(null, null, null);
+            List<EnvironmentDescriptor> environments = new ArrayList<>();
+            String after = null;
+            while (true) {
+                String cursor = after;
+                ResponseEntity<GetAllEnvironmentsResponse> getAllEnvironmentsResponseResponseEntity =
+                        hostCallExecutor.execute(() -> sdkApi().getEnvironmentsWithHttpInfo(pageSize, null, cursor));
 
-            return getAllEnvironmentsResponseResponseEntity.getBody().getEnvironments();
+                List<EnvironmentDescriptor> page = getAllEnvironmentsResponseResponseEntity.getBody().getEnvironments();
+                // A short page doesn't end the listing: the host may cap the limit below the page size asked for
+                if (page == null || page.isEmpty()) break;
+
+                String lastId = page.get(page.size() - 1).getId();
+                // A host that ignores the cursor would otherwise keep returning the same page
+                if (lastId != null && lastId.equals(after)) break;
+                environments.addAll(page);
+                if (lastId == null) break;
+                after = lastId;
+            }
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_ENVIRONMENTS, Outcome.OK, System.nanoTime() - startedAt);
+            return environments;
         } catch (Exception e) {
-            throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()));
+            if (metricsEnabled) metricsRecorder.recordCall(Operation.GET_ENVIRONMENTS, Outcome.ERROR, System.nanoTime() - startedAt);
+            throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+        }
+    }
+
+    @Nonnull
+    private SdkApi sdkApi() {
+        SdkApi sdkApi = this.sdkApi;
+        if (sdkApi == null) {
+            initializeTransport();
+            sdkApi = this.sdkApi;
+        }
+        return sdkApi;
+    }
+
+    @Nonnull
+    private RestTemplate restTemplate() {
+        RestTemplate restTemplate = this.restTemplate;
+        if (restTemplate == null) {
+            initializeTransport();
+            restTemplate = this.restTemplate;
+        }
+        return restTemplate;
+    }
+
+    private void initializeTransport() {
+        synchronized (transportLock) {
+            if (restTemplate != null) return;
+            RestTemplate restTemplate = CommandKClient.createRestTemplate(
+                    options.getTransport(),
+                    metricsRecorder,
+                    apiToken::get,
+                    options.isCompression()
+            );
+            if (sdkApi == null) {
+                sdkApi = CommandKClient.createSdkApi(host, restTemplate);
+            }
+            this.restTemplate = restTemplate;
+        }
+    }
+
+    /**
+     * Runs in the background after construction: creates the transport and fetches the secrets to prefetch into the
+     * cache, so that the application's first calls find them ready. A caller that gets there first waits for the
+     * same fetch instead of starting another one.
+     */
+    private void warmUp() {
+        try {
+            initializeTransport();
+        } catch (RuntimeException ignored) {
+            // The first call creates the transport again and reports the error
+            return;
+        }
+        for (FetchKey prefetch : options.getPrefetches()) {
+            try {
+                fetchRenderedAppSecrets(prefetch.catalogAppId, prefetch.environment, null);
+            } catch (RuntimeException ignored) {
+                // Reported to the caller that asks for these secrets, whose call fetches them again
+            }
         }
     }
 
-    static SdkApi createSdkApiWithCredentials(@Nonnull CommandKCredentials commandKCredentials) {
-        RestTemplate restTemplate = new RestTemplate();
+    static RestTemplate createRestTemplate(
+            @Nonnull HttpTransport httpTransport,
+            @Nonnull MetricsRecorder metricsRecorder,
+            @Nonnull Supplier<String> apiToken,
+            boolean compression
+    ) {
+        RestTemplate restTemplate = new RestTemplate(httpTransport.getRequestFactory());
         restTemplate.setErrorHandler(new CommandKResponseErrorHandler());
+        restTemplate.getInterceptors().add(new AuthorizationInterceptor(apiToken));
+        if (metricsRecorder != MetricsRecorder.NOOP) {
+            // Ahead of the decompression, so that the decoded payload is counted whether or not the transport
+            // decompresses responses itself
+            restTemplate.getInterceptors().add(new ByteCountingInterceptor(metricsRecorder));
+        }
+        if (compression) {
+            restTemplate.getInterceptors().add(new CompressionInterceptor());
+        }
+        // Ahead of the generic Jackson converter, which would otherwise decode the secrets through data binding
+        restTemplate.getMessageConverters().add(0, new RenderedAppSecretsMessageConverter(metricsRecorder));
+        return restTemplate;
+    }
+
+    @Nonnull
+    private Optional<CommandKResponse> lookup(@Nonnull Object key) {
+        Optional<CommandKResponse> commandKResponse = eTagsStore.get(key);
+        if (metricsEnabled) metricsRecorder.recordCacheLookup(commandKResponse.isPresent());
+        return commandKResponse;
+    }
 
+    static SdkApi createSdkApi(@Nonnull String host, @Nonnull RestTemplate restTemplate) {
+        // The Authorization header is set by the AuthorizationInterceptor of the template
         ApiClient apiClient = new ApiClient(restTemplate);
-        apiClient.setBasePath(commandKCredentials.host);
-        apiClient.addDefaultHeader("Authorization", String.format("Bearer %s", commandKCredentials.apiToken));
+        apiClient.setBasePath(host);
         return new SdkApi(apiClient);
     }
+
+    @Nonnull
+    private URI renderedAppSecretsUri(
+            @Nonnull String catalogAppId,
+            @Nonnull String environmentId,
+            @Nullable List<String> secretNames
+    ) {
+        StringBuilder uri = new StringBuilder(host)
+                .append("/apps/").append(urlEncode(catalogAppId)).append("/secrets/rendered")
+                .append("?environment=").append(urlEncode(environmentId))
+                .append("&mode=").append(urlEncode(RenderingMode.FULL.getValue()));
+        if (secretNames != null) {
+            for (String secretName : secretNames) {
+                uri.append("&secret-name-filter=").append(urlEncode(secretName));
+            }
+        }
+        return URI.create(uri.toString());
+    }
+
+    private static String urlEncode(@Nonnull String value) {
+        try {
+            // Form encoding turns spaces into '+', which isn't valid in a path segment
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Executor backgroundExecutor() {
+        return BackgroundExecutor.INSTANCE;
+    }
+
+    /**
+     * Carries an exception thrown by a visitor past the retries and metrics, which only concern the host
+     */
+    private static class VisitorException extends RuntimeException {
+        VisitorException(@Nonnull RuntimeException cause) {
+            super(cause);
+        }
+    }
+
+    private static class BackgroundExecutor {
+        static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new DaemonThreadFactory("commandk-background"));
+    }
 }
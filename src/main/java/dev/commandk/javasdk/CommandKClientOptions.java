@@ -0,0 +1,390 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.metrics.MetricsRecorder;
+import dev.commandk.javasdk.transport.HttpTransport;
+import dev.commandk.javasdk.transport.PooledHttpTransport;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Tunables for a {@link CommandKClient}. Every option has a default, so a plain {@code new CommandKClientOptions()}
+ * behaves the same as {@link CommandKClient#withDefaults()}.
+ */
+public class CommandKClientOptions {
+
+    public static final Duration DEFAULT_ENVIRONMENTS_TTL = Duration.ofMinutes(5);
+    public static final int DEFAULT_ENVIRONMENTS_PAGE_SIZE = 100;
+    public static final Duration DEFAULT_WATCH_INTERVAL = Duration.ofSeconds(30);
+    public static final int DEFAULT_BATCH_PARALLELISM = 8;
+    public static final Duration DEFAULT_SNAPSHOT_MAX_AGE = Duration.ofSeconds(30);
+    public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_LAST_KNOWN_GOOD_MAX_AGE = Duration.ofHours(24);
+
+    @Nonnull
+    private Duration environmentsTtl = DEFAULT_ENVIRONMENTS_TTL;
+    private int environmentsPageSize = DEFAULT_ENVIRONMENTS_PAGE_SIZE;
+    @Nonnull
+    private Duration watchInterval = DEFAULT_WATCH_INTERVAL;
+    @Nonnull
+    private RefreshPolicy refreshPolicy = new RefreshPolicy();
+    @Nullable
+    private RefreshScheduler refreshScheduler;
+    @Nullable
+    private HttpTransport transport;
+    @Nullable
+    private Executor asyncExecutor;
+    private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
+    private boolean serveLastKnownGoodWhenUnreachable;
+    @Nonnull
+    private Duration lastKnownGoodMaxAge = DEFAULT_LAST_KNOWN_GOOD_MAX_AGE;
+    @Nonnull
+    private Duration snapshotMaxAge = DEFAULT_SNAPSHOT_MAX_AGE;
+    @Nonnull
+    private MetricsRecorder metricsRecorder = MetricsRecorder.NOOP;
+    @Nonnull
+    private RetryPolicy retryPolicy = new RetryPolicy();
+    private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+    @Nonnull
+    private Duration circuitBreakerOpenDuration = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+    @Nonnull
+    private Duration staleIfError = Duration.ZERO;
+    @Nullable
+    private Duration revalidateAfter, staleWhileRevalidateMaxAge;
+    private boolean warmUp;
+    private boolean changeProbes, fetchOnlyChangedSecrets;
+    private boolean compression = true;
+    @Nonnull
+    private final List<FetchKey> prefetches = new ArrayList<>();
+
+    /**
+     * How long the resolved list of environments is trusted before it is fetched again. A background refresh is
+     * started once three quarters of the TTL have passed, so callers only block on the very first lookup.
+     */
+    public CommandKClientOptions environmentsTtl(@Nonnull Duration environmentsTtl) {
+        if (environmentsTtl == null || environmentsTtl.isNegative() || environmentsTtl.isZero()) {
+            throw new IllegalArgumentException("environmentsTtl must be positive");
+        }
+        this.environmentsTtl = environmentsTtl;
+        return this;
+    }
+
+    /**
+     * Number of environments requested per page while walking the {@code /environments} listing
+     */
+    public CommandKClientOptions environmentsPageSize(int environmentsPageSize) {
+        if (environmentsPageSize <= 0) {
+            throw new IllegalArgumentException("environmentsPageSize must be positive");
+        }
+        this.environmentsPageSize = environmentsPageSize;
+        return this;
+    }
+
+    /**
+     * Delay between the end of one poll of a {@link SecretsWatcher} and the start of the next, before the jitter and
+     * backoff of the {@link #refreshPolicy(RefreshPolicy) refresh policy}
+     */
+    public CommandKClientOptions watchInterval(@Nonnull Duration watchInterval) {
+        if (watchInterval == null || watchInterval.isNegative() || watchInterval.isZero()) {
+            throw new IllegalArgumentException("watchInterval must be positive");
+        }
+        this.watchInterval = watchInterval;
+        return this;
+    }
+
+    /**
+     * How the delay between polls of a {@link SecretsWatcher} is jittered and adapted. Defaults to a fixed interval
+     * with up to 10% of jitter either way, lengthened when the host asks for it.
+     */
+    public CommandKClientOptions refreshPolicy(@Nonnull RefreshPolicy refreshPolicy) {
+        if (refreshPolicy == null) {
+            throw new IllegalArgumentException("refreshPolicy is null");
+        }
+        this.refreshPolicy = refreshPolicy;
+        return this;
+    }
+
+    /**
+     * Where the polls of {@link SecretsWatcher}s run, which also caps how many run at once. Defaults to the
+     * process-wide {@link RefreshScheduler#shared()}.
+     */
+    public CommandKClientOptions refreshScheduler(@Nonnull RefreshScheduler refreshScheduler) {
+        if (refreshScheduler == null) {
+            throw new IllegalArgumentException("refreshScheduler is null");
+        }
+        this.refreshScheduler = refreshScheduler;
+        return this;
+    }
+
+    /**
+     * The transport requests are sent over. Defaults to the process-wide {@link PooledHttpTransport#shared()}.
+     */
+    public CommandKClientOptions transport(@Nonnull HttpTransport transport) {
+        if (transport == null) {
+            throw new IllegalArgumentException("transport is null");
+        }
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * The executor asynchronous fetches run on. Defaults to a shared pool of daemon threads.
+     */
+    public CommandKClientOptions asyncExecutor(@Nonnull Executor asyncExecutor) {
+        if (asyncExecutor == null) {
+            throw new IllegalArgumentException("asyncExecutor is null");
+        }
+        this.asyncExecutor = asyncExecutor;
+        return this;
+    }
+
+    /**
+     * Maximum number of requests a batch fetch keeps in flight at once
+     */
+    public CommandKClientOptions batchParallelism(int batchParallelism) {
+        if (batchParallelism <= 0) {
+            throw new IllegalArgumentException("batchParallelism must be positive");
+        }
+        this.batchParallelism = batchParallelism;
+        return this;
+    }
+
+    /**
+     * Whether the cached response, e.g. one restored by a {@link dev.commandk.javasdk.kvstore.FileKVStoreFactory},
+     * is returned when the host can't be reached at all, as long as the host confirmed it within
+     * {@link #lastKnownGoodMaxAge(Duration)}. Disabled by default; errors returned by the host are never masked by
+     * this.
+     */
+    public CommandKClientOptions serveLastKnownGoodWhenUnreachable(boolean serveLastKnownGoodWhenUnreachable) {
+        this.serveLastKnownGoodWhenUnreachable = serveLastKnownGoodWhenUnreachable;
+        return this;
+    }
+
+    /**
+     * How stale a cached response may be, counted from when the host last confirmed it, to still be returned by
+     * {@link #serveLastKnownGoodWhenUnreachable(boolean)}
+     */
+    public CommandKClientOptions lastKnownGoodMaxAge(@Nonnull Duration lastKnownGoodMaxAge) {
+        if (lastKnownGoodMaxAge == null || lastKnownGoodMaxAge.isNegative()) {
+            throw new IllegalArgumentException("lastKnownGoodMaxAge must not be negative");
+        }
+        this.lastKnownGoodMaxAge = lastKnownGoodMaxAge;
+        return this;
+    }
+
+    /**
+     * How long a cached full snapshot of an app's secrets answers calls filtered by secret names without asking the
+     * host. An older snapshot is revalidated with a conditional request first. {@link Duration#ZERO} revalidates on
+     * every call.
+     */
+    public CommandKClientOptions snapshotMaxAge(@Nonnull Duration snapshotMaxAge) {
+        if (snapshotMaxAge == null || snapshotMaxAge.isNegative()) {
+            throw new IllegalArgumentException("snapshotMaxAge must not be negative");
+        }
+        this.snapshotMaxAge = snapshotMaxAge;
+        return this;
+    }
+
+    /**
+     * Where the client reports latencies, response outcomes, payload sizes and cache lookups. Defaults to
+     * {@link MetricsRecorder#NOOP}, in which case nothing is measured.
+     */
+    public CommandKClientOptions metricsRecorder(@Nonnull MetricsRecorder metricsRecorder) {
+        if (metricsRecorder == null) {
+            throw new IllegalArgumentException("metricsRecorder is null");
+        }
+        this.metricsRecorder = metricsRecorder;
+        return this;
+    }
+
+    /**
+     * How requests that fail with a 5xx, a 429 or an I/O error are retried. Defaults to three attempts with jittered
+     * exponential backoff; {@link RetryPolicy#none()} disables retries.
+     */
+    public CommandKClientOptions retryPolicy(@Nonnull RetryPolicy retryPolicy) {
+        if (retryPolicy == null) {
+            throw new IllegalArgumentException("retryPolicy is null");
+        }
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Number of consecutive failed attempts after which requests to the host are suspended for
+     * {@link #circuitBreakerOpenDuration(Duration)}. The failures of all clients of the host with the same settings
+     * count together; a 429 isn't a failure of the host.
+     */
+    public CommandKClientOptions circuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+        if (circuitBreakerFailureThreshold <= 0) {
+            throw new IllegalArgumentException("circuitBreakerFailureThreshold must be positive");
+        }
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+        return this;
+    }
+
+    /**
+     * How long requests to the host are suspended once the circuit breaker opens, before a single probe request is
+     * let through
+     */
+    public CommandKClientOptions circuitBreakerOpenDuration(@Nonnull Duration circuitBreakerOpenDuration) {
+        if (circuitBreakerOpenDuration == null || circuitBreakerOpenDuration.isNegative()) {
+            throw new IllegalArgumentException("circuitBreakerOpenDuration must not be negative");
+        }
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        return this;
+    }
+
+    /**
+     * How stale a cached response may be, counted from when the host last confirmed it, to still be returned when the
+     * host fails with a 5xx, a 429 or its circuit breaker is open. Disabled ({@link Duration#ZERO}) by default.
+     */
+    public CommandKClientOptions staleIfError(@Nonnull Duration staleIfError) {
+        if (staleIfError == null || staleIfError.isNegative()) {
+            throw new IllegalArgumentException("staleIfError must not be negative");
+        }
+        this.staleIfError = staleIfError;
+        return this;
+    }
+
+    /**
+     * Enables the stale-while-revalidate read mode: {@code getRenderedAppSecrets} returns a cached response without a
+     * request while the host confirmed it within {@code maxAge}. A response older than {@code revalidateAfter} is
+     * also revalidated in the background, once per key at a time, so that it rarely reaches the max age. Watchers
+     * keep polling the host.
+     */
+    public CommandKClientOptions staleWhileRevalidate(@Nonnull Duration revalidateAfter, @Nonnull Duration maxAge) {
+        if (revalidateAfter == null || revalidateAfter.isNegative()) {
+            throw new IllegalArgumentException("revalidateAfter must not be negative");
+        }
+        if (maxAge == null || maxAge.compareTo(revalidateAfter) < 0) {
+            throw new IllegalArgumentException("maxAge must not be shorter than revalidateAfter");
+        }
+        this.revalidateAfter = revalidateAfter;
+        this.staleWhileRevalidateMaxAge = maxAge;
+        return this;
+    }
+
+    /**
+     * Whether the HTTP transport and JSON mappers are created in the background right after the client is
+     * constructed, rather than by its first call. Disabled by default.
+     */
+    public CommandKClientOptions warmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    /**
+     * Fetches all the secrets of an app in an environment into the cache in the background, right after the client
+     * is constructed, while the application is still starting up. Failures are left to the calls that need the
+     * secrets. Can be called for several apps.
+     */
+    public CommandKClientOptions prefetch(@Nonnull String catalogAppId, @Nonnull String environment) {
+        if (catalogAppId == null || environment == null) {
+            throw new IllegalArgumentException("catalogAppId or environment is null");
+        }
+        this.prefetches.add(new FetchKey(catalogAppId, environment, null));
+        return this;
+    }
+
+    /**
+     * Whether a refresh of the secrets of an app first asks the host for a {@code PreviewOnly} rendering and compares
+     * its version with the cached one, fetching the full rendering only when they differ. A poll that finds nothing
+     * changed then costs the host no rendering of values. Disabled by default.
+     */
+    public CommandKClientOptions changeProbes(boolean changeProbes) {
+        this.changeProbes = changeProbes;
+        return this;
+    }
+
+    /**
+     * With {@link #changeProbes(boolean)}, fetches only the secrets whose previews changed, with a
+     * {@code secret-name-filter}, and merges them into the cached ones. A change that only the version shows makes
+     * the client fetch everything. Since previews can hide a change behind changes to other secrets, a merged
+     * response is cached without a version and the refresh after it always fetches the full rendering, so a missed
+     * change is served until the next refresh at most. Disabled by default.
+     */
+    public CommandKClientOptions fetchOnlyChangedSecrets(boolean fetchOnlyChangedSecrets) {
+        this.fetchOnlyChangedSecrets = fetchOnlyChangedSecrets;
+        return this;
+    }
+
+    /**
+     * Whether responses are requested gzip compressed, and decompressed, when the transport doesn't already do it.
+     * Enabled by default.
+     */
+    public CommandKClientOptions compression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    @Nonnull
+    public Duration getEnvironmentsTtl() { return environmentsTtl; }
+
+    public int getEnvironmentsPageSize() { return environmentsPageSize; }
+
+    @Nonnull
+    public Duration getWatchInterval() { return watchInterval; }
+
+    @Nonnull
+    public RefreshPolicy getRefreshPolicy() { return refreshPolicy; }
+
+    @Nonnull
+    public RefreshScheduler getRefreshScheduler() { return refreshScheduler != null ? refreshScheduler : RefreshScheduler.shared(); }
+
+    @Nonnull
+    public HttpTransport getTransport() { return transport != null ? transport : PooledHttpTransport.shared(); }
+
+    boolean hasTransport() { return transport != null; }
+
+    @Nullable
+    public Executor getAsyncExecutor() { return asyncExecutor; }
+
+    public int getBatchParallelism() { return batchParallelism; }
+
+    public boolean isServeLastKnownGoodWhenUnreachable() { return serveLastKnownGoodWhenUnreachable; }
+
+    @Nonnull
+    public Duration getLastKnownGoodMaxAge() { return lastKnownGoodMaxAge; }
+
+    @Nonnull
+    public Duration getSnapshotMaxAge() { return snapshotMaxAge; }
+
+    @Nonnull
+    public MetricsRecorder getMetricsRecorder() { return metricsRecorder; }
+
+    @Nonnull
+    public RetryPolicy getRetryPolicy() { return retryPolicy; }
+
+    public int getCircuitBreakerFailureThreshold() { return circuitBreakerFailureThreshold; }
+
+    @Nonnull
+    public Duration getCircuitBreakerOpenDuration() { return circuitBreakerOpenDuration; }
+
+    @Nonnull
+    public Duration getStaleIfError() { return staleIfError; }
+
+    public boolean isStaleWhileRevalidate() { return staleWhileRevalidateMaxAge != null; }
+
+    @Nullable
+    public Duration getRevalidateAfter() { return revalidateAfter; }
+
+    @Nullable
+    public Duration getStaleWhileRevalidateMaxAge() { return staleWhileRevalidateMaxAge; }
+
+    public boolean isWarmUp() { return warmUp; }
+
+    public boolean isChangeProbes() { return changeProbes; }
+
+    public boolean isFetchOnlyChangedSecrets() { return fetchOnlyChangedSecrets; }
+
+    public boolean isCompression() { return compression; }
+
+    @Nonnull
+    List<FetchKey> getPrefetches() { return Collections.unmodifiableList(prefetches); }
+}
@@ -0,0 +1,149 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.exception.ConfigException;
+import dev.commandk.javasdk.kvstore.BoundedKVStoreFactory;
+import dev.commandk.javasdk.kvstore.KVStoreFactory;
+import dev.commandk.javasdk.kvstore.NamespacedKVStoreFactory;
+import dev.commandk.javasdk.transport.PooledHttpTransport;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Hands out one {@link CommandKClient} per tenant, i.e. per host and API token, for processes that serve several
+ * tenants.
+ * <p>
+ * All the clients cache into one store, but every tenant gets its own namespace in it, so a client never sees the
+ * ETags or secrets of another tenant while the tenants share the store's memory budget. Clients of the same host
+ * share one connection pool. The clients live as long as the pool, or until they are removed from it.
+ */
+public class CommandKClientPool implements Closeable {
+
+    @Nonnull
+    private final KVStoreFactory<Object, CommandKResponse> kvStoreFactory;
+    @Nonnull
+    private final Supplier<CommandKClientOptions> optionsSupplier;
+
+    @Nonnull
+    private final Map<String, CommandKClient> clients = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Map<String, PooledHttpTransport> transports = new ConcurrentHashMap<>();
+
+    /**
+     * A pool whose clients share a {@link BoundedKVStoreFactory} with default options
+     */
+    public CommandKClientPool() {
+        this(new BoundedKVStoreFactory<Object, CommandKResponse>(), CommandKClientOptions::new);
+    }
+
+    /**
+     * @param kvStoreFactory  the store all the clients cache into, each in its own namespace
+     * @param optionsSupplier creates the options of every new client. Unless they set a transport, the client is
+     *                        given the pool's transport for its host.
+     */
+    public CommandKClientPool(
+            @Nonnull KVStoreFactory<Object, CommandKResponse> kvStoreFactory,
+            @Nonnull Supplier<CommandKClientOptions> optionsSupplier
+    ) {
+        if(kvStoreFactory==null){
+            throw new IllegalArgumentException("kvStoreFactory is null");
+        }
+        if(optionsSupplier==null){
+            throw new IllegalArgumentException("optionsSupplier is null");
+        }
+        this.kvStoreFactory = kvStoreFactory;
+        this.optionsSupplier = optionsSupplier;
+    }
+
+    /**
+     * The client of the tenant the credentials belong to, created on first use
+     */
+    public @Nonnull CommandKClient getClient(@Nonnull CommandKCredentials credentials) {
+        if(credentials==null || credentials.host==null || credentials.apiToken==null){
+            throw new ConfigException("Provided CommandKCredentials object is missing host or apiToken");
+        }
+        // Copied, since the fields of the credentials can be reassigned by the caller
+        CommandKCredentials tenantCredentials = new CommandKCredentials(credentials.host, credentials.apiToken);
+        return clients.computeIfAbsent(tenantOf(tenantCredentials), tenant -> createClient(tenant, tenantCredentials));
+    }
+
+    /**
+     * Number of tenants the pool holds a client for
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Drops and closes the client of the tenant the credentials belong to, e.g. once the tenant is offboarded. Its
+     * entries stay in the shared store until they are evicted.
+     *
+     * @return whether the pool held a client for the tenant
+     */
+    public boolean removeClient(@Nonnull CommandKCredentials credentials) {
+        if(credentials==null || credentials.host==null || credentials.apiToken==null){
+            throw new ConfigException("Provided CommandKCredentials object is missing host or apiToken");
+        }
+        CommandKClient client = clients.remove(tenantOf(credentials));
+        if (client == null) return false;
+        client.close();
+        return true;
+    }
+
+    /**
+     * Closes the clients and the connection pools created for them. The clients must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        for (CommandKClient client : clients.values()) {
+            client.close();
+        }
+        clients.clear();
+        for (PooledHttpTransport transport : transports.values()) {
+            transport.close();
+        }
+        transports.clear();
+    }
+
+    @Nonnull
+    private CommandKClient createClient(@Nonnull String tenant, @Nonnull CommandKCredentials credentials) {
+        CommandKClientOptions options = optionsSupplier.get();
+        if(options==null){
+            throw new ConfigException("optionsSupplier returned null");
+        }
+        if (!options.hasTransport()) {
+            options.transport(transports.computeIfAbsent(credentials.host, host -> new PooledHttpTransport()));
+        }
+        return new CommandKClient(
+                new NamespacedKVStoreFactory<Object, CommandKResponse>(kvStoreFactory, tenant),
+                () -> credentials,
+                options
+        );
+    }
+
+    /**
+     * The host and a digest of the token, so that the token itself is neither kept in cache keys nor persisted with
+     * them
+     */
+    @Nonnull
+    static String tenantOf(@Nonnull CommandKCredentials credentials) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(credentials.apiToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder tenant = new StringBuilder(credentials.host.length() + 1 + digest.length * 2)
+                    .append(credentials.host).append('#');
+            for (byte b : digest) {
+                tenant.append(String.format("%02x", b));
+            }
+            return tenant.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
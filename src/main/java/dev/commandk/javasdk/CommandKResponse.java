@@ -0,0 +1,236 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.kvstore.Weighable;
+import dev.commandk.javasdk.models.EnvironmentDescriptor;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+class CommandKResponse implements Serializable, Weighable {
+    private static final long serialVersionUID = 1L;
+
+    // Rough sizes of the object headers, fields and references on a 64-bit JVM with compressed oops
+    private static final long RESPONSE_OVERHEAD_BYTES = 64;
+    private static final long ITEM_OVERHEAD_BYTES = 40;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+
+    @Nonnull
+    private String eTag;
+    @Nonnull
+    private Object response;
+    @Nullable
+    private String changelogId;
+    @Nullable
+    private Long incrementalId;
+    // Absent from snapshots persisted before it was kept
+    @Nullable
+    private String secretDigest;
+    // Set on projections, whose digest is computed from their own secrets on first use; racing computations produce
+    // equal digests
+    private transient volatile boolean digestOfContents;
+    // When the host last confirmed this response, with a 200 or a 304. Wall clock, so it stays meaningful in
+    // persisted snapshots.
+    private volatile long validatedAtMillis;
+    // How long the host said this response stays fresh, with Cache-Control max-age, when it last confirmed it; 0 when
+    // it didn't say
+    private transient volatile long hostMaxAgeMillis;
+    // The last PreviewOnly rendering taken for this response when change probes are enabled, kept with it so that it
+    // goes away when the store evicts the response. Not persisted: the first probe after a restart isn't conditional.
+    @Nullable
+    private transient volatile SecretsPreview preview;
+    // Built on first use; racing builds produce equal snapshots, so the last write winning is harmless
+    @Nullable
+    private transient volatile SecretSnapshot secretSnapshot;
+
+    public CommandKResponse(@Nonnull String eTag, @Nonnull Object response){
+        this(eTag, response, null, null);
+    }
+
+    public CommandKResponse(
+            @Nonnull String eTag,
+            @Nonnull Object response,
+            @Nullable String changelogId,
+            @Nullable Long incrementalId
+    ){
+        this(eTag, response, changelogId, incrementalId, null);
+    }
+
+    public CommandKResponse(
+            @Nonnull String eTag,
+            @Nonnull Object response,
+            @Nullable String changelogId,
+            @Nullable Long incrementalId,
+            @Nullable String secretDigest
+    ){
+        this.eTag = eTag;
+        this.response = response;
+        this.changelogId = changelogId;
+        this.incrementalId = incrementalId;
+        this.secretDigest = secretDigest;
+        this.validatedAtMillis = System.currentTimeMillis();
+    }
+
+    @Nonnull
+    String getETag() { return this.eTag; }
+
+    @Nonnull
+    Object getResponse() { return this.response; }
+
+    @Nullable
+    String getChangelogId() { return this.changelogId; }
+
+    @Nullable
+    Long getIncrementalId() { return this.incrementalId; }
+
+    @Nullable
+    String getSecretDigest() {
+        String digest = this.secretDigest;
+        if (digest == null && digestOfContents) {
+            digest = digestOf((List<?>) response);
+            this.secretDigest = digest;
+        }
+        return digest;
+    }
+
+    @Nonnull
+    SecretsVersion getVersion() { return new SecretsVersion(changelogId, incrementalId, getSecretDigest()); }
+
+    long getValidatedAtMillis() { return this.validatedAtMillis; }
+
+    /**
+     * Records that the host confirmed this response is still current
+     */
+    void markValidated() {
+        this.validatedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Records that the host confirmed this response is still current, and for how long it says it stays so
+     */
+    void markValidated(long hostMaxAgeMillis) {
+        markValidated();
+        this.hostMaxAgeMillis = hostMaxAgeMillis;
+    }
+
+    long getHostMaxAgeMillis() { return this.hostMaxAgeMillis; }
+
+    @Nullable
+    SecretsPreview getPreview() { return this.preview; }
+
+    void setPreview(@Nullable SecretsPreview preview) { this.preview = preview; }
+
+    /**
+     * Time since the host last confirmed this response
+     */
+    long getAgeMillis() {
+        return System.currentTimeMillis() - validatedAtMillis;
+    }
+
+    boolean isFresh(long maxAgeMillis) {
+        return System.currentTimeMillis() - validatedAtMillis < maxAgeMillis;
+    }
+
+    /**
+     * The rendered secrets of this response as an indexed snapshot
+     */
+    @Nonnull
+    SecretSnapshot getSecretSnapshot() {
+        SecretSnapshot snapshot = secretSnapshot;
+        if (snapshot == null) {
+            snapshot = new SecretSnapshot((List<RenderedAppSecret>) response, getVersion());
+            secretSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * The response restricted to the secrets with the given keys, as the host would have rendered it for a
+     * {@code secret-name-filter}
+     */
+    @Nonnull
+    CommandKResponse project(@Nonnull Collection<String> secretNames) {
+        Set<String> keys = new HashSet<>(secretNames);
+        List<RenderedAppSecret> projectedSecrets = new ArrayList<>(Math.min(keys.size(), ((List<?>) response).size()));
+        for (Object item : (List<?>) response) {
+            RenderedAppSecret renderedAppSecret = (RenderedAppSecret) item;
+            if (keys.contains(renderedAppSecret.getKey())) projectedSecrets.add(renderedAppSecret);
+        }
+        // The ETag, ids and digest of the response describe all the secrets, so that a change to any of them would
+        // look like a change to the projection. Its version is a digest of its own secrets instead.
+        CommandKResponse projection = new CommandKResponse("", projectedSecrets);
+        projection.digestOfContents = true;
+        projection.validatedAtMillis = validatedAtMillis;
+        projection.hostMaxAgeMillis = hostMaxAgeMillis;
+        return projection;
+    }
+
+    /**
+     * A digest of the keys, values, value types and ids of the secrets, in their order
+     */
+    @Nonnull
+    static String digestOf(@Nonnull List<?> secrets) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            for (Object item : secrets) {
+                RenderedAppSecret renderedAppSecret = (RenderedAppSecret) item;
+                update(messageDigest, renderedAppSecret.getKey());
+                update(messageDigest, renderedAppSecret.getSerializedValue());
+                update(messageDigest, renderedAppSecret.getValueType() != null ? renderedAppSecret.getValueType().getValue() : null);
+                update(messageDigest, renderedAppSecret.getSecretId());
+            }
+            StringBuilder digest = new StringBuilder(64);
+            for (byte b : messageDigest.digest()) {
+                digest.append(String.format("%02x", b));
+            }
+            return digest.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(@Nonnull MessageDigest messageDigest, @Nullable String value) {
+        // Length-prefixed, so that no two different sequences of values hash the same input; -1 for null
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        int length = bytes != null ? bytes.length : -1;
+        messageDigest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        if (bytes != null) messageDigest.update(bytes);
+    }
+
+    @Override
+    public long estimatedSizeBytes() {
+        long size = RESPONSE_OVERHEAD_BYTES + sizeOf(eTag) + sizeOf(changelogId) + sizeOf(secretDigest);
+        if (response instanceof List) {
+            for (Object item : (List<?>) response) {
+                size += ITEM_OVERHEAD_BYTES;
+                if (item instanceof RenderedAppSecret) {
+                    RenderedAppSecret renderedAppSecret = (RenderedAppSecret) item;
+                    size += sizeOf(renderedAppSecret.getKey())
+                            + sizeOf(renderedAppSecret.getSerializedValue())
+                            + sizeOf(renderedAppSecret.getSecretId());
+                } else if (item instanceof EnvironmentDescriptor) {
+                    EnvironmentDescriptor environmentDescriptor = (EnvironmentDescriptor) item;
+                    size += sizeOf(environmentDescriptor.getId())
+                            + sizeOf(environmentDescriptor.getName())
+                            + sizeOf(environmentDescriptor.getSlug())
+                            + sizeOf(environmentDescriptor.getLabel());
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long sizeOf(@Nullable String string) {
+        // Upper bound: strings that aren't Latin-1 take two bytes per character
+        return string == null ? 0 : STRING_OVERHEAD_BYTES + 2L * string.length();
+    }
+}
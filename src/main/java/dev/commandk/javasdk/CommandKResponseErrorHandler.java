@@ -1,6 +1,7 @@
 package dev.commandk.javasdk;
 
-import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.common.Headers;
+import dev.commandk.javasdk.exception.HostResponseException;
 import dev.commandk.javasdk.exception.ResponseNotModifiedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.client.ClientHttpResponse;
@@ -16,7 +17,12 @@ class CommandKResponseErrorHandler implements ResponseErrorHandler {
 
     @Override
     public void handleError(ClientHttpResponse response) throws IOException {
-        if(response.getStatusCode() == HttpStatus.NOT_MODIFIED) throw new ResponseNotModifiedException();
-        throw new ClientException(String.format("Response from host: %d", response.getRawStatusCode()));
+        if(response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            throw new ResponseNotModifiedException(Headers.maxAge(response.getHeaders().getFirst(Headers.CACHE_CONTROL)));
+        }
+        throw new HostResponseException(
+                response.getRawStatusCode(),
+                Headers.retryAfter(response.getHeaders().getFirst(Headers.RETRY_AFTER))
+        );
     }
 }
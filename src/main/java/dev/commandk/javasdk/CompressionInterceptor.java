@@ -0,0 +1,77 @@
+package dev.commandk.javasdk;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Asks for gzip compressed responses and decompresses them. Transports that negotiate compression themselves, like
+ * the Apache HttpClient of {@link dev.commandk.javasdk.transport.PooledHttpTransport}, hand over responses already
+ * decompressed and without a {@code Content-Encoding}, which pass through untouched.
+ */
+class CompressionInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final String GZIP = "gzip";
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!request.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        }
+        ClientHttpResponse response = execution.execute(request, body);
+        String contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        return contentEncoding != null && GZIP.equalsIgnoreCase(contentEncoding.trim())
+                ? new DecompressingResponse(response)
+                : response;
+    }
+
+    private static class DecompressingResponse implements ClientHttpResponse {
+        @Nonnull
+        private final ClientHttpResponse delegate;
+        @Nullable
+        private InputStream body;
+
+        DecompressingResponse(@Nonnull ClientHttpResponse delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) body = new GZIPInputStream(delegate.getBody());
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            // The body is no longer encoded, and its length is no longer the one the host sent
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(delegate.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_ENCODING);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return headers;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException { return delegate.getStatusCode(); }
+
+        @Override
+        public int getRawStatusCode() throws IOException { return delegate.getRawStatusCode(); }
+
+        @Override
+        public String getStatusText() throws IOException { return delegate.getStatusText(); }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
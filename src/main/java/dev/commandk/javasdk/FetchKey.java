@@ -0,0 +1,44 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Identifies a {@code getRenderedAppSecrets} call as the caller made it, before the environment is resolved, so
+ * that identical concurrent calls can share one request
+ */
+final class FetchKey {
+    @Nonnull
+    final String catalogAppId, environment;
+    @Nonnull
+    final List<String> secretNames;
+    private final int hashCode;
+
+    FetchKey(@Nonnull String catalogAppId, @Nonnull String environment, @Nullable List<String> secretNames) {
+        this.catalogAppId = catalogAppId;
+        this.environment = environment;
+        this.secretNames = secretNames == null || secretNames.isEmpty()
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(secretNames));
+        this.hashCode = 31 * (31 * catalogAppId.hashCode() + environment.hashCode()) + this.secretNames.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof FetchKey)) return false;
+        FetchKey fetchKey = (FetchKey) obj;
+        return hashCode == fetchKey.hashCode
+                && catalogAppId.equals(fetchKey.catalogAppId)
+                && environment.equals(fetchKey.environment)
+                && secretNames.equals(fetchKey.secretNames);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,118 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The outcome of {@link CommandKClient#fetch(String, String, List, FetchResult)}: the secrets with their ETag and
+ * version, and whether they changed since the previous result the caller passed in. A failure is reported as a
+ * result too, so a polling loop never handles exceptions on its hot path.
+ */
+public final class FetchResult {
+
+    public enum Status {
+        /**
+         * The secrets differ from the previous result, or there was no previous result
+         */
+        MODIFIED,
+        /**
+         * The secrets are those of the previous result, so anything derived from them can be kept
+         */
+        NOT_MODIFIED,
+        /**
+         * The secrets couldn't be fetched, see {@link #getError()}
+         */
+        ERROR
+    }
+
+    @Nonnull
+    private final Status status;
+    @Nullable
+    private final List<RenderedAppSecret> renderedAppSecrets;
+    @Nullable
+    private final String eTag;
+    @Nullable
+    private final SecretsVersion version;
+    @Nullable
+    private final ClientException error;
+
+    private FetchResult(
+            @Nonnull Status status,
+            @Nullable List<RenderedAppSecret> renderedAppSecrets,
+            @Nullable String eTag,
+            @Nullable SecretsVersion version,
+            @Nullable ClientException error
+    ) {
+        this.status = status;
+        this.renderedAppSecrets = renderedAppSecrets;
+        this.eTag = eTag;
+        this.version = version;
+        this.error = error;
+    }
+
+    /**
+     * The result of a fetch that returned the response, compared with the previous result of the caller: unchanged
+     * when both have the same non-empty ETag, or versions known to hold the same secrets
+     */
+    @Nonnull
+    static FetchResult of(@Nonnull CommandKResponse commandKResponse, @Nullable FetchResult previous) {
+        String eTag = commandKResponse.getETag();
+        SecretsVersion version = commandKResponse.getVersion();
+        boolean unchanged = previous != null
+                && ((!eTag.isEmpty() && eTag.equals(previous.eTag)) || (previous.version != null && version.hasSameSecretsAs(previous.version)));
+        return new FetchResult(
+                unchanged ? Status.NOT_MODIFIED : Status.MODIFIED,
+                (List<RenderedAppSecret>) commandKResponse.getResponse(),
+                eTag,
+                version,
+                null
+        );
+    }
+
+    /**
+     * A failed fetch. It keeps the ETag and version of the previous result, so that the result after it is still
+     * compared with the last secrets the caller got.
+     */
+    @Nonnull
+    static FetchResult failure(@Nonnull ClientException error, @Nullable FetchResult previous) {
+        return new FetchResult(
+                Status.ERROR,
+                null,
+                previous != null ? previous.eTag : null,
+                previous != null ? previous.version : null,
+                error
+        );
+    }
+
+    public @Nonnull Status getStatus() { return status; }
+
+    public boolean isModified() { return status == Status.MODIFIED; }
+
+    public boolean isNotModified() { return status == Status.NOT_MODIFIED; }
+
+    /**
+     * The fetched secrets, whether or not they changed
+     *
+     * @throws ClientException the error of the fetch, if it failed
+     */
+    public @Nonnull List<RenderedAppSecret> getSecrets() {
+        if (error != null) throw error;
+        return renderedAppSecrets;
+    }
+
+    /**
+     * The ETag of the secrets, empty when the host didn't send one. A failure has the ETag of the previous result.
+     */
+    public @Nullable String getETag() { return eTag; }
+
+    /**
+     * The version of the secrets. A failure has the version of the previous result.
+     */
+    public @Nullable SecretsVersion getVersion() { return version; }
+
+    public @Nullable ClientException getError() { return error; }
+}
@@ -0,0 +1,31 @@
+package dev.commandk.javasdk;
+
+import java.io.Serializable;
+
+/**
+ * Key under which the client keeps the last environments listing it fetched, so that a process started while the
+ * host is unreachable can still resolve environments from a persistent store. The listing is scoped to the tenant,
+ * i.e. the host and API token, since clients of different tenants may share a store.
+ */
+final class GetEnvironmentsRequest implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    String tenant;
+
+    GetEnvironmentsRequest(String tenant) {
+        this.tenant = tenant;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof GetEnvironmentsRequest) {
+            return this.tenant.equals(((GetEnvironmentsRequest) obj).tenant);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * GetEnvironmentsRequest.class.getName().hashCode() + this.tenant.hashCode();
+    }
+}
@@ -1,11 +1,39 @@
 package dev.commandk.javasdk;
 
-class GetRenderedAppSecretsRequest {
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+class GetRenderedAppSecretsRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     String cataglogAppId, environmentId;
+    // Sorted and without duplicates, so that the same filter always maps to the same cache entry. Empty for the
+    // full snapshot of the app.
+    List<String> secretNames;
 
     GetRenderedAppSecretsRequest(String catalogAppId, String environmentId){
+        this(catalogAppId, environmentId, null);
+    }
+
+    GetRenderedAppSecretsRequest(String catalogAppId, String environmentId, Collection<String> secretNames){
         this.cataglogAppId = catalogAppId;
         this.environmentId = environmentId;
+        this.secretNames = secretNames == null || secretNames.isEmpty()
+                ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(secretNames)));
+    }
+
+    boolean isFullSnapshot() {
+        return secretNames().isEmpty();
+    }
+
+    List<String> secretNames() {
+        // Absent from snapshots persisted before secret names were part of the key
+        return secretNames != null ? secretNames : Collections.<String>emptyList();
     }
 
     @Override
@@ -13,13 +41,14 @@ class GetRenderedAppSecretsRequest {
         if(obj instanceof GetRenderedAppSecretsRequest) {
             GetRenderedAppSecretsRequest getRenderedAppSecretsRequest = (GetRenderedAppSecretsRequest) obj;
             return this.cataglogAppId.equals(getRenderedAppSecretsRequest.cataglogAppId)
-                    && this.environmentId.equals(getRenderedAppSecretsRequest.environmentId);
+                    && this.environmentId.equals(getRenderedAppSecretsRequest.environmentId)
+                    && this.secretNames().equals(getRenderedAppSecretsRequest.secretNames());
         }
         return false;
     }
 
     @Override
     public int hashCode() {
-        return this.cataglogAppId.hashCode() & this.environmentId.hashCode();
+        return 31 * (31 * this.cataglogAppId.hashCode() + this.environmentId.hashCode()) + this.secretNames().hashCode();
     }
-}
\ No newline at end of file
+}
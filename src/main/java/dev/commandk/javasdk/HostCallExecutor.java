@@ -0,0 +1,97 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.CircuitOpenException;
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.exception.HostResponseException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends requests to the host through its {@link CircuitBreaker}, retrying transient failures as the
+ * {@link RetryPolicy} allows. Exceptions are rethrown unchanged once the attempts are exhausted.
+ */
+class HostCallExecutor {
+
+    @Nonnull
+    private final String host;
+    @Nonnull
+    private final RetryPolicy retryPolicy;
+    @Nonnull
+    private final CircuitBreaker circuitBreaker;
+
+    HostCallExecutor(@Nonnull String host, @Nonnull RetryPolicy retryPolicy, @Nonnull CircuitBreaker circuitBreaker) {
+        this.host = host;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    <T> T execute(@Nonnull Supplier<T> request) {
+        int attempt = 1;
+        RuntimeException lastFailure = null;
+        while (true) {
+            if (!circuitBreaker.tryAcquire()) {
+                // A retry refused by the circuit reports the failure it was retrying
+                if (lastFailure != null) throw lastFailure;
+                throw new CircuitOpenException(
+                        String.format("Requests to %s are suspended after repeated failures", host),
+                        circuitBreaker.getLastFailure()
+                );
+            }
+            try {
+                T result = request.get();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                if (!isTransient(e) || isRateLimited(e)) {
+                    // The host answered; a 304, a 4xx or a 429 says nothing bad about its health
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure(e);
+                }
+                if (!isTransient(e) || attempt >= retryPolicy.getMaxAttempts()) throw e;
+                long backoffNanos = retryPolicy.backoffNanos(attempt);
+                Duration retryAfter = e instanceof HostResponseException ? ((HostResponseException) e).getRetryAfter() : null;
+                if (retryAfter != null) {
+                    // A host asking for a longer wait than any backoff isn't retried, instead of blocking the caller
+                    if (retryAfter.compareTo(retryPolicy.getMaxBackoff()) > 0) throw e;
+                    backoffNanos = Math.max(backoffNanos, retryAfter.toNanos());
+                }
+                sleep(backoffNanos, e);
+                lastFailure = e;
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Whether the host turned the request away to limit its rate, a 429
+     */
+    static boolean isRateLimited(@Nullable Throwable e) {
+        return e instanceof HostResponseException && ((HostResponseException) e).getStatusCode() == 429;
+    }
+
+    /**
+     * Whether the failure is worth retrying: an I/O error, a 5xx or a 429
+     */
+    static boolean isTransient(@Nullable Throwable e) {
+        return e instanceof ResourceAccessException
+                || (e instanceof HostResponseException && ((HostResponseException) e).isRetryable());
+    }
+
+    private static void sleep(long nanos, @Nonnull RuntimeException failure) {
+        if (nanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ClientException clientException = new ClientException("Interrupted while waiting to retry", e);
+            clientException.addSuppressed(failure);
+            throw clientException;
+        }
+    }
+}
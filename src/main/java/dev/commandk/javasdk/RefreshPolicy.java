@@ -0,0 +1,102 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When a {@link SecretsWatcher} polls next. Every delay is jittered, so that clients started together, e.g. the pods
+ * of a rolling deployment, drift apart instead of polling the host in lockstep.
+ * <p>
+ * The interval starts at {@link CommandKClientOptions#getWatchInterval()}. With a {@link #maxInterval(Duration)}
+ * above it, the interval grows by the {@link #backoffMultiplier(double) multiplier} after every poll that finds the
+ * secrets unchanged, and drops back after a change. A {@code Cache-Control: max-age} or {@code Retry-After} from the
+ * host delays the next poll at least that long.
+ */
+public class RefreshPolicy {
+
+    public static final double DEFAULT_JITTER = 0.2;
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+    // A host asking for longer waits than this is more likely misconfigured than overloaded
+    static final long MAX_HOST_DELAY_NANOS = Duration.ofHours(1).toNanos();
+
+    private double jitter = DEFAULT_JITTER;
+    @Nullable
+    private Duration maxInterval;
+    private double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    private boolean honorHostHints = true;
+
+    /**
+     * Width of the random range around the interval each delay is drawn from, e.g. {@code 0.2} for up to 10% shorter
+     * or longer
+     */
+    public RefreshPolicy jitter(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Longest interval polls back off to while the secrets don't change. Defaults to the watch interval, which
+     * keeps the interval fixed.
+     */
+    public RefreshPolicy maxInterval(@Nonnull Duration maxInterval) {
+        if (maxInterval == null || maxInterval.isNegative() || maxInterval.isZero()) {
+            throw new IllegalArgumentException("maxInterval must be positive");
+        }
+        this.maxInterval = maxInterval;
+        return this;
+    }
+
+    /**
+     * Factor the interval grows by after every poll that finds the secrets unchanged
+     */
+    public RefreshPolicy backoffMultiplier(double backoffMultiplier) {
+        if (!(backoffMultiplier >= 1)) {
+            throw new IllegalArgumentException("backoffMultiplier must be at least 1");
+        }
+        this.backoffMultiplier = backoffMultiplier;
+        return this;
+    }
+
+    /**
+     * Whether {@code Cache-Control: max-age} and {@code Retry-After} from the host delay the next poll
+     */
+    public RefreshPolicy honorHostHints(boolean honorHostHints) {
+        this.honorHostHints = honorHostHints;
+        return this;
+    }
+
+    public double getJitter() { return jitter; }
+
+    @Nullable
+    public Duration getMaxInterval() { return maxInterval; }
+
+    public double getBackoffMultiplier() { return backoffMultiplier; }
+
+    public boolean isHonorHostHints() { return honorHostHints; }
+
+    /**
+     * The interval after a poll: back to {@code baseNanos} after a change, grown towards the max interval otherwise
+     */
+    long nextIntervalNanos(long baseNanos, long currentNanos, boolean changed) {
+        if (changed) return baseNanos;
+        long maxNanos = maxInterval != null ? Math.max(baseNanos, maxInterval.toNanos()) : baseNanos;
+        return (long) Math.min((double) maxNanos, currentNanos * backoffMultiplier);
+    }
+
+    /**
+     * The jittered delay before the next poll, no shorter than the delay the host asked for, if any
+     */
+    long delayNanos(long intervalNanos, long hostDelayNanos) {
+        double factor = 1 + jitter * (ThreadLocalRandom.current().nextDouble() - 0.5);
+        long delayNanos = (long) (intervalNanos * factor);
+        if (!honorHostHints || hostDelayNanos <= 0) return delayNanos;
+        long hostDelay = Math.min(hostDelayNanos, MAX_HOST_DELAY_NANOS);
+        // Jittered upwards only, so that the host's delay is respected
+        return Math.max(delayNanos, (long) (hostDelay * (1 + jitter * ThreadLocalRandom.current().nextDouble() / 2)));
+    }
+}
@@ -0,0 +1,69 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.common.DaemonThreadFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the polls of {@link SecretsWatcher}s. At most {@code maxInFlightRefreshes} of them run at a time and the others
+ * wait for their turn, so a process watching many apps never sends the host more than that many polls at once.
+ * <p>
+ * Clients share the process-wide {@link #shared()} unless given another one through
+ * {@link CommandKClientOptions#refreshScheduler(RefreshScheduler)}. Watchers call their listeners on the threads of
+ * the scheduler, so a listener that blocks holds up the refreshes of other watchers.
+ */
+public class RefreshScheduler implements Closeable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_REFRESHES = 4;
+
+    @Nonnull
+    private final ScheduledThreadPoolExecutor executor;
+    private final boolean shared;
+
+    public RefreshScheduler(int maxInFlightRefreshes) {
+        this(maxInFlightRefreshes, false);
+    }
+
+    private RefreshScheduler(int maxInFlightRefreshes, boolean shared) {
+        if (maxInFlightRefreshes <= 0) {
+            throw new IllegalArgumentException("maxInFlightRefreshes must be positive");
+        }
+        this.executor = new ScheduledThreadPoolExecutor(maxInFlightRefreshes, new DaemonThreadFactory("commandk-refresh"));
+        executor.setRemoveOnCancelPolicy(true);
+        this.shared = shared;
+    }
+
+    /**
+     * The scheduler used by clients that aren't configured with one. It lives as long as the process and closing it
+     * has no effect.
+     */
+    public static @Nonnull RefreshScheduler shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    public int getMaxInFlightRefreshes() {
+        return executor.getCorePoolSize();
+    }
+
+    @Nonnull
+    ScheduledFuture<?> schedule(@Nonnull Runnable refresh, long delayNanos) {
+        return executor.schedule(refresh, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops running polls; the watchers using this scheduler stop polling
+     */
+    @Override
+    public void close() {
+        if (shared) return;
+        executor.shutdownNow();
+    }
+
+    private static class SharedHolder {
+        static final RefreshScheduler INSTANCE = new RefreshScheduler(DEFAULT_MAX_IN_FLIGHT_REFRESHES, true);
+    }
+}
@@ -0,0 +1,155 @@
+package dev.commandk.javasdk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decodes a {@link RenderedAppSecretsResponse} straight from the token stream.
+ * <p>
+ * Unlike data binding, no intermediate tree is built and no bean introspection happens per field: each secret is
+ * read into its model as its tokens arrive, and unknown fields are skipped without being materialized. With a
+ * visitor, secrets are handed over one at a time and never collected into a list.
+ */
+final class RenderedAppSecretsDecoder {
+
+    // Thread safe and expensive to create; it also canonicalizes field names across parsers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final Map<String, RenderedAppSecretValueType> VALUE_TYPES;
+
+    static {
+        Map<String, RenderedAppSecretValueType> valueTypes = new HashMap<>();
+        for (RenderedAppSecretValueType valueType : RenderedAppSecretValueType.values()) {
+            valueTypes.put(valueType.getValue(), valueType);
+        }
+        VALUE_TYPES = Collections.unmodifiableMap(valueTypes);
+    }
+
+    private RenderedAppSecretsDecoder() {}
+
+    /**
+     * Decodes the response, collecting its secrets into a list
+     */
+    @Nonnull
+    static RenderedAppSecretsResponse decode(@Nonnull InputStream inputStream) throws IOException {
+        return decode(inputStream, null);
+    }
+
+    /**
+     * Decodes the response. With a visitor, each secret is passed to it in order and the returned response carries
+     * only the metadata, with an empty list of secrets.
+     */
+    @Nonnull
+    static RenderedAppSecretsResponse decode(
+            @Nonnull InputStream inputStream,
+            @Nullable Consumer<RenderedAppSecret> visitor
+    ) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a rendered secrets object");
+            }
+
+            RenderedAppSecretsResponse renderedAppSecretsResponse = new RenderedAppSecretsResponse();
+            List<RenderedAppSecret> renderedAppSecrets = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (fieldName) {
+                    case "changelogId":
+                        renderedAppSecretsResponse.setChangelogId(readText(parser, valueToken));
+                        break;
+                    case "secretDigest":
+                        renderedAppSecretsResponse.setSecretDigest(readText(parser, valueToken));
+                        break;
+                    case "incrementalId":
+                        renderedAppSecretsResponse.setIncrementalId(valueToken == JsonToken.VALUE_NULL ? null : parser.getValueAsLong());
+                        break;
+                    case "secrets":
+                        renderedAppSecrets = readSecrets(parser, valueToken, visitor);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            renderedAppSecretsResponse.setSecrets(renderedAppSecrets != null ? renderedAppSecrets : new ArrayList<>());
+            return renderedAppSecretsResponse;
+        }
+    }
+
+    @Nullable
+    private static List<RenderedAppSecret> readSecrets(
+            @Nonnull JsonParser parser,
+            @Nonnull JsonToken valueToken,
+            @Nullable Consumer<RenderedAppSecret> visitor
+    ) throws IOException {
+        if (valueToken == JsonToken.VALUE_NULL) return null;
+        if (valueToken != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array of secrets");
+        }
+
+        List<RenderedAppSecret> renderedAppSecrets = visitor == null ? new ArrayList<>() : null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a secret object");
+            }
+            RenderedAppSecret renderedAppSecret = readSecret(parser);
+            if (visitor != null) visitor.accept(renderedAppSecret);
+            else renderedAppSecrets.add(renderedAppSecret);
+        }
+        return renderedAppSecrets;
+    }
+
+    @Nonnull
+    private static RenderedAppSecret readSecret(@Nonnull JsonParser parser) throws IOException {
+        RenderedAppSecret renderedAppSecret = new RenderedAppSecret();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            switch (fieldName) {
+                case "key":
+                    renderedAppSecret.setKey(readText(parser, valueToken));
+                    break;
+                case "serializedValue":
+                    renderedAppSecret.setSerializedValue(readText(parser, valueToken));
+                    break;
+                case "secretId":
+                    renderedAppSecret.setSecretId(readText(parser, valueToken));
+                    break;
+                case "valueType":
+                    String valueType = readText(parser, valueToken);
+                    // An unknown value type from a newer host shouldn't fail the whole response
+                    renderedAppSecret.setValueType(valueType != null ? VALUE_TYPES.get(valueType) : null);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return renderedAppSecret;
+    }
+
+    @Nullable
+    private static String readText(@Nonnull JsonParser parser, @Nonnull JsonToken valueToken) throws IOException {
+        if (valueToken == JsonToken.VALUE_NULL) return null;
+        if (!valueToken.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a scalar value");
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,62 @@
+package dev.commandk.javasdk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import dev.commandk.javasdk.metrics.MetricsRecorder;
+import dev.commandk.javasdk.metrics.Operation;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Reads {@link RenderedAppSecretsResponse} bodies with the {@link RenderedAppSecretsDecoder} instead of the generic
+ * Jackson converter. Registered ahead of the default converters, it only takes over this one type.
+ */
+class RenderedAppSecretsMessageConverter extends AbstractHttpMessageConverter<RenderedAppSecretsResponse> {
+
+    @Nonnull
+    private final MetricsRecorder metricsRecorder;
+
+    RenderedAppSecretsMessageConverter(@Nonnull MetricsRecorder metricsRecorder) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.metricsRecorder = metricsRecorder;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RenderedAppSecretsResponse.class == clazz;
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RenderedAppSecretsResponse readInternal(
+            Class<? extends RenderedAppSecretsResponse> clazz,
+            HttpInputMessage inputMessage
+    ) throws IOException, HttpMessageNotReadableException {
+        boolean recordDecode = metricsRecorder != MetricsRecorder.NOOP;
+        long startedAt = recordDecode ? System.nanoTime() : 0;
+        try {
+            RenderedAppSecretsResponse renderedAppSecretsResponse = RenderedAppSecretsDecoder.decode(inputMessage.getBody());
+            if (recordDecode) metricsRecorder.recordDecode(Operation.GET_RENDERED_APP_SECRETS, System.nanoTime() - startedAt);
+            return renderedAppSecretsResponse;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException(String.format("JSON parse error: %s", e.getOriginalMessage()), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(RenderedAppSecretsResponse renderedAppSecretsResponse, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        throw new HttpMessageNotWritableException("Rendered secrets are never sent to the host");
+    }
+}
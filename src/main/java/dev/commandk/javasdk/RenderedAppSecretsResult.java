@@ -0,0 +1,47 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * The outcome of fetching one {@link AppEnvKey} of a batch: either its secrets or the error that kept them from
+ * being fetched
+ */
+public final class RenderedAppSecretsResult {
+
+    @Nullable
+    private final List<RenderedAppSecret> renderedAppSecrets;
+    @Nullable
+    private final ClientException error;
+
+    private RenderedAppSecretsResult(@Nullable List<RenderedAppSecret> renderedAppSecrets, @Nullable ClientException error) {
+        this.renderedAppSecrets = renderedAppSecrets;
+        this.error = error;
+    }
+
+    static RenderedAppSecretsResult success(@Nonnull List<RenderedAppSecret> renderedAppSecrets) {
+        return new RenderedAppSecretsResult(renderedAppSecrets, null);
+    }
+
+    static RenderedAppSecretsResult failure(@Nonnull ClientException error) {
+        return new RenderedAppSecretsResult(null, error);
+    }
+
+    public boolean isSuccess() { return error == null; }
+
+    /**
+     * The fetched secrets
+     *
+     * @throws ClientException the error of the fetch, if it failed
+     */
+    public @Nonnull List<RenderedAppSecret> getSecrets() {
+        if (error != null) throw error;
+        return renderedAppSecrets;
+    }
+
+    public @Nullable ClientException getError() { return error; }
+}
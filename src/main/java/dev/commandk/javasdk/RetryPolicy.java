@@ -0,0 +1,95 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and how patiently a request that failed with a transient error (a 5xx, a 429 or an I/O error) is
+ * retried. The delay before each retry grows exponentially and is drawn at random from {@code [0, delay]} ("full
+ * jitter"), so that clients failing together don't retry together.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(2);
+    public static final double DEFAULT_MULTIPLIER = 2;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    @Nonnull
+    private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    @Nonnull
+    private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    private double multiplier = DEFAULT_MULTIPLIER;
+
+    /**
+     * A policy that sends every request once
+     */
+    public static @Nonnull RetryPolicy none() {
+        return new RetryPolicy().maxAttempts(1);
+    }
+
+    /**
+     * Number of times a request is sent at most, including the first attempt
+     */
+    public RetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Upper bound of the delay before the first retry
+     */
+    public RetryPolicy initialBackoff(@Nonnull Duration initialBackoff) {
+        if (initialBackoff == null || initialBackoff.isNegative()) {
+            throw new IllegalArgumentException("initialBackoff must not be negative");
+        }
+        this.initialBackoff = initialBackoff;
+        return this;
+    }
+
+    /**
+     * Upper bound of the delay before any retry
+     */
+    public RetryPolicy maxBackoff(@Nonnull Duration maxBackoff) {
+        if (maxBackoff == null || maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("maxBackoff must not be negative");
+        }
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * Factor the bound of the delay grows by with every retry
+     */
+    public RetryPolicy multiplier(double multiplier) {
+        if (!(multiplier >= 1)) {
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    @Nonnull
+    public Duration getInitialBackoff() { return initialBackoff; }
+
+    @Nonnull
+    public Duration getMaxBackoff() { return maxBackoff; }
+
+    public double getMultiplier() { return multiplier; }
+
+    /**
+     * The jittered delay before the given retry, counting from 1 for the retry after the first attempt
+     */
+    long backoffNanos(int retry) {
+        double bound = initialBackoff.toNanos() * Math.pow(multiplier, retry - 1);
+        long cappedBound = (long) Math.min(bound, (double) maxBackoff.toNanos());
+        return cappedBound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cappedBound + 1);
+    }
+}
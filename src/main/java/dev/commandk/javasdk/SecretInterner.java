@@ -0,0 +1,90 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Carries the secrets of a cached response over to the next version of the same cache key, so that a secret
+ * unchanged between successive versions of an app is held in memory once instead of once per version.
+ * <p>
+ * Secrets are only shared within a cache key. The instances of a cached response are handed out to callers, and a
+ * caller modifying one must not change the secrets cached for other apps, environments or filters. The secrets
+ * given are never modified.
+ */
+final class SecretInterner {
+
+    private SecretInterner() {}
+
+    /**
+     * The secrets with each one that equals a secret of the previous version replaced by that instance. When they're
+     * exactly the secrets of the previous version, in the same order, the previous list itself is returned.
+     */
+    @Nonnull
+    static List<RenderedAppSecret> intern(
+            @Nonnull List<RenderedAppSecret> renderedAppSecrets,
+            @Nullable List<RenderedAppSecret> previousSecrets
+    ) {
+        if (previousSecrets == null || previousSecrets.isEmpty()) return renderedAppSecrets;
+
+        Map<SecretIdentity, RenderedAppSecret> previousInstances = new HashMap<>(previousSecrets.size() * 2);
+        for (RenderedAppSecret previousSecret : previousSecrets) {
+            previousInstances.putIfAbsent(new SecretIdentity(previousSecret), previousSecret);
+        }
+
+        List<RenderedAppSecret> interned = new ArrayList<>(renderedAppSecrets.size());
+        boolean unchanged = previousSecrets.size() == renderedAppSecrets.size();
+        for (RenderedAppSecret renderedAppSecret : renderedAppSecrets) {
+            RenderedAppSecret previousInstance = previousInstances.get(new SecretIdentity(renderedAppSecret));
+            RenderedAppSecret canonical = previousInstance != null ? previousInstance : renderedAppSecret;
+            unchanged = unchanged && previousSecrets.get(interned.size()) == canonical;
+            interned.add(canonical);
+        }
+        return unchanged ? previousSecrets : interned;
+    }
+
+    /**
+     * The fields of a secret, compared by value
+     */
+    private static final class SecretIdentity {
+        @Nullable
+        private final String key;
+        @Nullable
+        private final String secretId;
+        @Nullable
+        private final String serializedValue;
+        @Nullable
+        private final RenderedAppSecretValueType valueType;
+        private final int hashCode;
+
+        SecretIdentity(@Nonnull RenderedAppSecret renderedAppSecret) {
+            this.key = renderedAppSecret.getKey();
+            this.secretId = renderedAppSecret.getSecretId();
+            this.serializedValue = renderedAppSecret.getSerializedValue();
+            this.valueType = renderedAppSecret.getValueType();
+            this.hashCode = Objects.hash(key, secretId, serializedValue, valueType);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SecretIdentity)) return false;
+            SecretIdentity that = (SecretIdentity) o;
+            return hashCode == that.hashCode
+                    && Objects.equals(key, that.key)
+                    && Objects.equals(secretId, that.secretId)
+                    && Objects.equals(serializedValue, that.serializedValue)
+                    && valueType == that.valueType;
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * An immutable version of the secrets of an app in an environment, indexed by key.
+ * <p>
+ * A refresh never modifies a snapshot; it produces a new one, so a snapshot can be read from any number of threads
+ * without locking and always stays internally consistent.
+ */
+public final class SecretSnapshot {
+
+    @Nonnull
+    private final List<RenderedAppSecret> secrets;
+    @Nonnull
+    private final Map<String, RenderedAppSecret> secretsByKey;
+    @Nonnull
+    private final SecretsVersion version;
+
+    SecretSnapshot(@Nonnull List<RenderedAppSecret> secrets, @Nullable String changelogId, @Nullable Long incrementalId) {
+        this(secrets, new SecretsVersion(changelogId, incrementalId, null));
+    }
+
+    SecretSnapshot(@Nonnull List<RenderedAppSecret> secrets, @Nonnull SecretsVersion version) {
+        Map<String, RenderedAppSecret> secretsByKey = new HashMap<>(Math.max(16, secrets.size() * 4 / 3 + 1));
+        for (RenderedAppSecret renderedAppSecret : secrets) {
+            if (renderedAppSecret.getKey() != null) secretsByKey.putIfAbsent(renderedAppSecret.getKey(), renderedAppSecret);
+        }
+        this.secrets = Collections.unmodifiableList(new ArrayList<>(secrets));
+        this.secretsByKey = Collections.unmodifiableMap(secretsByKey);
+        this.version = version;
+    }
+
+    /**
+     * The secret with the given key, if the snapshot has one
+     */
+    public @Nonnull Optional<RenderedAppSecret> get(@Nonnull String key) {
+        return Optional.ofNullable(secretsByKey.get(key));
+    }
+
+    public boolean contains(@Nonnull String key) {
+        return secretsByKey.containsKey(key);
+    }
+
+    /**
+     * Every secret of the snapshot, in the order the host returned them
+     */
+    public @Nonnull List<RenderedAppSecret> getSecrets() { return secrets; }
+
+    public @Nonnull Set<String> keySet() { return secretsByKey.keySet(); }
+
+    public int size() { return secrets.size(); }
+
+    /**
+     * The version of the secrets, to tell cheaply whether two snapshots differ
+     */
+    public @Nonnull SecretsVersion getVersion() { return version; }
+
+    public @Nullable String getChangelogId() { return version.getChangelogId(); }
+
+    public @Nullable Long getIncrementalId() { return version.getIncrementalId(); }
+}
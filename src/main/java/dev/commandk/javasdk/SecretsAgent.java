@@ -0,0 +1,412 @@
+package dev.commandk.javasdk;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.commandk.javasdk.common.DaemonThreadFactory;
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.exception.HostResponseException;
+import dev.commandk.javasdk.models.EnvironmentDescriptor;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderingMode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the secrets of a {@link CommandKClient} to the other processes of a host, so that they share its polling
+ * instead of each polling the CommandK host. Upstream requests then grow with the number of hosts rather than with
+ * the number of processes.
+ * <p>
+ * The agent listens on the loopback interface and answers the same requests as the CommandK host, so local clients
+ * only need an {@link dev.commandk.javasdk.transport.AgentHttpTransport}. Every app and environment asked for is
+ * watched with {@link CommandKClient#watch}; requests are answered from the latest snapshot, with a {@code 304} when
+ * the local client already has it. Local clients must present the agent's own API token.
+ * <p>
+ * Once the host hasn't confirmed the secrets of an app for {@link SecretsAgentOptions#maxStaleness(Duration)}, the
+ * agent answers {@code 503}, so that local clients see the failure and apply their own stale-if-error. Apps that no
+ * local client asks for within {@link SecretsAgentOptions#idleTimeout(Duration)} are no longer watched.
+ */
+public class SecretsAgent implements Closeable {
+
+    private static final String RENDERED_SECRETS_PATH = "/secrets/rendered", APPS_PATH = "/apps/";
+    private static final String ENVIRONMENTS_PATH = "/environments";
+
+    // Thread safe and expensive to create
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Nonnull
+    private final CommandKClient commandKClient;
+    @Nonnull
+    private final HttpServer httpServer;
+    @Nonnull
+    private final ScheduledExecutorService executor;
+    private final long maxStalenessMillis;
+    private final long idleTimeoutNanos;
+
+    @Nonnull
+    private final Map<FetchKey, WatchedApp> watchers = new ConcurrentHashMap<>();
+    @Nonnull
+    private final Object environmentsLock = new Object();
+    @Nullable
+    private volatile List<EnvironmentDescriptor> environments;
+    private volatile long environmentsLoadedAt;
+    private volatile boolean closed;
+
+    private SecretsAgent(@Nonnull CommandKClient commandKClient, int port, @Nonnull SecretsAgentOptions options) throws IOException {
+        this.commandKClient = commandKClient;
+        this.maxStalenessMillis = options.maxStalenessFor(commandKClient.getOptions()).toMillis();
+        this.idleTimeoutNanos = options.getIdleTimeout().toNanos();
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Also runs the pruning of idle watchers, which is short
+        this.executor = Executors.newScheduledThreadPool(options.getThreads(), new DaemonThreadFactory("commandk-agent"));
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+        long pruneIntervalNanos = Math.max(idleTimeoutNanos / 2, 1);
+        executor.scheduleWithFixedDelay(this::pruneIdleWatchers, pruneIntervalNanos, pruneIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts an agent on the given loopback port, 0 picking a free one
+     */
+    public static @Nonnull SecretsAgent start(@Nonnull CommandKClient commandKClient, int port) {
+        return start(commandKClient, port, new SecretsAgentOptions());
+    }
+
+    public static @Nonnull SecretsAgent start(@Nonnull CommandKClient commandKClient, int port, int threads) {
+        return start(commandKClient, port, new SecretsAgentOptions().threads(threads));
+    }
+
+    public static @Nonnull SecretsAgent start(@Nonnull CommandKClient commandKClient, int port, @Nonnull SecretsAgentOptions options) {
+        if(commandKClient==null){
+            throw new IllegalArgumentException("commandKClient is null");
+        }
+        if(options==null){
+            throw new IllegalArgumentException("options is null");
+        }
+        try {
+            return new SecretsAgent(commandKClient, port, options);
+        } catch (IOException e) {
+            throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * The address local clients reach the agent at, for {@link dev.commandk.javasdk.transport.AgentHttpTransport}
+     */
+    public @Nonnull URI getUri() {
+        InetSocketAddress address = httpServer.getAddress();
+        return URI.create(String.format("http://%s:%d", address.getAddress().getHostAddress(), address.getPort()));
+    }
+
+    /**
+     * Stops serving and stops the watchers
+     */
+    @Override
+    public void close() {
+        closed = true;
+        httpServer.stop(0);
+        executor.shutdownNow();
+        for (WatchedApp watchedApp : watchers.values()) {
+            watchedApp.close();
+        }
+        watchers.clear();
+    }
+
+    /**
+     * Number of apps the agent watches
+     */
+    int getWatcherCount() {
+        return watchers.size();
+    }
+
+    private void handle(@Nonnull HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, null, null);
+            } else if (!isAuthorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, null, null);
+            } else {
+                route(exchange);
+            }
+        } catch (HostResponseException e) {
+            respond(exchange, e.getStatusCode(), null, null);
+        } catch (ClientException e) {
+            respond(exchange, 502, null, null);
+        } catch (RuntimeException e) {
+            respond(exchange, 500, null, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(@Nonnull HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (path.endsWith(ENVIRONMENTS_PATH)) {
+            respond(exchange, 200, writeEnvironments(query), null);
+            return;
+        }
+
+        String catalogAppId = catalogAppIdOf(path);
+        String environment = first(query, "environment");
+        String mode = first(query, "mode");
+        if (catalogAppId == null || environment == null) {
+            respond(exchange, 404, null, null);
+        } else if (mode != null && !RenderingMode.FULL.getValue().equals(mode)) {
+            // Snapshots are kept in the FULL rendering only
+            respond(exchange, 400, null, null);
+        } else {
+            serveRenderedAppSecrets(exchange, catalogAppId, environment, query.get("secret-name-filter"));
+        }
+    }
+
+    private void serveRenderedAppSecrets(
+            @Nonnull HttpExchange exchange,
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) throws IOException {
+        // One watcher per app covers every filter: filtered requests are projected from its full snapshot
+        SecretsWatcher watcher = watcherFor(catalogAppId, environment);
+        CommandKResponse fullSnapshot = watcher.getLastResponse();
+        if (fullSnapshot == null) {
+            throw new ClientException("The watcher has no secrets yet");
+        }
+        if (watcher.getMillisSinceConfirmed() > maxStalenessMillis) {
+            // The polls keep failing; local clients decide themselves how long to serve their cached secrets
+            respond(exchange, 503, null, null);
+            return;
+        }
+        String eTag = fullSnapshot.getETag();
+        if (!eTag.isEmpty() && eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            respond(exchange, 304, null, eTag);
+            return;
+        }
+        CommandKResponse served = secretNames == null || secretNames.isEmpty() ? fullSnapshot : fullSnapshot.project(secretNames);
+        respond(exchange, 200, writeRenderedAppSecrets(served), eTag.isEmpty() ? null : eTag);
+    }
+
+    @Nonnull
+    private SecretsWatcher watcherFor(@Nonnull String catalogAppId, @Nonnull String environment) {
+        FetchKey fetchKey = new FetchKey(catalogAppId, environment, null);
+        WatchedApp watchedApp = watchers.get(fetchKey);
+        if (watchedApp == null) {
+            WatchedApp started = new WatchedApp();
+            watchedApp = watchers.putIfAbsent(fetchKey, started);
+            if (watchedApp == null) {
+                watchedApp = started;
+                try {
+                    started.watcher.complete(commandKClient.watch(catalogAppId, environment, renderedAppSecrets -> {}));
+                } catch (RuntimeException e) {
+                    // Not remembered, so that the next request tries again
+                    watchers.remove(fetchKey, started);
+                    started.watcher.completeExceptionally(e);
+                }
+                if (closed) started.close();
+            }
+        }
+        watchedApp.lastRequestedAt = System.nanoTime();
+        try {
+            return watchedApp.watcher.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private void pruneIdleWatchers() {
+        long now = System.nanoTime();
+        for (Map.Entry<FetchKey, WatchedApp> entry : watchers.entrySet()) {
+            WatchedApp watchedApp = entry.getValue();
+            if (now - watchedApp.lastRequestedAt >= idleTimeoutNanos && watchers.remove(entry.getKey(), watchedApp)) {
+                watchedApp.close();
+            }
+        }
+    }
+
+    @Nonnull
+    private List<EnvironmentDescriptor> environments() {
+        long ttlNanos = commandKClient.getOptions().getEnvironmentsTtl().toNanos();
+        List<EnvironmentDescriptor> current = environments;
+        if (current != null && System.nanoTime() - environmentsLoadedAt < ttlNanos) return current;
+        synchronized (environmentsLock) {
+            current = environments;
+            if (current == null || System.nanoTime() - environmentsLoadedAt >= ttlNanos) {
+                current = commandKClient.loadEnvironments();
+                environmentsLoadedAt = System.nanoTime();
+                environments = current;
+            }
+            return current;
+        }
+    }
+
+    private boolean isAuthorized(@Nullable String authorization) {
+        if (authorization == null) return false;
+        byte[] expected = String.format("Bearer %s", commandKClient.getApiToken()).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nonnull
+    private byte[] writeEnvironments(@Nonnull Map<String, List<String>> query) throws IOException {
+        List<EnvironmentDescriptor> page = page(environments(), first(query, "limit"), first(query, "after"));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("environments");
+            for (EnvironmentDescriptor environmentDescriptor : page) {
+                generator.writeStartObject();
+                generator.writeStringField("id", environmentDescriptor.getId());
+                generator.writeStringField("slug", environmentDescriptor.getSlug());
+                generator.writeStringField("name", environmentDescriptor.getName());
+                generator.writeStringField("label", environmentDescriptor.getLabel());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return body.toByteArray();
+    }
+
+    @Nonnull
+    private static byte[] writeRenderedAppSecrets(@Nonnull CommandKResponse commandKResponse) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(body)) {
+            generator.writeStartObject();
+            if (commandKResponse.getChangelogId() != null) {
+                generator.writeStringField("changelogId", commandKResponse.getChangelogId());
+            }
+            if (commandKResponse.getIncrementalId() != null) {
+                generator.writeNumberField("incrementalId", commandKResponse.getIncrementalId());
+            }
+            if (commandKResponse.getSecretDigest() != null) {
+                generator.writeStringField("secretDigest", commandKResponse.getSecretDigest());
+            }
+            generator.writeArrayFieldStart("secrets");
+            for (Object item : (List<?>) commandKResponse.getResponse()) {
+                RenderedAppSecret renderedAppSecret = (RenderedAppSecret) item;
+                generator.writeStartObject();
+                generator.writeStringField("key", renderedAppSecret.getKey());
+                generator.writeStringField("serializedValue", renderedAppSecret.getSerializedValue());
+                generator.writeStringField("valueType", renderedAppSecret.getValueType() != null ? renderedAppSecret.getValueType().getValue() : null);
+                generator.writeStringField("secretId", renderedAppSecret.getSecretId());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * The page of the listing after the environment with the given id, as the host pages it
+     */
+    @Nonnull
+    static List<EnvironmentDescriptor> page(
+            @Nonnull List<EnvironmentDescriptor> environments,
+            @Nullable String limit,
+            @Nullable String after
+    ) {
+        int from = 0;
+        if (after != null) {
+            for (int i = 0; i < environments.size(); i++) {
+                if (after.equals(environments.get(i).getId())) {
+                    from = i + 1;
+                    break;
+                }
+            }
+        }
+        int to = environments.size();
+        if (limit != null) {
+            try {
+                to = (int) Math.min(to, (long) from + Math.max(0, Integer.parseInt(limit)));
+            } catch (NumberFormatException ignored) {
+                // Served unpaged
+            }
+        }
+        return from >= to ? Collections.<EnvironmentDescriptor>emptyList() : environments.subList(from, to);
+    }
+
+    /**
+     * The app of a {@code .../apps/{catalogAppId}/secrets/rendered} path, or {@code null} for any other path
+     */
+    @Nullable
+    static String catalogAppIdOf(@Nonnull String path) {
+        if (!path.endsWith(RENDERED_SECRETS_PATH)) return null;
+        String appPath = path.substring(0, path.length() - RENDERED_SECRETS_PATH.length());
+        int appsIndex = appPath.lastIndexOf(APPS_PATH);
+        if (appsIndex < 0 || appsIndex + APPS_PATH.length() >= appPath.length()) return null;
+        return appPath.substring(appsIndex + APPS_PATH.length());
+    }
+
+    @Nonnull
+    static Map<String, List<String>> parseQuery(@Nullable String rawQuery) {
+        Map<String, List<String>> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        try {
+            for (String parameter : rawQuery.split("&")) {
+                int separator = parameter.indexOf('=');
+                String name = URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator), "UTF-8");
+                String value = separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+                query.computeIfAbsent(name, ignored -> new ArrayList<>()).add(value);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return query;
+    }
+
+    @Nullable
+    private static String first(@Nonnull Map<String, List<String>> query, @Nonnull String name) {
+        List<String> values = query.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static void respond(@Nonnull HttpExchange exchange, int status, @Nullable byte[] body, @Nullable String eTag) throws IOException {
+        if (eTag != null) exchange.getResponseHeaders().set("ETag", eTag);
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    private static final class WatchedApp {
+        // Completed once the first fetch of the watcher is done, which concurrent requests for the app wait for
+        @Nonnull
+        final CompletableFuture<SecretsWatcher> watcher = new CompletableFuture<>();
+        volatile long lastRequestedAt = System.nanoTime();
+
+        void close() {
+            watcher.thenAccept(SecretsWatcher::close);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Tunables for a {@link SecretsAgent}
+ */
+public class SecretsAgentOptions {
+
+    public static final int DEFAULT_THREADS = 4;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    // Polls failing for this many intervals in a row make the agent stop serving, unless a max staleness is set
+    static final int DEFAULT_MAX_STALE_INTERVALS = 3;
+
+    private int threads = DEFAULT_THREADS;
+    @Nullable
+    private Duration maxStaleness;
+    @Nonnull
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * Number of threads answering local clients
+     */
+    public SecretsAgentOptions threads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * How long after the host last confirmed the secrets of an app the agent keeps serving them. Past it, local
+     * clients get a {@code 503} and fall back on their own retries and stale-if-error. Defaults to three times the
+     * longest interval between polls of the agent's client.
+     */
+    public SecretsAgentOptions maxStaleness(@Nonnull Duration maxStaleness) {
+        if (maxStaleness == null || maxStaleness.isNegative() || maxStaleness.isZero()) {
+            throw new IllegalArgumentException("maxStaleness must be positive");
+        }
+        this.maxStaleness = maxStaleness;
+        return this;
+    }
+
+    /**
+     * How long the agent keeps watching an app that no local client asks for
+     */
+    public SecretsAgentOptions idleTimeout(@Nonnull Duration idleTimeout) {
+        if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public int getThreads() { return threads; }
+
+    @Nullable
+    public Duration getMaxStaleness() { return maxStaleness; }
+
+    @Nonnull
+    public Duration getIdleTimeout() { return idleTimeout; }
+
+    /**
+     * The max staleness, or its default for a client with the given options
+     */
+    @Nonnull
+    Duration maxStalenessFor(@Nonnull CommandKClientOptions clientOptions) {
+        if (maxStaleness != null) return maxStaleness;
+        Duration interval = clientOptions.getWatchInterval();
+        Duration maxInterval = clientOptions.getRefreshPolicy().getMaxInterval();
+        if (maxInterval != null && maxInterval.compareTo(interval) > 0) interval = maxInterval;
+        return interval.multipliedBy(DEFAULT_MAX_STALE_INTERVALS);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Receives the secrets watched by a {@link SecretsWatcher}. Callbacks run on the watcher's own thread.
+ */
+@FunctionalInterface
+public interface SecretsChangeListener {
+
+    /**
+     * Called with the initial secrets and then every time the host reports a new version of them
+     */
+    void onChange(@Nonnull List<RenderedAppSecret> renderedAppSecrets);
+
+    /**
+     * Called when a poll fails. The watcher keeps the last secrets it saw and retries on the next interval.
+     */
+    default void onError(@Nonnull ClientException clientException) {}
+}
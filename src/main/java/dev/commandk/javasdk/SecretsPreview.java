@@ -0,0 +1,111 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A {@code PreviewOnly} rendering of the secrets of an app, which tells whether they changed without the host
+ * rendering any value. Comparing two previews also tells which keys changed, as far as previews show it.
+ */
+final class SecretsPreview {
+
+    @Nonnull
+    private final String eTag;
+    @Nonnull
+    private final SecretsVersion version;
+    // In the order the host returned them
+    @Nonnull
+    private final Map<String, RenderedAppSecret> secretsByKey;
+
+    SecretsPreview(@Nonnull String eTag, @Nonnull RenderedAppSecretsResponse renderedAppSecretsResponse) {
+        this.eTag = eTag;
+        this.version = new SecretsVersion(
+                renderedAppSecretsResponse.getChangelogId(),
+                renderedAppSecretsResponse.getIncrementalId(),
+                renderedAppSecretsResponse.getSecretDigest()
+        );
+        Map<String, RenderedAppSecret> secretsByKey = new LinkedHashMap<>();
+        List<RenderedAppSecret> renderedAppSecrets = renderedAppSecretsResponse.getSecrets();
+        if (renderedAppSecrets != null) {
+            for (RenderedAppSecret renderedAppSecret : renderedAppSecrets) {
+                if (renderedAppSecret.getKey() != null) secretsByKey.putIfAbsent(renderedAppSecret.getKey(), renderedAppSecret);
+            }
+        }
+        this.secretsByKey = Collections.unmodifiableMap(secretsByKey);
+    }
+
+    @Nonnull
+    String getETag() { return eTag; }
+
+    @Nonnull
+    SecretsVersion getVersion() { return version; }
+
+    /**
+     * The keys whose preview differs in the next preview, including new keys, sorted. Empty when only keys were
+     * removed. {@code null} when the change doesn't show in the previews, or touches more than half of the secrets so
+     * that fetching them all costs about as much.
+     */
+    @Nullable
+    List<String> changedKeys(@Nonnull SecretsPreview next) {
+        List<String> changedKeys = new ArrayList<>();
+        for (RenderedAppSecret renderedAppSecret : next.secretsByKey.values()) {
+            RenderedAppSecret previous = secretsByKey.get(renderedAppSecret.getKey());
+            if (previous == null || !samePreview(previous, renderedAppSecret)) changedKeys.add(renderedAppSecret.getKey());
+        }
+        if (changedKeys.isEmpty() && next.secretsByKey.keySet().equals(secretsByKey.keySet())) return null;
+        if (changedKeys.size() * 2 > next.secretsByKey.size()) return null;
+        Collections.sort(changedKeys);
+        return changedKeys;
+    }
+
+    /**
+     * The secrets this preview describes, taken from the fetched secrets for the changed keys and from the cached
+     * ones otherwise, in the order of the preview. {@code null} when one of them is missing from both.
+     */
+    @Nullable
+    List<RenderedAppSecret> merge(
+            @Nonnull List<RenderedAppSecret> cachedSecrets,
+            @Nonnull List<RenderedAppSecret> changedSecrets,
+            @Nonnull Collection<String> changedKeys
+    ) {
+        Map<String, RenderedAppSecret> cachedByKey = byKey(cachedSecrets);
+        Map<String, RenderedAppSecret> changedByKey = byKey(changedSecrets);
+        Set<String> changed = new HashSet<>(changedKeys);
+
+        List<RenderedAppSecret> merged = new ArrayList<>(secretsByKey.size());
+        for (String key : secretsByKey.keySet()) {
+            RenderedAppSecret renderedAppSecret = changed.contains(key) ? changedByKey.get(key) : cachedByKey.get(key);
+            if (renderedAppSecret == null) return null;
+            merged.add(renderedAppSecret);
+        }
+        return merged;
+    }
+
+    private static boolean samePreview(@Nonnull RenderedAppSecret previous, @Nonnull RenderedAppSecret next) {
+        return Objects.equals(previous.getSecretId(), next.getSecretId())
+                && Objects.equals(previous.getSerializedValue(), next.getSerializedValue())
+                && previous.getValueType() == next.getValueType();
+    }
+
+    @Nonnull
+    private static Map<String, RenderedAppSecret> byKey(@Nonnull List<RenderedAppSecret> renderedAppSecrets) {
+        Map<String, RenderedAppSecret> byKey = new HashMap<>(Math.max(16, renderedAppSecrets.size() * 4 / 3 + 1));
+        for (RenderedAppSecret renderedAppSecret : renderedAppSecrets) {
+            if (renderedAppSecret.getKey() != null) byKey.putIfAbsent(renderedAppSecret.getKey(), renderedAppSecret);
+        }
+        return byKey;
+    }
+}
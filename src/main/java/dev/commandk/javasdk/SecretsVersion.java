@@ -0,0 +1,83 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The version of a snapshot of secrets, as reported by the host. Each part is absent when the host doesn't send it.
+ * <p>
+ * Compare the versions of two snapshots with {@link #hasSameSecretsAs(SecretsVersion)} to skip rebuilding anything
+ * derived from the secrets when they didn't change.
+ */
+public final class SecretsVersion implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Nullable
+    private final String changelogId;
+    @Nullable
+    private final Long incrementalId;
+    @Nullable
+    private final String secretDigest;
+
+    SecretsVersion(@Nullable String changelogId, @Nullable Long incrementalId, @Nullable String secretDigest) {
+        this.changelogId = changelogId;
+        this.incrementalId = incrementalId;
+        this.secretDigest = secretDigest;
+    }
+
+    public @Nullable String getChangelogId() { return changelogId; }
+
+    /**
+     * Grows with every change to the secrets of the app in the environment
+     */
+    public @Nullable Long getIncrementalId() { return incrementalId; }
+
+    /**
+     * A digest of the secrets' contents
+     */
+    public @Nullable String getSecretDigest() { return secretDigest; }
+
+    /**
+     * Whether this version is known to come after the other, i.e. both have an incremental id and this one's is
+     * greater
+     */
+    public boolean isNewerThan(@Nonnull SecretsVersion other) {
+        return incrementalId != null && other.incrementalId != null && incrementalId > other.incrementalId;
+    }
+
+    /**
+     * Whether both versions are known to hold identical secrets: by their digests when both have one, otherwise by
+     * their changelog and incremental ids when either is present
+     */
+    public boolean hasSameSecretsAs(@Nonnull SecretsVersion other) {
+        if (secretDigest != null && other.secretDigest != null) {
+            return secretDigest.equals(other.secretDigest);
+        }
+        if (changelogId != null || incrementalId != null) {
+            return Objects.equals(changelogId, other.changelogId) && Objects.equals(incrementalId, other.incrementalId);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SecretsVersion)) return false;
+        SecretsVersion secretsVersion = (SecretsVersion) obj;
+        return Objects.equals(changelogId, secretsVersion.changelogId)
+                && Objects.equals(incrementalId, secretsVersion.incrementalId)
+                && Objects.equals(secretDigest, secretsVersion.secretDigest);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(changelogId, incrementalId, secretDigest);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SecretsVersion{changelogId=%s, incrementalId=%s, secretDigest=%s}", changelogId, incrementalId, secretDigest);
+    }
+}
@@ -0,0 +1,208 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.exception.HostResponseException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the secrets of an app in an environment up to date in memory. Create one with
+ * {@link CommandKClient#watch(String, String, SecretsChangeListener)}.
+ * <p>
+ * Every poll is a conditional request carrying the ETag of the cached response, so an unchanged payload costs a
+ * {@code 304}. The listener is notified only when the {@code secretDigest} of the response changes or, if the host
+ * doesn't send one, when its {@code changelogId}/{@code incrementalId} move, or else when the ETag changes.
+ * <p>
+ * Polls run on the client's {@link RefreshScheduler}, spaced as its {@link RefreshPolicy} says.
+ */
+public class SecretsWatcher implements Closeable {
+
+    @Nonnull
+    private final CommandKClient commandKClient;
+    @Nonnull
+    private final String catalogAppId, environment;
+    @Nullable
+    private final List<String> secretNames;
+    @Nonnull
+    private final SecretsChangeListener listener;
+    @Nonnull
+    private final RefreshPolicy refreshPolicy;
+    @Nonnull
+    private final RefreshScheduler refreshScheduler;
+
+    @Nullable
+    private volatile CommandKResponse lastResponse;
+    // When the host last confirmed the secrets, by the response of the latest successful poll, whether or not it found
+    // them changed. A cached response the client served in place of a failure keeps its older confirmation.
+    private volatile long confirmedAtMillis;
+    // Polls of a watcher never overlap, each one schedules the next
+    private long baseIntervalNanos, intervalNanos;
+    @Nullable
+    private ScheduledFuture<?> nextPoll;
+    private boolean closed;
+
+    SecretsWatcher(
+            @Nonnull CommandKClient commandKClient,
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames,
+            @Nonnull SecretsChangeListener listener
+    ) {
+        this.commandKClient = commandKClient;
+        this.catalogAppId = catalogAppId;
+        this.environment = environment;
+        this.secretNames = secretNames;
+        this.listener = listener;
+        this.refreshPolicy = commandKClient.getOptions().getRefreshPolicy();
+        this.refreshScheduler = commandKClient.getOptions().getRefreshScheduler();
+    }
+
+    /**
+     * The secrets seen by the latest successful poll
+     */
+    public @Nonnull List<RenderedAppSecret> getSecrets() {
+        CommandKResponse commandKResponse = lastResponse;
+        if (commandKResponse == null) {
+            throw new ClientException("The watcher has no secrets yet");
+        }
+        return (List<RenderedAppSecret>) commandKResponse.getResponse();
+    }
+
+    /**
+     * The secrets seen by the latest successful poll, indexed by key. The snapshot is replaced, never modified, when
+     * the secrets change.
+     */
+    public @Nonnull SecretSnapshot getSnapshot() {
+        CommandKResponse commandKResponse = lastResponse;
+        if (commandKResponse == null) {
+            throw new ClientException("The watcher has no secrets yet");
+        }
+        return commandKResponse.getSecretSnapshot();
+    }
+
+    /**
+     * The response of the latest successful poll; {@code null} until the watcher is started
+     */
+    @Nullable
+    CommandKResponse getLastResponse() {
+        return lastResponse;
+    }
+
+    /**
+     * Time since the host last confirmed the secrets of the watcher
+     */
+    long getMillisSinceConfirmed() {
+        return System.currentTimeMillis() - confirmedAtMillis;
+    }
+
+    /**
+     * Stops polling. Callbacks that are already running are allowed to finish.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (nextPoll != null) nextPoll.cancel(false);
+    }
+
+    void start(@Nonnull Duration interval) {
+        CommandKResponse initialResponse = commandKClient.fetchRenderedAppSecrets(catalogAppId, environment, secretNames);
+        confirmedAtMillis = initialResponse.getValidatedAtMillis();
+        lastResponse = initialResponse;
+        notifyChange(initialResponse);
+
+        baseIntervalNanos = intervalNanos = interval.toNanos();
+        scheduleNextPoll(refreshPolicy.delayNanos(intervalNanos, TimeUnit.MILLISECONDS.toNanos(initialResponse.getHostMaxAgeMillis())));
+    }
+
+    private void pollAndReschedule() {
+        long delayNanos = poll();
+        try {
+            scheduleNextPoll(delayNanos);
+        } catch (RejectedExecutionException e) {
+            // The scheduler was closed, which stops its watchers
+        }
+    }
+
+    private synchronized void scheduleNextPoll(long delayNanos) {
+        if (closed) return;
+        nextPoll = refreshScheduler.schedule(this::pollAndReschedule, delayNanos);
+    }
+
+    /**
+     * Polls the host once and returns the delay before the next poll: the interval backs off while the secrets stay
+     * the same, and the host may ask for a longer wait
+     */
+    long poll() {
+        CommandKResponse commandKResponse;
+        try {
+            commandKResponse = commandKClient.fetchRenderedAppSecrets(catalogAppId, environment, secretNames);
+        } catch (RuntimeException e) {
+            ClientException clientException = e instanceof ClientException
+                    ? (ClientException) e
+                    : new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+            try {
+                listener.onError(clientException);
+            } catch (RuntimeException ignored) {
+                // A failing listener must not stop the polling
+            }
+            return refreshPolicy.delayNanos(intervalNanos, retryAfterNanos(e));
+        }
+
+        confirmedAtMillis = commandKResponse.getValidatedAtMillis();
+        CommandKResponse previousResponse = lastResponse;
+        boolean changed = previousResponse == null || hasChanged(previousResponse, commandKResponse);
+        if (changed) {
+            lastResponse = commandKResponse;
+            notifyChange(commandKResponse);
+        }
+        intervalNanos = refreshPolicy.nextIntervalNanos(baseIntervalNanos, intervalNanos, changed);
+        return refreshPolicy.delayNanos(intervalNanos, TimeUnit.MILLISECONDS.toNanos(commandKResponse.getHostMaxAgeMillis()));
+    }
+
+    /**
+     * The wait the host asked for with a {@code Retry-After}, if the failure is its answer
+     */
+    private static long retryAfterNanos(@Nullable Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HostResponseException && ((HostResponseException) cause).getRetryAfter() != null) {
+                return ((HostResponseException) cause).getRetryAfter().toNanos();
+            }
+        }
+        return 0;
+    }
+
+    private void notifyChange(@Nonnull CommandKResponse commandKResponse) {
+        try {
+            listener.onChange((List<RenderedAppSecret>) commandKResponse.getResponse());
+        } catch (RuntimeException ignored) {
+            // A failing listener must not stop the polling
+        }
+    }
+
+    static boolean hasChanged(@Nonnull CommandKResponse previous, @Nonnull CommandKResponse current) {
+        if (previous == current) return false;
+        if (previous.getSecretDigest() != null && current.getSecretDigest() != null) {
+            // Identical payloads aren't a change, even if the changelog moved
+            return !previous.getSecretDigest().equals(current.getSecretDigest());
+        }
+        // Only comparable when both carry ids; a merged response has none
+        boolean previousVersioned = previous.getChangelogId() != null || previous.getIncrementalId() != null;
+        if (previousVersioned && (current.getChangelogId() != null || current.getIncrementalId() != null)) {
+            return !Objects.equals(previous.getChangelogId(), current.getChangelogId())
+                    || !Objects.equals(previous.getIncrementalId(), current.getIncrementalId());
+        }
+        if (!previous.getETag().isEmpty() && !current.getETag().isEmpty()) {
+            return !previous.getETag().equals(current.getETag());
+        }
+        return !previous.getResponse().equals(current.getResponse());
+    }
+}
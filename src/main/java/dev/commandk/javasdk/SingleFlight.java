@@ -0,0 +1,68 @@
+package dev.commandk.javasdk;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: while a load is in flight, every other caller asking for that key
+ * gets the same future instead of starting a load of its own.
+ */
+class SingleFlight<K, V> {
+
+    static final Executor CALLER_THREAD = Runnable::run;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Starts loading the key on the executor unless a load of it is already in flight, and returns the future
+     * of the load that the caller joined. Pass {@link #CALLER_THREAD} to load on the calling thread.
+     */
+    @Nonnull
+    CompletableFuture<V> execute(@Nonnull K key, @Nonnull Supplier<V> loader, @Nonnull Executor executor) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) return existing;
+
+        try {
+            executor.execute(() -> {
+                V value;
+                try {
+                    value = loader.get();
+                } catch (Throwable t) {
+                    inFlight.remove(key, created);
+                    created.completeExceptionally(t);
+                    return;
+                }
+                // Removed before completing so that callers arriving from now on start a fresh load
+                inFlight.remove(key, created);
+                created.complete(value);
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    /**
+     * Waits for a future returned by {@link #execute} and rethrows the exception of a failed load as is
+     */
+    static <V> V join(@Nonnull CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
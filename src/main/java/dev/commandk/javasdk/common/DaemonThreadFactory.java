@@ -0,0 +1,25 @@
+package dev.commandk.javasdk.common;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads so that background work started by the SDK never keeps the JVM alive
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    public DaemonThreadFactory(@Nonnull String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(@Nonnull Runnable runnable) {
+        Thread thread = new Thread(runnable, String.format("%s-%d", namePrefix, threadCount.incrementAndGet()));
+        thread.setDaemon(true);
+        return thread;
+    }
+}
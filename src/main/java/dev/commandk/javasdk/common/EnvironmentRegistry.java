@@ -0,0 +1,169 @@
+package dev.commandk.javasdk.common;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.EnvironmentDescriptor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Caches the environments of a host and resolves a name, slug or id to its descriptor with a single hash lookup.
+ * <p>
+ * The listing is loaded lazily on the first lookup and refreshed ahead of its TTL in the background, so that the
+ * lookup on the secrets fetch path doesn't cost a request once the registry is warm. It is shared by
+ * {@link dev.commandk.javasdk.CommandKClient} and {@link dev.commandk.javasdk.slim.SlimCommandKClient}, so it must
+ * not depend on anything outside the slim artifact.
+ */
+public class EnvironmentRegistry {
+
+    // An unknown environment may have been created after the last load, and a failed load may succeed later; don't
+    // reload more often than this for either
+    private static final long MISS_RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Nonnull
+    private final Supplier<List<EnvironmentDescriptor>> environmentsLoader;
+    @Nullable
+    private final Executor refreshExecutor;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+
+    private final Object loadLock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    @Nullable
+    private volatile Index index;
+
+    /**
+     * @param refreshExecutor runs the refreshes ahead of the TTL, or {@code null} to only reload on the lookup that
+     *                        finds the listing expired
+     */
+    public EnvironmentRegistry(
+            @Nonnull Supplier<List<EnvironmentDescriptor>> environmentsLoader,
+            @Nullable Executor refreshExecutor,
+            long ttlNanos
+    ) {
+        this.environmentsLoader = environmentsLoader;
+        this.refreshExecutor = refreshExecutor;
+        this.ttlNanos = ttlNanos;
+        this.refreshAheadNanos = ttlNanos - ttlNanos / 4;
+    }
+
+    /**
+     * Resolves an environment by its name, slug or id, in that order of precedence
+     */
+    @Nonnull
+    public EnvironmentDescriptor resolve(@Nonnull String environment) {
+        Index current = index;
+        long now = System.nanoTime();
+        if (current == null || (now - current.loadedAt >= ttlNanos && current.canReload(now))) {
+            current = reload(current);
+        } else if (refreshExecutor != null && now - current.loadedAt >= refreshAheadNanos && current.canReload(now)) {
+            refreshInBackground();
+        }
+
+        EnvironmentDescriptor environmentDescriptor = current.environments.get(environment);
+        now = System.nanoTime();
+        if (environmentDescriptor == null && now - current.loadedAt >= MISS_RELOAD_INTERVAL_NANOS && current.canReload(now)) {
+            current = reload(current);
+            environmentDescriptor = current.environments.get(environment);
+        }
+        if (environmentDescriptor == null) {
+            throw new ClientException("No such environment was found");
+        }
+        return environmentDescriptor;
+    }
+
+    /**
+     * Drops the cached listing so that the next lookup loads it again
+     */
+    public void invalidate() {
+        index = null;
+    }
+
+    @Nonnull
+    private Index reload(@Nullable Index seen) {
+        synchronized (loadLock) {
+            Index current = index;
+            // Another thread finished a load while this one was waiting for the lock
+            if (current != null && current != seen) return current;
+            try {
+                current = new Index(environmentsLoader.get(), System.nanoTime());
+            } catch (ClientException e) {
+                // Keep serving the previous listing rather than failing lookups that it can still answer, and don't
+                // try again on every lookup while the host keeps failing
+                if (seen == null) throw e;
+                Index failed = seen.failedAt(System.nanoTime());
+                if (index == seen) index = failed;
+                return failed;
+            }
+            index = current;
+            return current;
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) return;
+        Index seen = index;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    reload(seen);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private static class Index {
+        @Nonnull
+        final Map<String, EnvironmentDescriptor> environments;
+        final long loadedAt;
+        // When the last load after this one failed, if it did
+        final boolean failed;
+        final long failedAt;
+
+        Index(@Nonnull List<EnvironmentDescriptor> environmentDescriptors, long loadedAt) {
+            Map<String, EnvironmentDescriptor> environments = new HashMap<>(environmentDescriptors.size() * 4);
+            // Later puts win, which gives names precedence over slugs and slugs over ids
+            for (EnvironmentDescriptor environmentDescriptor : environmentDescriptors) {
+                if (environmentDescriptor.getId() != null) environments.put(environmentDescriptor.getId(), environmentDescriptor);
+            }
+            for (EnvironmentDescriptor environmentDescriptor : environmentDescriptors) {
+                if (environmentDescriptor.getSlug() != null) environments.put(environmentDescriptor.getSlug(), environmentDescriptor);
+            }
+            for (EnvironmentDescriptor environmentDescriptor : environmentDescriptors) {
+                if (environmentDescriptor.getName() != null) environments.put(environmentDescriptor.getName(), environmentDescriptor);
+            }
+            this.environments = Collections.unmodifiableMap(environments);
+            this.loadedAt = loadedAt;
+            this.failed = false;
+            this.failedAt = 0;
+        }
+
+        private Index(@Nonnull Index loaded, long failedAt) {
+            this.environments = loaded.environments;
+            this.loadedAt = loaded.loadedAt;
+            this.failed = true;
+            this.failedAt = failedAt;
+        }
+
+        @Nonnull
+        Index failedAt(long failedAt) {
+            return new Index(this, failedAt);
+        }
+
+        boolean canReload(long now) {
+            return !failed || now - failedAt >= MISS_RELOAD_INTERVAL_NANOS;
+        }
+    }
+}
@@ -1,5 +1,55 @@
 package dev.commandk.javasdk.common;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
 public class Headers {
     public static final String E_TAG = "Etag";
-}
\ No newline at end of file
+    public static final String CACHE_CONTROL = "Cache-Control";
+    public static final String RETRY_AFTER = "Retry-After";
+
+    /**
+     * The {@code max-age} directive of a {@code Cache-Control} header; {@code null} when there is none
+     */
+    @Nullable
+    public static Duration maxAge(@Nullable String cacheControl) {
+        if (cacheControl == null) return null;
+        for (String directive : cacheControl.split(",")) {
+            String[] nameAndValue = directive.trim().split("=", 2);
+            if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase("max-age")) {
+                return seconds(nameAndValue[1].trim().replace("\"", ""));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The delay a {@code Retry-After} header asks for, given in seconds or as an HTTP date; {@code null} when the
+     * header is absent or malformed
+     */
+    @Nullable
+    public static Duration retryAfter(@Nullable String retryAfter) {
+        if (retryAfter == null) return null;
+        Duration seconds = seconds(retryAfter.trim());
+        if (seconds != null) return seconds;
+        try {
+            Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Duration seconds(@Nullable String value) {
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? Duration.ofSeconds(seconds) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -2,24 +2,83 @@ package dev.commandk.javasdk.credential;
 
 import dev.commandk.javasdk.exception.ConfigException;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class ConfigFileCredentialsProvider implements CommandKCredentialsProvider{
+
+    // The file is parsed again only when its contents change. Its modification time and size would miss a token
+    // rotated to one of the same length within the granularity of the file system's timestamps, and reading and
+    // hashing a file this small costs far less than parsing it.
+    @Nullable
+    private volatile ParsedConfigFile parsedConfigFile;
+
     @Override
     public CommandKCredentials resolveCredentials() {
+        String configFilePath = configFilePath();
+        if(configFilePath == null) {
+            return null;
+        }
+
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(Paths.get(configFilePath));
+        } catch (IOException e) {
+            throw new ConfigException(String.format("%s: %s", e.getClass().toString(), e.getMessage()));
+        }
+        byte[] digest = sha256(contents);
+        ParsedConfigFile parsed = parsedConfigFile;
+        if(parsed != null && parsed.path.equals(configFilePath) && MessageDigest.isEqual(parsed.digest, digest)) {
+            return parsed.commandKCredentials;
+        }
+
+        CommandKCredentials commandKCredentials = (new ConfigFileCredentialsProviderUtilities()).readConfigFromContents(contents, configFilePath);
+        if(commandKCredentials == null) throw new ConfigException(String.format("Missing configuration in file '%s'", configFilePath));
+        parsedConfigFile = new ParsedConfigFile(configFilePath, digest, commandKCredentials);
+        return commandKCredentials;
+    }
+
+    @Nonnull
+    private static byte[] sha256(@Nonnull byte[] contents) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(contents);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    static String configFilePath() {
         String commandKConfigFilePathEnvVariable = System.getenv("COMMANDK_CONFIG_FILE");
         String commandKConfigFilePathProperty = System.getProperty("commandk.configFile");
 
-        String configFilePath;
         if(commandKConfigFilePathEnvVariable !=null ) {
-            configFilePath = commandKConfigFilePathEnvVariable;
+            return commandKConfigFilePathEnvVariable;
         } else if(commandKConfigFilePathProperty !=null ) {
-            configFilePath = commandKConfigFilePathProperty;
+            return commandKConfigFilePathProperty;
         } else {
             return null;
         }
-        CommandKCredentials commandKCredentials = (new ConfigFileCredentialsProviderUtilities()).readConfigFromFile(configFilePath);
-        if(commandKCredentials == null) throw new ConfigException(String.format("Missing configuration in file '%s'", commandKConfigFilePathProperty));
-        return commandKCredentials;
+    }
+
+    private static final class ParsedConfigFile {
+        @Nonnull
+        final String path;
+        // Of the contents, so that the token isn't kept in memory a second time
+        @Nonnull
+        final byte[] digest;
+        @Nonnull
+        final CommandKCredentials commandKCredentials;
+
+        ParsedConfigFile(@Nonnull String path, @Nonnull byte[] digest, @Nonnull CommandKCredentials commandKCredentials) {
+            this.path = path;
+            this.digest = digest;
+            this.commandKCredentials = commandKCredentials;
+        }
     }
 }
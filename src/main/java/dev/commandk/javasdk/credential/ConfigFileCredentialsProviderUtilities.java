@@ -1,5 +1,6 @@
 package dev.commandk.javasdk.credential;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.javaprop.JavaPropsMapper;
 import dev.commandk.javasdk.exception.ConfigException;
 
@@ -8,14 +9,14 @@ import java.io.File;
 import java.io.IOException;
 
 public class ConfigFileCredentialsProviderUtilities {
+
     public @Nonnull CommandKCredentials readConfigFromFile(String filePath){
 
-        JavaPropsMapper javaPropsMapper = new JavaPropsMapper();
         File configFile = new File(filePath);
         CommandKCredentials commandKCredentials;
 
         try {
-            commandKCredentials = javaPropsMapper.readerFor(CommandKCredentials.class).readValue(configFile);
+            commandKCredentials = CredentialsReader.INSTANCE.readValue(configFile);
         } catch (IOException e) {
             throw new ConfigException(String.format("%s: %s", e.getClass().toString(), e.getMessage()));
         }
@@ -25,4 +26,26 @@ public class ConfigFileCredentialsProviderUtilities {
         }
         return commandKCredentials;
     }
-}
\ No newline at end of file
+
+    @Nonnull
+    CommandKCredentials readConfigFromContents(@Nonnull byte[] contents, String filePath){
+
+        CommandKCredentials commandKCredentials;
+
+        try {
+            commandKCredentials = CredentialsReader.INSTANCE.readValue(contents);
+        } catch (IOException e) {
+            throw new ConfigException(String.format("%s: %s", e.getClass().toString(), e.getMessage()));
+        }
+
+        if(commandKCredentials.host == null || commandKCredentials.apiToken == null) {
+            throw new ConfigException(String.format("Missing configuration values in %s", filePath));
+        }
+        return commandKCredentials;
+    }
+
+    // Readers are immutable and thread safe, so one is built on first use and shared by every read
+    private static class CredentialsReader {
+        static final ObjectReader INSTANCE = new JavaPropsMapper().readerFor(CommandKCredentials.class);
+    }
+}
@@ -0,0 +1,22 @@
+package dev.commandk.javasdk.credential;
+
+import javax.annotation.Nonnull;
+import java.util.function.Consumer;
+
+/**
+ * A provider whose credentials can change over time, e.g. when the API token is rotated. A
+ * {@link dev.commandk.javasdk.CommandKClient} created with one subscribes to it and swaps its token in place, without
+ * losing its connections or its cache.
+ */
+public interface RefreshableCredentialsProvider extends CommandKCredentialsProvider {
+
+    /**
+     * Registers a listener called with the new credentials every time they change
+     */
+    void addRefreshListener(@Nonnull Consumer<CommandKCredentials> listener);
+
+    /**
+     * Unregisters a listener registered with {@link #addRefreshListener(Consumer)}
+     */
+    void removeRefreshListener(@Nonnull Consumer<CommandKCredentials> listener);
+}
@@ -0,0 +1,133 @@
+package dev.commandk.javasdk.credential;
+
+import dev.commandk.javasdk.common.DaemonThreadFactory;
+import dev.commandk.javasdk.exception.ConfigException;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Reads the credentials from a config file like {@link ConfigFileCredentialsProvider}, but parses the file once and
+ * then watches it, so that an API token rotated in the file reaches the clients using this provider without
+ * rebuilding them.
+ * <p>
+ * Every change to the file's directory triggers a read, which also covers mounted secrets that are replaced through a
+ * symlink swap. A file that can't be read or is incomplete, e.g. while it is being written, is skipped and the
+ * current credentials are kept.
+ */
+public class WatchedConfigFileCredentialsProvider implements RefreshableCredentialsProvider, Closeable {
+
+    @Nonnull
+    private final Path configFile;
+    @Nonnull
+    private final WatchService watchService;
+    @Nonnull
+    private final List<Consumer<CommandKCredentials>> listeners = new CopyOnWriteArrayList<>();
+
+    @Nonnull
+    private volatile CommandKCredentials commandKCredentials;
+
+    /**
+     * Watches the file named by the {@code COMMANDK_CONFIG_FILE} environment variable or the
+     * {@code commandk.configFile} system property
+     */
+    public WatchedConfigFileCredentialsProvider() {
+        this(ConfigFileCredentialsProvider.configFilePath());
+    }
+
+    public WatchedConfigFileCredentialsProvider(String configFilePath) {
+        if(configFilePath == null) {
+            throw new ConfigException("No config file is set in COMMANDK_CONFIG_FILE or commandk.configFile");
+        }
+        this.configFile = Paths.get(configFilePath).toAbsolutePath();
+        this.commandKCredentials = (new ConfigFileCredentialsProviderUtilities()).readConfigFromFile(configFile.toString());
+
+        try {
+            this.watchService = configFile.getFileSystem().newWatchService();
+            configFile.getParent().register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException e) {
+            throw new ConfigException(String.format("%s: %s", e.getClass().toString(), e.getMessage()));
+        }
+        new DaemonThreadFactory("commandk-credentials-watcher").newThread(this::watch).start();
+    }
+
+    @Override
+    public CommandKCredentials resolveCredentials() {
+        return commandKCredentials;
+    }
+
+    @Override
+    public void addRefreshListener(@Nonnull Consumer<CommandKCredentials> listener) {
+        if(listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeRefreshListener(@Nonnull Consumer<CommandKCredentials> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stops watching the file. The last credentials read keep being returned.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Nothing is left to release
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                watchKey.pollEvents();
+                reload();
+                if (!watchKey.reset()) return;
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    void reload() {
+        CommandKCredentials reloaded;
+        try {
+            reloaded = (new ConfigFileCredentialsProviderUtilities()).readConfigFromFile(configFile.toString());
+        } catch (ConfigException e) {
+            return;
+        }
+        CommandKCredentials current = commandKCredentials;
+        if (Objects.equals(current.host, reloaded.host) && Objects.equals(current.apiToken, reloaded.apiToken)) {
+            return;
+        }
+        commandKCredentials = reloaded;
+        for (Consumer<CommandKCredentials> listener : listeners) {
+            try {
+                listener.accept(reloaded);
+            } catch (RuntimeException ignored) {
+                // A failing listener must not stop the others or the watch
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package dev.commandk.javasdk.exception;
+
+/**
+ * The request wasn't sent because recent requests to the host kept failing. The cause, when set, is the last of
+ * those failures.
+ */
+public class CircuitOpenException extends ClientException{
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+
+    public CircuitOpenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
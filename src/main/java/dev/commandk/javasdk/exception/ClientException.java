@@ -4,4 +4,8 @@ public class ClientException extends RuntimeException{
     public ClientException(String message) {
         super(message);
     }
+
+    public ClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
@@ -0,0 +1,42 @@
+package dev.commandk.javasdk.exception;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * The host answered with an error status
+ */
+public class HostResponseException extends ClientException{
+    private final int statusCode;
+    @Nullable
+    private final Duration retryAfter;
+
+    public HostResponseException(int statusCode) {
+        this(statusCode, null);
+    }
+
+    public HostResponseException(int statusCode, @Nullable Duration retryAfter) {
+        super(String.format("Response from host: %d", statusCode));
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * How long the host asked clients to wait before the next request, with a {@code Retry-After} header
+     */
+    @Nullable
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Whether the error is likely transient: a 5xx or a 429
+     */
+    public boolean isRetryable() {
+        return statusCode >= 500 || statusCode == 429;
+    }
+}
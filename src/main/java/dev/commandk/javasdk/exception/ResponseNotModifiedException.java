@@ -1,7 +1,30 @@
 package dev.commandk.javasdk.exception;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * The host answered a conditional request with a 304. Raised by every poll that finds nothing changed, so it
+ * carries no stack trace, which would be the costliest part of it.
+ */
 public class ResponseNotModifiedException extends RuntimeException{
+    @Nullable
+    private final Duration maxAge;
+
     public ResponseNotModifiedException() {
-        super();
+        this(null);
+    }
+
+    public ResponseNotModifiedException(@Nullable Duration maxAge) {
+        super(null, null, false, false);
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * How long the host said the cached response stays fresh, from the {@code Cache-Control} header of the 304
+     */
+    @Nullable
+    public Duration getMaxAge() {
+        return maxAge;
     }
 }
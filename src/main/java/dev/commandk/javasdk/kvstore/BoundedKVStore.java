@@ -0,0 +1,178 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link KVStore} with a budget on the estimated size of its values.
+ * <p>
+ * Reads never lock: they are a map lookup plus marking the entry as read. Writes that push the store over its budget
+ * evict entries in the order they were written, except that an entry read since it was queued is queued again
+ * instead (second-chance, an approximation of evicting the least recently read). Each write then evicts in constant
+ * amortized time, however many entries the store holds. Expired entries are dropped when they are read or reach the
+ * head of the queue.
+ */
+class BoundedKVStore<K, V> implements InstrumentedKVStore<K, V> {
+
+    // Queued entries that were since replaced or removed are dropped once they outnumber the live ones by this much
+    private static final int MAX_STALE_QUEUED_ENTRIES = 64;
+
+    private final long maxWeightBytes;
+    private final long defaultEntryWeightBytes;
+    private final long expireAfterWriteNanos;
+    @Nonnull
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> kvStorageBackingMap = new ConcurrentHashMap<K, Entry<K, V>>();
+    private final AtomicLong weightBytes = new AtomicLong();
+    // Entries in the order they were written, or queued again after a read; taken from the head under the lock
+    private final ConcurrentLinkedQueue<Entry<K, V>> evictionQueue = new ConcurrentLinkedQueue<Entry<K, V>>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    BoundedKVStore(@Nonnull BoundedKVStoreOptions options, @Nonnull LongSupplier nanoClock) {
+        this.maxWeightBytes = options.getMaxWeightBytes();
+        this.defaultEntryWeightBytes = options.getDefaultEntryWeightBytes();
+        this.expireAfterWriteNanos = options.getExpireAfterWrite() != null ? options.getExpireAfterWrite().toNanos() : 0;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public @Nonnull Optional<V> get(@Nonnull K key) {
+        Entry<K, V> entry = kvStorageBackingMap.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return Optional.empty();
+        }
+
+        long now = nanoClock.getAsLong();
+        if (isExpired(entry, now)) {
+            if (remove(key, entry)) expirationCount.increment();
+            missCount.increment();
+            return Optional.empty();
+        }
+        // Only written when it changes, so that concurrent reads of an entry don't contend on its cache line
+        if (!entry.read) entry.read = true;
+        hitCount.increment();
+        return Optional.of(entry.value);
+    }
+
+    @Override
+    public void set(@Nonnull K key, @Nonnull V value) {
+        if (value == null) {
+            Entry<K, V> removed = kvStorageBackingMap.remove(key);
+            if (removed != null) weightBytes.addAndGet(-removed.weightBytes);
+            return;
+        }
+
+        Entry<K, V> entry = new Entry<K, V>(key, value, weigh(value), nanoClock.getAsLong());
+        Entry<K, V> replaced = kvStorageBackingMap.put(key, entry);
+        long weight = weightBytes.addAndGet(entry.weightBytes - (replaced != null ? replaced.weightBytes : 0));
+        evictionQueue.add(entry);
+        if (queuedCount.incrementAndGet() > kvStorageBackingMap.size() * 2 + MAX_STALE_QUEUED_ENTRIES) {
+            dropStaleQueuedEntries();
+        }
+        if (weight > maxWeightBytes) evict();
+    }
+
+    @Override
+    public @Nonnull KVStoreStats getStats() {
+        return new KVStoreStats(
+                hitCount.sum(),
+                missCount.sum(),
+                evictionCount.sum(),
+                expirationCount.sum(),
+                kvStorageBackingMap.size(),
+                weightBytes.get()
+        );
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            long now = nanoClock.getAsLong();
+            // Every entry gets at most one second chance per pass, even if it keeps being read meanwhile
+            int remaining = queuedCount.get() * 2;
+            while (weightBytes.get() > maxWeightBytes && remaining-- > 0) {
+                Entry<K, V> entry = evictionQueue.poll();
+                if (entry == null) return;
+                queuedCount.decrementAndGet();
+                // Replaced or removed since it was queued
+                if (kvStorageBackingMap.get(entry.key) != entry) continue;
+
+                if (isExpired(entry, now)) {
+                    if (remove(entry.key, entry)) expirationCount.increment();
+                } else if (entry.read) {
+                    entry.read = false;
+                    evictionQueue.add(entry);
+                    queuedCount.incrementAndGet();
+                } else if (remove(entry.key, entry)) {
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the queued entries that were replaced or removed since, which replacing the same keys over and over would
+     * otherwise pile up in a store that stays under its budget. Runs once per that many writes, so it costs each write
+     * constant amortized time.
+     */
+    private void dropStaleQueuedEntries() {
+        synchronized (evictionLock) {
+            for (Iterator<Entry<K, V>> iterator = evictionQueue.iterator(); iterator.hasNext(); ) {
+                Entry<K, V> entry = iterator.next();
+                if (kvStorageBackingMap.get(entry.key) != entry) {
+                    iterator.remove();
+                    queuedCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private boolean remove(@Nonnull K key, @Nonnull Entry<K, V> entry) {
+        if (!kvStorageBackingMap.remove(key, entry)) return false;
+        weightBytes.addAndGet(-entry.weightBytes);
+        return true;
+    }
+
+    private boolean isExpired(@Nonnull Entry<K, V> entry, long now) {
+        return expireAfterWriteNanos > 0 && now - entry.writtenNanos >= expireAfterWriteNanos;
+    }
+
+    private long weigh(@Nonnull V value) {
+        if (value instanceof Weighable) {
+            return Math.max(1, ((Weighable) value).estimatedSizeBytes());
+        }
+        return defaultEntryWeightBytes;
+    }
+
+    private static final class Entry<K, V> {
+        @Nonnull
+        final K key;
+        @Nonnull
+        final V value;
+        final long weightBytes;
+        final long writtenNanos;
+        // Whether the entry was read since it was last queued
+        volatile boolean read;
+
+        Entry(@Nonnull K key, @Nonnull V value, long weightBytes, long writtenNanos) {
+            this.key = key;
+            this.value = value;
+            this.weightBytes = weightBytes;
+            this.writtenNanos = writtenNanos;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates a {@link KVStore} bounded by an estimated size in bytes, evicting the least recently used entries and
+ * optionally expiring entries after a TTL. Every call to {@link #getStore()} on the same factory returns the same
+ * store, so clients built from one factory share it.
+ */
+public class BoundedKVStoreFactory<K, V> implements KVStoreFactory<K, V> {
+
+    @Nonnull
+    private final BoundedKVStore<K, V> boundedKVStore;
+
+    public BoundedKVStoreFactory() {
+        this(new BoundedKVStoreOptions());
+    }
+
+    public BoundedKVStoreFactory(@Nonnull BoundedKVStoreOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("options is null");
+        }
+        this.boundedKVStore = new BoundedKVStore<K, V>(options, System::nanoTime);
+    }
+
+    @Override
+    public @Nonnull InstrumentedKVStore<K, V> getStore() {
+        return boundedKVStore;
+    }
+}
@@ -0,0 +1,57 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Bounds for the store created by a {@link BoundedKVStoreFactory}. Values that don't implement {@link Weighable}
+ * are budgeted at {@link #getDefaultEntryWeightBytes()} each.
+ */
+public class BoundedKVStoreOptions {
+
+    public static final long DEFAULT_MAX_WEIGHT_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_ENTRY_WEIGHT_BYTES = 1024;
+
+    private long maxWeightBytes = DEFAULT_MAX_WEIGHT_BYTES;
+    private long defaultEntryWeightBytes = DEFAULT_ENTRY_WEIGHT_BYTES;
+    @Nullable
+    private Duration expireAfterWrite;
+
+    /**
+     * Estimated heap the stored values may retain before the least recently used ones are evicted
+     */
+    public BoundedKVStoreOptions maxWeightBytes(long maxWeightBytes) {
+        if (maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("maxWeightBytes must be positive");
+        }
+        this.maxWeightBytes = maxWeightBytes;
+        return this;
+    }
+
+    public BoundedKVStoreOptions defaultEntryWeightBytes(long defaultEntryWeightBytes) {
+        if (defaultEntryWeightBytes <= 0) {
+            throw new IllegalArgumentException("defaultEntryWeightBytes must be positive");
+        }
+        this.defaultEntryWeightBytes = defaultEntryWeightBytes;
+        return this;
+    }
+
+    /**
+     * How long an entry is kept after it was written. Entries don't expire unless this is set.
+     */
+    public BoundedKVStoreOptions expireAfterWrite(@Nonnull Duration expireAfterWrite) {
+        if (expireAfterWrite == null || expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+            throw new IllegalArgumentException("expireAfterWrite must be positive");
+        }
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    public long getMaxWeightBytes() { return maxWeightBytes; }
+
+    public long getDefaultEntryWeightBytes() { return defaultEntryWeightBytes; }
+
+    @Nullable
+    public Duration getExpireAfterWrite() { return expireAfterWrite; }
+}
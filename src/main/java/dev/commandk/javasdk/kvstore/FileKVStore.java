@@ -0,0 +1,252 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A write-through {@link KVStore}: reads are served from memory, misses fall back to the snapshot file of the key,
+ * and every write replaces that file atomically. Which keys have a snapshot is read from the directory once, when the
+ * store is created, and kept up to date by the writes, so a miss for a key without one doesn't touch the disk.
+ * <p>
+ * A snapshot file is laid out so it can be read with a single mapping:
+ * <pre>
+ * magic "CKSS" | version (1 byte) | iv length (1 byte) | iv | crc32 of ciphertext (4 bytes) | ciphertext length (4 bytes) | ciphertext
+ * </pre>
+ * The ciphertext is the AES-GCM encryption of the serialized key and value, authenticated together with the header.
+ * A snapshot that is truncated, corrupt or encrypted under another key is treated as missing.
+ */
+class FileKVStore<K, V> implements KVStore<K, V> {
+
+    private static final byte[] MAGIC = "CKSS".getBytes(StandardCharsets.US_ASCII);
+    private static final byte FORMAT_VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    // Smaller snapshots are cheaper to read into the heap than to map
+    private static final long MAP_THRESHOLD_BYTES = 64 * 1024;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    @Nonnull
+    private final Path directory;
+    @Nonnull
+    private final SecretKey secretKey;
+    private final ConcurrentHashMap<K, V> kvStorageBackingMap = new ConcurrentHashMap<K, V>();
+    // The snapshot file of every key that has one
+    private final ConcurrentHashMap<K, Path> snapshotPaths = new ConcurrentHashMap<K, Path>();
+
+    FileKVStore(@Nonnull Path directory, @Nonnull SecretKey secretKey) {
+        this.directory = directory;
+        this.secretKey = secretKey;
+        loadSnapshotPaths();
+    }
+
+    @Override
+    public @Nonnull Optional<V> get(@Nonnull K key) {
+        V value = kvStorageBackingMap.get(key);
+        if (value != null) return Optional.of(value);
+
+        V persistedValue = readSnapshot(key);
+        if (persistedValue == null) return Optional.empty();
+        V raced = kvStorageBackingMap.putIfAbsent(key, persistedValue);
+        return Optional.of(raced != null ? raced : persistedValue);
+    }
+
+    @Override
+    public void set(@Nonnull K key, @Nonnull V value) {
+        if (value != null) kvStorageBackingMap.put(key, value);
+        else kvStorageBackingMap.remove(key);
+        writeSnapshot(key, value);
+    }
+
+    private void loadSnapshotPaths() {
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(directory, "*" + SNAPSHOT_SUFFIX)) {
+            for (Path snapshotPath : snapshots) {
+                Object[] entry = readEntry(snapshotPath);
+                if (entry != null) snapshotPaths.put((K) entry[0], snapshotPath);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Snapshots that can't be listed are treated as missing, the next write of their key replaces them
+        }
+    }
+
+    @Nullable
+    private V readSnapshot(@Nonnull K key) {
+        Path snapshotPath = snapshotPaths.get(key);
+        if (snapshotPath == null) return null;
+
+        Object[] entry = readEntry(snapshotPath);
+        if (entry == null || !key.equals(entry[0])) return null;
+        return (V) entry[1];
+    }
+
+    /**
+     * The key and the value of a snapshot, or {@code null} when it is missing or unreadable
+     */
+    @Nullable
+    private Object[] readEntry(@Nonnull Path snapshotPath) {
+        try (FileChannel fileChannel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            ByteBuffer snapshot;
+            if (size >= MAP_THRESHOLD_BYTES) {
+                snapshot = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                snapshot = ByteBuffer.allocate((int) size);
+                while (snapshot.hasRemaining() && fileChannel.read(snapshot) >= 0) { }
+                snapshot.flip();
+            }
+
+            Object[] entry = decode(snapshot);
+            if (entry == null || entry.length != 2 || entry[0] == null) return null;
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | GeneralSecurityException | ClassNotFoundException | RuntimeException e) {
+            // Unreadable snapshots are treated as missing, the next write replaces them
+            return null;
+        }
+    }
+
+    private void writeSnapshot(@Nonnull K key, @Nullable V value) {
+        Path snapshotPath = snapshotPath(key);
+        if (snapshotPath == null) return;
+
+        try {
+            if (value == null) {
+                snapshotPaths.remove(key);
+                Files.deleteIfExists(snapshotPath);
+                return;
+            }
+            if (!(value instanceof Serializable)) return;
+
+            byte[] snapshot = encode(new Object[]{key, value});
+            Path temporaryPath = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporaryPath, snapshot);
+                Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                snapshotPaths.put(key, snapshotPath);
+            } finally {
+                Files.deleteIfExists(temporaryPath);
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            // The entry is still served from memory, it just won't survive a restart
+        }
+    }
+
+    @Nonnull
+    private byte[] encode(@Nonnull Object[] entry) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(plaintext)) {
+            objectOutputStream.writeObject(entry);
+        }
+
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        byte[] header = header(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(header);
+        byte[] ciphertext = cipher.doFinal(plaintext.toByteArray());
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(ciphertext);
+
+        return ByteBuffer.allocate(header.length + 8 + ciphertext.length)
+                .put(header)
+                .putInt((int) crc32.getValue())
+                .putInt(ciphertext.length)
+                .put(ciphertext)
+                .array();
+    }
+
+    @Nullable
+    private Object[] decode(@Nonnull ByteBuffer snapshot) throws IOException, GeneralSecurityException, ClassNotFoundException {
+        byte[] magic = new byte[MAGIC.length];
+        snapshot.get(magic);
+        if (!MessageDigest.isEqual(magic, MAGIC) || snapshot.get() != FORMAT_VERSION || snapshot.get() != IV_LENGTH) {
+            return null;
+        }
+        byte[] iv = new byte[IV_LENGTH];
+        snapshot.get(iv);
+        int expectedCrc32 = snapshot.getInt();
+        int ciphertextLength = snapshot.getInt();
+        if (ciphertextLength < 0 || ciphertextLength != snapshot.remaining()) return null;
+
+        byte[] ciphertext = new byte[ciphertextLength];
+        snapshot.get(ciphertext);
+        CRC32 crc32 = new CRC32();
+        crc32.update(ciphertext);
+        if ((int) crc32.getValue() != expectedCrc32) return null;
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.updateAAD(header(iv));
+        byte[] plaintext = cipher.doFinal(ciphertext);
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(plaintext))) {
+            return (Object[]) objectInputStream.readObject();
+        }
+    }
+
+    @Nonnull
+    private static byte[] header(@Nonnull byte[] iv) {
+        return ByteBuffer.allocate(MAGIC.length + 2 + iv.length)
+                .put(MAGIC)
+                .put(FORMAT_VERSION)
+                .put((byte) iv.length)
+                .put(iv)
+                .array();
+    }
+
+    /**
+     * Snapshots are named after a digest of the serialized key, so keys never leak into file names
+     */
+    @Nullable
+    private Path snapshotPath(@Nonnull K key) {
+        if (!(key instanceof Serializable)) return null;
+        try {
+            ByteArrayOutputStream serializedKey = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(serializedKey)) {
+                objectOutputStream.writeObject(key);
+            }
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] encodedSecretKey = secretKey.getEncoded();
+            if (encodedSecretKey != null) messageDigest.update(encodedSecretKey);
+            byte[] digest = messageDigest.digest(serializedKey.toByteArray());
+
+            StringBuilder fileName = new StringBuilder(digest.length * 2 + SNAPSHOT_SUFFIX.length());
+            for (byte b : digest) {
+                fileName.append(String.format("%02x", b));
+            }
+            return directory.resolve(fileName.append(SNAPSHOT_SUFFIX).toString());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+}
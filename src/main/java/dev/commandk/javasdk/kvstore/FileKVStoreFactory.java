@@ -0,0 +1,72 @@
+package dev.commandk.javasdk.kvstore;
+
+import dev.commandk.javasdk.exception.ConfigException;
+
+import javax.annotation.Nonnull;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * Creates a {@link KVStore} that keeps its entries in memory and persists every write as an encrypted snapshot file
+ * in a directory. A restarted process reads the snapshots back, so its first request for an app can be a conditional
+ * one answered with a {@code 304}, and the cached secrets remain available while the host can't be reached.
+ * <p>
+ * Snapshots are encrypted and authenticated with AES-GCM under the given key; keep the key outside the directory.
+ * Keys and values that aren't {@link java.io.Serializable} are only kept in memory.
+ */
+public class FileKVStoreFactory<K, V> implements KVStoreFactory<K, V> {
+
+    @Nonnull
+    private final Path directory;
+    @Nonnull
+    private final SecretKey secretKey;
+
+    private final Object lock = new Object();
+    private FileKVStore<K, V> fileKVStore = null;
+
+    public FileKVStoreFactory(@Nonnull Path directory, @Nonnull SecretKey secretKey) {
+        if (directory == null || secretKey == null) {
+            throw new IllegalArgumentException("directory and secretKey must not be null");
+        }
+        if (!"AES".equalsIgnoreCase(secretKey.getAlgorithm())) {
+            throw new ConfigException("FileKVStoreFactory requires an AES key");
+        }
+        this.directory = directory;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * Decodes a base64 encoded 128, 192 or 256 bit AES key, e.g. one read from an environment variable
+     */
+    public static @Nonnull SecretKey secretKeyFromBase64(@Nonnull String base64Key) {
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(base64Key.trim());
+        } catch (IllegalArgumentException e) {
+            throw new ConfigException("The snapshot key is not valid base64");
+        }
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new ConfigException("The snapshot key must be 128, 192 or 256 bits long");
+        }
+        return new SecretKeySpec(key, "AES");
+    }
+
+    @Override
+    public @Nonnull KVStore<K, V> getStore() {
+        synchronized (lock) {
+            if (fileKVStore == null) {
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    throw new ConfigException(String.format("Cannot create snapshot directory '%s': %s", directory, e.getMessage()));
+                }
+                fileKVStore = new FileKVStore<K, V>(directory, secretKey);
+            }
+        }
+        return fileKVStore;
+    }
+}
@@ -2,6 +2,11 @@ package dev.commandk.javasdk.kvstore;
 
 import javax.annotation.Nonnull;
 
+/**
+ * Hands every client the same process-wide in-memory store. Its keys don't include the host or the API token, so
+ * clients of different tenants must not share it; use a {@link dev.commandk.javasdk.CommandKClientPool} or a
+ * {@link NamespacedKVStoreFactory} for them instead.
+ */
 public class GlobalKVStoreFactory<K, V> implements KVStoreFactory<K, V> {
 
     static InMemoryKVStore<?, ?> backingInMemoryKVStore = null;
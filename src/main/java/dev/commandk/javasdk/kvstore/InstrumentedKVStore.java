@@ -0,0 +1,10 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link KVStore} that keeps hit, miss and eviction counters
+ */
+public interface InstrumentedKVStore<K, V> extends KVStore<K, V> {
+    @Nonnull KVStoreStats getStats();
+}
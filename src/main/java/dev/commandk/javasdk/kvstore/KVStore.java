@@ -14,7 +14,7 @@ class InMemoryKVStore<K, V> implements KVStore<K, V> {
 
     @Override
     public @Nonnull Optional<V> get(@Nonnull K key) {
-        V value = kvStorageBackingMap.compute(key, (K k, V v) -> v);
+        V value = kvStorageBackingMap.get(key);
         return value != null ? Optional.of(value) : Optional.empty();
     }
 
@@ -0,0 +1,55 @@
+package dev.commandk.javasdk.kvstore;
+
+/**
+ * A point-in-time snapshot of the counters of an {@link InstrumentedKVStore}
+ */
+public final class KVStoreStats {
+
+    private final long hitCount, missCount, evictionCount, expirationCount, entryCount, weightBytes;
+
+    public KVStoreStats(long hitCount, long missCount, long evictionCount, long expirationCount, long entryCount, long weightBytes) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.entryCount = entryCount;
+        this.weightBytes = weightBytes;
+    }
+
+    public long getHitCount() { return hitCount; }
+
+    /**
+     * Lookups of keys that weren't stored, including those whose entry had expired
+     */
+    public long getMissCount() { return missCount; }
+
+    /**
+     * Entries removed to stay within the size budget
+     */
+    public long getEvictionCount() { return evictionCount; }
+
+    /**
+     * Entries removed because they outlived their TTL
+     */
+    public long getExpirationCount() { return expirationCount; }
+
+    public long getEntryCount() { return entryCount; }
+
+    /**
+     * Estimated heap retained by the stored values
+     */
+    public long getWeightBytes() { return weightBytes; }
+
+    public double getHitRatio() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "KVStoreStats{hits=%d, misses=%d, evictions=%d, expirations=%d, entries=%d, weightBytes=%d}",
+                hitCount, missCount, evictionCount, expirationCount, entryCount, weightBytes
+        );
+    }
+}
@@ -0,0 +1,108 @@
+package dev.commandk.javasdk.kvstore;
+
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Partitions a store shared by several clients: the keys of every store created here are qualified with a namespace,
+ * so clients of different namespaces never see each other's entries while still sharing the backing store's memory
+ * budget. Clients created with the same namespace share their entries.
+ * <p>
+ * When the backing store is an {@link InstrumentedKVStore}, so are the stores created here. Their stats are those of
+ * the backing store, i.e. of every namespace together, since the namespaces share its budget and evictions.
+ */
+public class NamespacedKVStoreFactory<K, V> implements KVStoreFactory<K, V> {
+
+    @Nonnull
+    private final KVStoreFactory<Object, V> backingKVStoreFactory;
+    @Nonnull
+    private final String namespace;
+
+    public NamespacedKVStoreFactory(@Nonnull KVStoreFactory<Object, V> backingKVStoreFactory, @Nonnull String namespace) {
+        if (backingKVStoreFactory == null) {
+            throw new IllegalArgumentException("backingKVStoreFactory is null");
+        }
+        if (namespace == null) {
+            throw new IllegalArgumentException("namespace is null");
+        }
+        this.backingKVStoreFactory = backingKVStoreFactory;
+        this.namespace = namespace;
+    }
+
+    @Override
+    public @Nonnull KVStore<K, V> getStore() {
+        KVStore<Object, V> backingKVStore = backingKVStoreFactory.getStore();
+        if (backingKVStore instanceof InstrumentedKVStore) {
+            return new InstrumentedNamespacedKVStore<K, V>((InstrumentedKVStore<Object, V>) backingKVStore, namespace);
+        }
+        return new NamespacedKVStore<K, V>(backingKVStore, namespace);
+    }
+
+    private static class NamespacedKVStore<K, V> implements KVStore<K, V> {
+        @Nonnull
+        private final KVStore<Object, V> backingKVStore;
+        @Nonnull
+        private final String namespace;
+
+        NamespacedKVStore(@Nonnull KVStore<Object, V> backingKVStore, @Nonnull String namespace) {
+            this.backingKVStore = backingKVStore;
+            this.namespace = namespace;
+        }
+
+        @Override
+        public @Nonnull Optional<V> get(@Nonnull K key) {
+            return backingKVStore.get(new NamespacedKey(namespace, key));
+        }
+
+        @Override
+        public void set(@Nonnull K key, @Nonnull V value) {
+            backingKVStore.set(new NamespacedKey(namespace, key), value);
+        }
+    }
+
+    private static final class InstrumentedNamespacedKVStore<K, V> extends NamespacedKVStore<K, V> implements InstrumentedKVStore<K, V> {
+        @Nonnull
+        private final InstrumentedKVStore<Object, V> backingKVStore;
+
+        InstrumentedNamespacedKVStore(@Nonnull InstrumentedKVStore<Object, V> backingKVStore, @Nonnull String namespace) {
+            super(backingKVStore, namespace);
+            this.backingKVStore = backingKVStore;
+        }
+
+        @Override
+        public @Nonnull KVStoreStats getStats() {
+            return backingKVStore.getStats();
+        }
+    }
+
+    /**
+     * Serializable whenever the key is, so that namespaced entries can be persisted by a {@link FileKVStoreFactory}
+     */
+    static final class NamespacedKey implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Nonnull
+        final String namespace;
+        @Nonnull
+        final Object key;
+
+        NamespacedKey(@Nonnull String namespace, @Nonnull Object key) {
+            this.namespace = namespace;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof NamespacedKey)) return false;
+            NamespacedKey namespacedKey = (NamespacedKey) obj;
+            return namespace.equals(namespacedKey.namespace) && key.equals(namespacedKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * namespace.hashCode() + key.hashCode();
+        }
+    }
+}
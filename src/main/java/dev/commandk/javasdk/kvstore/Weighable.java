@@ -0,0 +1,8 @@
+package dev.commandk.javasdk.kvstore;
+
+/**
+ * Implemented by values that can estimate how much heap they retain, so that size-bounded stores can budget them
+ */
+public interface Weighable {
+    long estimatedSizeBytes();
+}
@@ -0,0 +1,53 @@
+package dev.commandk.javasdk.metrics;
+
+import dev.commandk.javasdk.kvstore.KVStoreStats;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+/**
+ * Receives measurements from a {@link dev.commandk.javasdk.CommandKClient}. Adapt it to a metrics library, e.g. by
+ * feeding a Micrometer {@code Timer} from {@link #recordCall}, and set it with
+ * {@link dev.commandk.javasdk.CommandKClientOptions#metricsRecorder(MetricsRecorder)}.
+ * <p>
+ * Every method has an empty default, so an implementation only overrides what it needs. Methods are called on the
+ * threads doing the work and must not block. When no recorder is set, the client skips taking the measurements
+ * altogether.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * Records nothing; the default
+     */
+    MetricsRecorder NOOP = new MetricsRecorder() {};
+
+    /**
+     * A call of an operation finished. {@code durationNanos} is the wall time of the call, including retries and
+     * pagination, and is {@code 0} for {@link Outcome#LOCAL} calls.
+     */
+    default void recordCall(@Nonnull Operation operation, @Nonnull Outcome outcome, long durationNanos) {}
+
+    /**
+     * A response body of the operation was read; {@code bytes} is the size of the payload after
+     * decompression, not the number of bytes that came over the network
+     */
+    default void recordBytesReceived(@Nonnull Operation operation, long bytes) {}
+
+    /**
+     * A response body of the operation was decoded. As the body is decoded while it streams in, this includes the
+     * time spent waiting for it.
+     */
+    default void recordDecode(@Nonnull Operation operation, long durationNanos) {}
+
+    /**
+     * The client looked up a cached response in its store
+     */
+    default void recordCacheLookup(boolean hit) {}
+
+    /**
+     * Called once, when the client is created with an
+     * {@link dev.commandk.javasdk.kvstore.InstrumentedKVStore}, with a supplier of its current counters, entry
+     * count and size, e.g. to register gauges
+     */
+    default void bindCacheStats(@Nonnull Supplier<KVStoreStats> cacheStats) {}
+}
@@ -0,0 +1,23 @@
+package dev.commandk.javasdk.metrics;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The host operations a {@link MetricsRecorder} is told about
+ */
+public enum Operation {
+    GET_RENDERED_APP_SECRETS("getRenderedAppSecrets"),
+    GET_ENVIRONMENTS("getEnvironments");
+
+    @Nonnull
+    private final String operationName;
+
+    Operation(@Nonnull String operationName) {
+        this.operationName = operationName;
+    }
+
+    /**
+     * A stable name for tagging metrics, e.g. {@code getRenderedAppSecrets}
+     */
+    public @Nonnull String getOperationName() { return operationName; }
+}
@@ -0,0 +1,23 @@
+package dev.commandk.javasdk.metrics;
+
+/**
+ * How a call of an {@link Operation} was answered
+ */
+public enum Outcome {
+    /**
+     * The host sent a new payload, a {@code 200}
+     */
+    OK,
+    /**
+     * The host confirmed the cached payload, a {@code 304}
+     */
+    NOT_MODIFIED,
+    /**
+     * Answered from a cached snapshot without a request
+     */
+    LOCAL,
+    /**
+     * The request failed, whether or not a cached payload was served instead
+     */
+    ERROR
+}
@@ -0,0 +1,199 @@
+package dev.commandk.javasdk.slim;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small JSON parser that reads a document into maps, lists, strings, numbers, booleans and nulls. It covers what
+ * the two operations of the host need and nothing more, so the slim client doesn't depend on Jackson.
+ * <p>
+ * Objects become {@link LinkedHashMap}s and arrays {@link ArrayList}s. Integral numbers that fit are {@link Long}s,
+ * other numbers {@link Double}s.
+ */
+final class MinimalJson {
+
+    @Nonnull
+    private final Reader reader;
+    // One character of lookahead; -2 when none is buffered
+    private int peeked = -2;
+    private long position;
+
+    private MinimalJson(@Nonnull Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Parses a single JSON document; only whitespace may follow it
+     */
+    @Nullable
+    static Object parse(@Nonnull Reader reader) throws IOException {
+        MinimalJson minimalJson = new MinimalJson(reader);
+        Object value = minimalJson.readValue();
+        if (minimalJson.nextNonWhitespace() != -1) {
+            throw minimalJson.syntaxError("Unexpected content after the document");
+        }
+        return value;
+    }
+
+    @Nullable
+    private Object readValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expectLiteral("rue");
+                return Boolean.TRUE;
+            case 'f':
+                expectLiteral("alse");
+                return Boolean.FALSE;
+            case 'n':
+                expectLiteral("ull");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return readNumber((char) c);
+                throw syntaxError(c == -1 ? "Unexpected end of the document" : "Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    @Nonnull
+    private Map<String, Object> readObject() throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        int c = nextNonWhitespace();
+        if (c == '}') return object;
+        while (true) {
+            if (c != '"') throw syntaxError("Expected a field name");
+            String name = readString();
+            if (nextNonWhitespace() != ':') throw syntaxError("Expected ':' after a field name");
+            object.put(name, readValue());
+            c = nextNonWhitespace();
+            if (c == '}') return object;
+            if (c != ',') throw syntaxError("Expected ',' or '}' in an object");
+            c = nextNonWhitespace();
+        }
+    }
+
+    @Nonnull
+    private List<Object> readArray() throws IOException {
+        List<Object> array = new ArrayList<>();
+        int c = nextNonWhitespace();
+        if (c == ']') return array;
+        unread(c);
+        while (true) {
+            array.add(readValue());
+            c = nextNonWhitespace();
+            if (c == ']') return array;
+            if (c != ',') throw syntaxError("Expected ',' or ']' in an array");
+        }
+    }
+
+    @Nonnull
+    private String readString() throws IOException {
+        StringBuilder string = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == '"') return string.toString();
+            if (c == -1) throw syntaxError("Unterminated string");
+            if (c < 0x20) throw syntaxError("Unescaped control character in a string");
+            if (c != '\\') {
+                string.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"': string.append('"'); break;
+                case '\\': string.append('\\'); break;
+                case '/': string.append('/'); break;
+                case 'b': string.append('\b'); break;
+                case 'f': string.append('\f'); break;
+                case 'n': string.append('\n'); break;
+                case 'r': string.append('\r'); break;
+                case 't': string.append('\t'); break;
+                case 'u':
+                    int codeUnit = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) throw syntaxError("Invalid \\u escape");
+                        codeUnit = codeUnit * 16 + digit;
+                    }
+                    string.append((char) codeUnit);
+                    break;
+                default:
+                    throw syntaxError("Invalid escape");
+            }
+        }
+    }
+
+    @Nonnull
+    private Number readNumber(char first) throws IOException {
+        StringBuilder number = new StringBuilder().append(first);
+        boolean integral = true;
+        while (true) {
+            int c = read();
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+') {
+                number.append((char) c);
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+                number.append((char) c);
+            } else {
+                unread(c);
+                break;
+            }
+        }
+        try {
+            if (integral) {
+                try {
+                    return Long.parseLong(number.toString());
+                } catch (NumberFormatException e) {
+                    // Too large for a long
+                }
+            }
+            return Double.parseDouble(number.toString());
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number " + number);
+        }
+    }
+
+    private void expectLiteral(@Nonnull String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) throw syntaxError("Invalid literal");
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        position++;
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        peeked = c;
+    }
+
+    @Nonnull
+    private IOException syntaxError(@Nonnull String message) {
+        return new IOException(String.format("%s at character %d", message, position));
+    }
+}
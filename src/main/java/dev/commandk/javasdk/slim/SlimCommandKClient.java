@@ -0,0 +1,301 @@
+package dev.commandk.javasdk.slim;
+
+import dev.commandk.javasdk.common.EnvironmentRegistry;
+import dev.commandk.javasdk.common.Headers;
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.credential.CommandKCredentialsProvider;
+import dev.commandk.javasdk.credential.EnvironmentVariablesCredentialsProvider;
+import dev.commandk.javasdk.credential.SystemPropertiesCredentialsProvider;
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.exception.ConfigException;
+import dev.commandk.javasdk.exception.HostResponseException;
+import dev.commandk.javasdk.models.EnvironmentDescriptor;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A client for the slim artifact, {@code dev.commandk:java-sdk-slim}, which has no dependencies: requests go through
+ * {@link HttpURLConnection} and responses are decoded by a minimal JSON parser, instead of Spring's
+ * {@code RestTemplate} and Jackson. This keeps the jar, class loading and metaspace small for services that only
+ * need to read their secrets.
+ * <p>
+ * Responses are cached in memory by their ETag and revalidated with a conditional request on every call. The
+ * caching options, batch and asynchronous fetches, watchers and metrics of
+ * {@link dev.commandk.javasdk.CommandKClient} aren't available. Credentials come from a provider as usual; the
+ * configuration file provider needs Jackson, so {@link #withDefaults()} only reads the environment variables and
+ * the system properties.
+ * <p>
+ * Instances are thread safe.
+ */
+public final class SlimCommandKClient {
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+    private static final long ENVIRONMENTS_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int ENVIRONMENTS_PAGE_SIZE = 100;
+    // Every secret name filter is a URL of its own, so the cached responses are bounded by count
+    static final int MAX_CACHED_RESPONSES = 256;
+
+    @Nonnull
+    private final String host;
+    @Nonnull
+    private final String apiToken;
+    private final int timeoutMillis;
+
+    // Last response per request URL, for conditional requests, dropping the least recently used past the limit
+    @Nonnull
+    private final Map<String, CachedResponse> responses = Collections.synchronizedMap(
+            new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > MAX_CACHED_RESPONSES;
+                }
+            }
+    );
+    // Without a background executor, the lookup that finds the listing expired reloads it
+    @Nonnull
+    private final EnvironmentRegistry environmentRegistry = new EnvironmentRegistry(this::getEnvironments, null, ENVIRONMENTS_TTL_NANOS);
+
+    public SlimCommandKClient(@Nonnull CommandKCredentialsProvider commandKCredentialsProvider) {
+        this(commandKCredentialsProvider, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param timeout the connect and the read timeout of every request
+     */
+    public SlimCommandKClient(@Nonnull CommandKCredentialsProvider commandKCredentialsProvider, @Nonnull Duration timeout) {
+        if(commandKCredentialsProvider==null){
+            throw new IllegalArgumentException("commandKCredentialsProvider is null");
+        }
+        if(timeout==null || timeout.isNegative() || timeout.isZero()){
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+
+        CommandKCredentials credentials = commandKCredentialsProvider.resolveCredentials();
+        if(credentials==null){
+            throw new ConfigException("Provided CommandKCredentials object is null");
+        }
+        if(credentials.host==null || credentials.apiToken==null){
+            throw new ConfigException("Provided CommandKCredentials object is missing host or apiToken");
+        }
+        this.host = credentials.host;
+        this.apiToken = credentials.apiToken;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+    }
+
+    /**
+     * A client with the credentials of the {@code COMMANDK_HOST} and {@code COMMANDK_API_TOKEN} environment
+     * variables, or else of the system properties
+     */
+    public static @Nonnull SlimCommandKClient withDefaults() {
+        return new SlimCommandKClient(() -> {
+            CommandKCredentials credentials = new EnvironmentVariablesCredentialsProvider().resolveCredentials();
+            if (credentials == null) credentials = new SystemPropertiesCredentialsProvider().resolveCredentials();
+            if (credentials == null) throw new ConfigException("No valid credentials were found");
+            return credentials;
+        });
+    }
+
+    /**
+     * The secrets of an app in an environment, given by its name, slug or id
+     *
+     * @param secretNames the secrets to return, or {@code null} for all of them
+     */
+    public @Nonnull List<RenderedAppSecret> getRenderedAppSecrets(
+            @Nonnull String catalogAppId,
+            @Nonnull String environment,
+            @Nullable List<String> secretNames
+    ) {
+        if(catalogAppId==null || environment==null){
+            throw new IllegalArgumentException("catalogAppId or environment is null");
+        }
+        String environmentId = environmentRegistry.resolve(environment).getId();
+
+        StringBuilder url = new StringBuilder(host)
+                .append("/apps/").append(urlEncode(catalogAppId)).append("/secrets/rendered")
+                .append("?environment=").append(urlEncode(environmentId))
+                .append("&mode=Full");
+        if (secretNames != null) {
+            for (String secretName : secretNames) {
+                url.append("&secret-name-filter=").append(urlEncode(secretName));
+            }
+        }
+        return (List<RenderedAppSecret>) get(url.toString(), SlimCommandKClient::toRenderedAppSecrets);
+    }
+
+    /**
+     * Every environment of the host
+     */
+    public @Nonnull List<EnvironmentDescriptor> getEnvironments() {
+        List<EnvironmentDescriptor> environments = new ArrayList<>();
+        String after = null;
+        while (true) {
+            String url = host + "/environments?limit=" + ENVIRONMENTS_PAGE_SIZE + (after != null ? "&after=" + urlEncode(after) : "");
+            List<EnvironmentDescriptor> page = (List<EnvironmentDescriptor>) get(url, SlimCommandKClient::toEnvironments);
+            // A short page doesn't end the listing: the host may cap the limit below the page size asked for
+            if (page.isEmpty()) break;
+
+            String lastId = page.get(page.size() - 1).getId();
+            // A host that ignores the cursor would otherwise keep returning the same page
+            if (lastId != null && lastId.equals(after)) break;
+            environments.addAll(page);
+            if (lastId == null) break;
+            after = lastId;
+        }
+        return environments;
+    }
+
+    /**
+     * GETs the URL, conditionally when a response to it is cached, and binds the body of a {@code 200}
+     */
+    @Nonnull
+    private Object get(@Nonnull String url, @Nonnull Binder binder) {
+        CachedResponse cached = responses.get(url);
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setRequestProperty("Authorization", "Bearer " + apiToken);
+            connection.setRequestProperty("Accept", "application/json");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (cached != null) connection.setRequestProperty("If-None-Match", cached.eTag);
+
+            int statusCode = connection.getResponseCode();
+            if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                return cached.value;
+            }
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                drain(connection.getErrorStream());
+                throw new HostResponseException(statusCode, Headers.retryAfter(connection.getHeaderField(Headers.RETRY_AFTER)));
+            }
+
+            // Reading the body to the end and closing it hands the connection back to the JDK's keep-alive cache
+            Object value;
+            try (Reader reader = new InputStreamReader(decodedBody(connection), StandardCharsets.UTF_8)) {
+                Object document = MinimalJson.parse(reader);
+                if (!(document instanceof Map)) throw new IOException("Expected a JSON object");
+                value = binder.bind((Map<String, Object>) document);
+            }
+            String eTag = connection.getHeaderField(Headers.E_TAG);
+            if (eTag != null) responses.put(url, new CachedResponse(eTag, value));
+            return value;
+        } catch (IOException e) {
+            throw new ClientException(String.format("%s: %s", e.getClass(), e.getMessage()), e);
+        }
+    }
+
+    @Nonnull
+    private static InputStream decodedBody(@Nonnull HttpURLConnection connection) throws IOException {
+        InputStream body = connection.getInputStream();
+        return "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(body) : body;
+    }
+
+    private static void drain(@Nullable InputStream body) throws IOException {
+        // Like a successful body, an error body read to the end lets its connection be reused
+        if (body == null) return;
+        try (InputStream in = body) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // Discarded
+            }
+        }
+    }
+
+    @Nonnull
+    private static List<RenderedAppSecret> toRenderedAppSecrets(@Nonnull Map<String, Object> document) throws IOException {
+        Object secrets = document.get("secrets");
+        if (secrets == null) return Collections.emptyList();
+        if (!(secrets instanceof List)) throw new IOException("Expected an array of secrets");
+
+        List<RenderedAppSecret> renderedAppSecrets = new ArrayList<>(((List<?>) secrets).size());
+        for (Object item : (List<?>) secrets) {
+            if (!(item instanceof Map)) throw new IOException("Expected a secret object");
+            Map<?, ?> secret = (Map<?, ?>) item;
+            renderedAppSecrets.add(new RenderedAppSecret()
+                    .key(text(secret.get("key")))
+                    .serializedValue(text(secret.get("serializedValue")))
+                    .secretId(text(secret.get("secretId")))
+                    .valueType(valueType(text(secret.get("valueType")))));
+        }
+        return Collections.unmodifiableList(renderedAppSecrets);
+    }
+
+    @Nonnull
+    private static List<EnvironmentDescriptor> toEnvironments(@Nonnull Map<String, Object> document) throws IOException {
+        Object environments = document.get("environments");
+        if (!(environments instanceof List)) throw new IOException("Expected an array of environments");
+
+        List<EnvironmentDescriptor> environmentDescriptors = new ArrayList<>(((List<?>) environments).size());
+        for (Object item : (List<?>) environments) {
+            if (!(item instanceof Map)) throw new IOException("Expected an environment object");
+            Map<?, ?> environment = (Map<?, ?>) item;
+            environmentDescriptors.add(new EnvironmentDescriptor()
+                    .id(text(environment.get("id")))
+                    .slug(text(environment.get("slug")))
+                    .name(text(environment.get("name")))
+                    .label(text(environment.get("label"))));
+        }
+        return Collections.unmodifiableList(environmentDescriptors);
+    }
+
+    @Nullable
+    private static String text(@Nullable Object value) throws IOException {
+        if (value == null || value instanceof String) return (String) value;
+        if (value instanceof Map || value instanceof List) throw new IOException("Expected a scalar value");
+        return String.valueOf(value);
+    }
+
+    @Nullable
+    private static RenderedAppSecretValueType valueType(@Nullable String value) {
+        if (value == null) return null;
+        for (RenderedAppSecretValueType valueType : RenderedAppSecretValueType.values()) {
+            if (valueType.getValue().equals(value)) return valueType;
+        }
+        // An unknown value type from a newer host shouldn't fail the whole response
+        return null;
+    }
+
+    private static String urlEncode(@Nonnull String value) {
+        try {
+            // Form encoding turns spaces into '+', which isn't valid in a path segment
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Binder {
+        @Nonnull Object bind(@Nonnull Map<String, Object> document) throws IOException;
+    }
+
+    private static final class CachedResponse {
+        @Nonnull
+        final String eTag;
+        @Nonnull
+        final Object value;
+
+        CachedResponse(@Nonnull String eTag, @Nonnull Object value) {
+            this.eTag = eTag;
+            this.value = value;
+        }
+    }
+}
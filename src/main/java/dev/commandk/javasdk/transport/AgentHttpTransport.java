@@ -0,0 +1,128 @@
+package dev.commandk.javasdk.transport;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.URI;
+
+/**
+ * Sends the reads of a client to a {@link dev.commandk.javasdk.SecretsAgent} on the same host instead of the CommandK
+ * host, so that the processes of the host share the agent's polling. When nothing listens at the agent's address,
+ * the request is sent to the CommandK host itself, so a process keeps working while the agent restarts.
+ */
+public class AgentHttpTransport implements HttpTransport {
+
+    @Nonnull
+    private final String agentUri;
+    @Nonnull
+    private final HttpTransport transport;
+    @Nonnull
+    private final ClientHttpRequestFactory requestFactory = this::createRequest;
+
+    /**
+     * Reaches the agent, and the CommandK host when falling back, over {@link PooledHttpTransport#shared()}
+     */
+    public AgentHttpTransport(@Nonnull URI agentUri) {
+        this(agentUri, PooledHttpTransport.shared());
+    }
+
+    public AgentHttpTransport(@Nonnull URI agentUri, @Nonnull HttpTransport transport) {
+        if (agentUri == null) {
+            throw new IllegalArgumentException("agentUri is null");
+        }
+        if (transport == null) {
+            throw new IllegalArgumentException("transport is null");
+        }
+        String uri = agentUri.toString();
+        this.agentUri = uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+        this.transport = transport;
+    }
+
+    @Override
+    public @Nonnull ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    @Nonnull
+    private ClientHttpRequest createRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) throws IOException {
+        if (httpMethod != HttpMethod.GET) {
+            return transport.getRequestFactory().createRequest(uri, httpMethod);
+        }
+        return new AgentRequest(uri, httpMethod);
+    }
+
+    /**
+     * The same path and query, on the agent
+     */
+    @Nonnull
+    URI toAgentUri(@Nonnull URI uri) {
+        StringBuilder agentRequestUri = new StringBuilder(agentUri).append(uri.getRawPath());
+        if (uri.getRawQuery() != null) agentRequestUri.append('?').append(uri.getRawQuery());
+        return URI.create(agentRequestUri.toString());
+    }
+
+    private final class AgentRequest implements ClientHttpRequest {
+        @Nonnull
+        private final URI uri;
+        @Nonnull
+        private final HttpMethod httpMethod;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        AgentRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) {
+            this.uri = uri;
+            this.httpMethod = httpMethod;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return httpMethod;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return httpMethod.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            try {
+                return send(toAgentUri(uri));
+            } catch (ConnectException e) {
+                // Only when the agent isn't listening: a request it may have received is never sent twice
+                return send(uri);
+            }
+        }
+
+        @Nonnull
+        private ClientHttpResponse send(@Nonnull URI target) throws IOException {
+            ClientHttpRequest request = transport.getRequestFactory().createRequest(target, httpMethod);
+            request.getHeaders().putAll(headers);
+            if (body.size() > 0) body.writeTo(request.getBody());
+            return request.execute();
+        }
+    }
+}
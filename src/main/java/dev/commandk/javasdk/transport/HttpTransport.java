@@ -0,0 +1,32 @@
+package dev.commandk.javasdk.transport;
+
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+
+/**
+ * Supplies the HTTP connections the client talks to the CommandK host over. The default is the process-wide
+ * {@link PooledHttpTransport#shared()}; provide your own through
+ * {@link dev.commandk.javasdk.CommandKClientOptions#transport(HttpTransport)} to change pooling, timeouts, proxies
+ * or the HTTP library itself.
+ * <p>
+ * Implementations must be thread safe. A client never closes a transport it was given.
+ */
+public interface HttpTransport extends Closeable {
+
+    @Nonnull ClientHttpRequestFactory getRequestFactory();
+
+    @Override
+    default void close() {}
+
+    /**
+     * Adapts any Spring request factory, e.g. an {@code OkHttp3ClientHttpRequestFactory} to get HTTP/2 multiplexing
+     */
+    static @Nonnull HttpTransport of(@Nonnull ClientHttpRequestFactory clientHttpRequestFactory) {
+        if (clientHttpRequestFactory == null) {
+            throw new IllegalArgumentException("clientHttpRequestFactory is null");
+        }
+        return () -> clientHttpRequestFactory;
+    }
+}
@@ -0,0 +1,411 @@
+package dev.commandk.javasdk.transport;
+
+import dev.commandk.javasdk.common.DaemonThreadFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads the requests of a client over several endpoints of the CommandK host, e.g. the replicas behind a load
+ * balancer or the same host in several regions. Each request keeps its path and query and is sent to the scheme, host
+ * and port of an endpoint.
+ * <p>
+ * Every request goes to the faster of two endpoints picked at random, by their recent latency. An endpoint that
+ * fails {@link MultiEndpointHttpTransportOptions#ejectAfterFailures(int) several times in a row} is left out for a
+ * while; when every endpoint is left out, the one left out first is used.
+ * <p>
+ * With {@link MultiEndpointHttpTransportOptions#hedging(double) hedging}, a read that hasn't been answered within a
+ * high percentile of recent latencies is sent again to another endpoint, and the first answer is used. The request is
+ * sent again as is, so a conditional request stays conditional.
+ */
+public class MultiEndpointHttpTransport implements HttpTransport {
+
+    // Hedging waits for this many latency samples, so that the first requests aren't all hedged
+    static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int LATENCY_WINDOW_SIZE = 256;
+    // At most this many hedges can be saved up while requests are fast
+    private static final double MAX_HEDGE_TOKENS = 10;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    @Nonnull
+    private final List<Endpoint> endpoints;
+    @Nonnull
+    private final HttpTransport transport;
+    @Nonnull
+    private final MultiEndpointHttpTransportOptions options;
+    @Nonnull
+    private final LongSupplier nanoClock;
+    @Nonnull
+    private final ClientHttpRequestFactory requestFactory = this::createRequest;
+    @Nullable
+    private final ExecutorService hedgingExecutor;
+
+    private final long[] latencyWindow = new long[LATENCY_WINDOW_SIZE];
+    private long latencySamples;
+    private double hedgeTokens = MAX_HEDGE_TOKENS;
+
+    /**
+     * Reaches the endpoints over {@link PooledHttpTransport#shared()}
+     */
+    public MultiEndpointHttpTransport(@Nonnull List<URI> endpointUris, @Nonnull MultiEndpointHttpTransportOptions options) {
+        this(endpointUris, options, PooledHttpTransport.shared());
+    }
+
+    public MultiEndpointHttpTransport(
+            @Nonnull List<URI> endpointUris,
+            @Nonnull MultiEndpointHttpTransportOptions options,
+            @Nonnull HttpTransport transport
+    ) {
+        this(endpointUris, options, transport, System::nanoTime);
+    }
+
+    MultiEndpointHttpTransport(
+            @Nonnull List<URI> endpointUris,
+            @Nonnull MultiEndpointHttpTransportOptions options,
+            @Nonnull HttpTransport transport,
+            @Nonnull LongSupplier nanoClock
+    ) {
+        if (endpointUris == null || endpointUris.isEmpty()) {
+            throw new IllegalArgumentException("endpointUris is null or empty");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("options is null");
+        }
+        if (transport == null) {
+            throw new IllegalArgumentException("transport is null");
+        }
+        List<Endpoint> endpoints = new ArrayList<>(endpointUris.size());
+        for (URI endpointUri : endpointUris) {
+            if (endpointUri == null) {
+                throw new IllegalArgumentException("endpointUris contains null");
+            }
+            endpoints.add(new Endpoint(endpointUri));
+        }
+        this.endpoints = Collections.unmodifiableList(endpoints);
+        this.options = options;
+        this.transport = transport;
+        this.nanoClock = nanoClock;
+        this.hedgingExecutor = options.isHedging() && endpoints.size() > 1
+                ? Executors.newCachedThreadPool(new DaemonThreadFactory("commandk-hedging"))
+                : null;
+    }
+
+    @Override
+    public @Nonnull ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    /**
+     * Stops the threads that send hedged requests. The transport the requests are sent over isn't closed.
+     */
+    @Override
+    public void close() {
+        if (hedgingExecutor != null) hedgingExecutor.shutdownNow();
+    }
+
+    @Nonnull
+    private ClientHttpRequest createRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) {
+        return new MultiEndpointRequest(uri, httpMethod);
+    }
+
+    /**
+     * The endpoint for the next request: the faster of two healthy endpoints picked at random, other than
+     * {@code excluded}. {@code null} when there is no other endpoint.
+     */
+    @Nullable
+    Endpoint selectEndpoint(@Nullable Endpoint excluded) {
+        long now = nanoClock.getAsLong();
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        Endpoint ejectedFirst = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint == excluded) continue;
+            if (endpoint.isHealthy(now)) {
+                candidates.add(endpoint);
+            } else if (ejectedFirst == null || endpoint.getEjectedAt() < ejectedFirst.getEjectedAt()) {
+                ejectedFirst = endpoint;
+            }
+        }
+        if (candidates.isEmpty()) return ejectedFirst;
+        if (candidates.size() == 1) return candidates.get(0);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) second++;
+        Endpoint a = candidates.get(first);
+        Endpoint b = candidates.get(second);
+        return a.getLatencyNanos() <= b.getLatencyNanos() ? a : b;
+    }
+
+    /**
+     * How long a read waits before it is hedged: the configured percentile of recent latencies, or
+     * {@link Long#MAX_VALUE} while there are too few of them
+     */
+    synchronized long hedgeDelayNanos() {
+        if (latencySamples < MIN_LATENCY_SAMPLES) return Long.MAX_VALUE;
+        long[] latencies = Arrays.copyOf(latencyWindow, (int) Math.min(latencySamples, LATENCY_WINDOW_SIZE));
+        Arrays.sort(latencies);
+        long percentile = latencies[(int) Math.min(latencies.length - 1, (long) (options.getHedgePercentile() * latencies.length))];
+        return Math.max(percentile, options.getMinHedgeDelay().toNanos());
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencyWindow[(int) (latencySamples++ % LATENCY_WINDOW_SIZE)] = latencyNanos;
+    }
+
+    /**
+     * Each request earns a fraction of a hedge, so that hedges stay below the configured share of requests
+     */
+    private synchronized void earnHedge() {
+        hedgeTokens = Math.min(MAX_HEDGE_TOKENS, hedgeTokens + options.getMaxHedgeRatio());
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (hedgeTokens < 1) return false;
+        hedgeTokens--;
+        return true;
+    }
+
+    @Nonnull
+    List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    final class Endpoint {
+        @Nonnull
+        private final String baseUri;
+        private int consecutiveFailures;
+        private long ejectedAt;
+        private boolean ejected;
+        // Smoothed latency of successful requests; unmeasured endpoints go first
+        private long latencyNanos;
+
+        Endpoint(@Nonnull URI endpointUri) {
+            String uri = endpointUri.toString();
+            this.baseUri = uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+        }
+
+        /**
+         * The same path and query, on this endpoint
+         */
+        @Nonnull
+        URI resolve(@Nonnull URI uri) {
+            StringBuilder endpointRequestUri = new StringBuilder(baseUri).append(uri.getRawPath());
+            if (uri.getRawQuery() != null) endpointRequestUri.append('?').append(uri.getRawQuery());
+            return URI.create(endpointRequestUri.toString());
+        }
+
+        synchronized boolean isHealthy(long now) {
+            if (ejected && now - ejectedAt >= options.getEjectionDuration().toNanos()) {
+                // Let requests try it again; a single failure ejects it for another period
+                ejected = false;
+                consecutiveFailures = options.getEjectAfterFailures() - 1;
+            }
+            return !ejected;
+        }
+
+        synchronized long getEjectedAt() {
+            return ejectedAt;
+        }
+
+        synchronized long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        synchronized void onSuccess(long latencyNanos) {
+            consecutiveFailures = 0;
+            this.latencyNanos = this.latencyNanos == 0
+                    ? latencyNanos
+                    : (long) (LATENCY_SMOOTHING * latencyNanos + (1 - LATENCY_SMOOTHING) * this.latencyNanos);
+        }
+
+        synchronized void onFailure() {
+            if (++consecutiveFailures >= options.getEjectAfterFailures() && !ejected) {
+                ejected = true;
+                ejectedAt = nanoClock.getAsLong();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return baseUri;
+        }
+    }
+
+    /**
+     * The outcome of sending a request to one endpoint: a response, or the I/O error it failed with
+     */
+    private static final class Attempt {
+        @Nullable
+        final ClientHttpResponse response;
+        @Nullable
+        final IOException error;
+        final boolean succeeded;
+
+        Attempt(@Nullable ClientHttpResponse response, @Nullable IOException error, boolean succeeded) {
+            this.response = response;
+            this.error = error;
+            this.succeeded = succeeded;
+        }
+
+        void discard() {
+            if (response != null) response.close();
+        }
+    }
+
+    private final class MultiEndpointRequest implements ClientHttpRequest {
+        @Nonnull
+        private final URI uri;
+        @Nonnull
+        private final HttpMethod httpMethod;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        MultiEndpointRequest(@Nonnull URI uri, @Nonnull HttpMethod httpMethod) {
+            this.uri = uri;
+            this.httpMethod = httpMethod;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return httpMethod;
+        }
+
+        @Override
+        public String getMethodValue() {
+            return httpMethod.name();
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            earnHedge();
+            Endpoint primary = selectEndpoint(null);
+            if (hedgingExecutor == null || httpMethod != HttpMethod.GET) {
+                return unwrap(send(primary));
+            }
+            return executeHedged(primary);
+        }
+
+        @Nonnull
+        private ClientHttpResponse executeHedged(@Nonnull Endpoint primary) throws IOException {
+            BlockingQueue<Attempt> completed = new LinkedBlockingQueue<>();
+            AtomicBoolean decided = new AtomicBoolean();
+            submit(primary, completed, decided);
+            int inFlight = 1;
+            boolean hedged = false;
+            long hedgeDelayNanos = hedgeDelayNanos();
+            Attempt failed = null;
+            try {
+                while (inFlight > 0) {
+                    Attempt attempt = hedged || hedgeDelayNanos == Long.MAX_VALUE
+                            ? completed.take()
+                            : completed.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                    if (attempt == null) {
+                        // The primary is slow: hedge at most once, and only while the budget allows
+                        hedged = true;
+                        Endpoint secondary = selectEndpoint(primary);
+                        if (secondary != null && tryAcquireHedge()) {
+                            submit(secondary, completed, decided);
+                            inFlight++;
+                        }
+                        continue;
+                    }
+                    inFlight--;
+                    // A failure is only reported when no later attempt answers
+                    if (failed != null) failed.discard();
+                    if (attempt.succeeded) return attempt.response;
+                    failed = attempt;
+                }
+                return unwrap(failed);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a response");
+            } finally {
+                // Responses of attempts that lost the race are closed as they arrive
+                decided.set(true);
+                for (Attempt attempt; (attempt = completed.poll()) != null; ) {
+                    attempt.discard();
+                }
+            }
+        }
+
+        private void submit(@Nonnull Endpoint endpoint, @Nonnull BlockingQueue<Attempt> completed, @Nonnull AtomicBoolean decided) {
+            hedgingExecutor.execute(() -> {
+                Attempt attempt = send(endpoint);
+                completed.add(attempt);
+                // Either the caller drains it or this removes it, never both
+                if (decided.get() && completed.remove(attempt)) attempt.discard();
+            });
+        }
+
+        @Nonnull
+        private Attempt send(@Nonnull Endpoint endpoint) {
+            long startedAt = nanoClock.getAsLong();
+            try {
+                ClientHttpRequest request = transport.getRequestFactory().createRequest(endpoint.resolve(uri), httpMethod);
+                request.getHeaders().putAll(headers);
+                if (body.size() > 0) body.writeTo(request.getBody());
+                ClientHttpResponse response = request.execute();
+                if (response.getRawStatusCode() >= 500) {
+                    endpoint.onFailure();
+                    return new Attempt(response, null, false);
+                }
+                long latencyNanos = nanoClock.getAsLong() - startedAt;
+                endpoint.onSuccess(latencyNanos);
+                recordLatency(latencyNanos);
+                return new Attempt(response, null, true);
+            } catch (IOException e) {
+                endpoint.onFailure();
+                return new Attempt(null, e, false);
+            } catch (RuntimeException e) {
+                endpoint.onFailure();
+                return new Attempt(null, new IOException(e.getMessage(), e), false);
+            }
+        }
+
+        /**
+         * The response of the attempt, which may be a 5xx left to the client's error handling and retries
+         */
+        @Nonnull
+        private ClientHttpResponse unwrap(@Nonnull Attempt attempt) throws IOException {
+            if (attempt.error != null) throw attempt.error;
+            return attempt.response;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.commandk.javasdk.transport;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Tunables for a {@link MultiEndpointHttpTransport}
+ */
+public class MultiEndpointHttpTransportOptions {
+
+    public static final int DEFAULT_EJECT_AFTER_FAILURES = 3;
+    public static final Duration DEFAULT_EJECTION_DURATION = Duration.ofSeconds(30);
+    public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MIN_HEDGE_DELAY = Duration.ofMillis(10);
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+
+    private int ejectAfterFailures = DEFAULT_EJECT_AFTER_FAILURES;
+    @Nonnull
+    private Duration ejectionDuration = DEFAULT_EJECTION_DURATION;
+    private boolean hedging;
+    private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+    @Nonnull
+    private Duration minHedgeDelay = DEFAULT_MIN_HEDGE_DELAY;
+    private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+
+    /**
+     * Number of consecutive failures, I/O errors or 5xx responses, after which an endpoint stops receiving requests
+     * for the {@link #ejectionDuration(Duration) ejection duration}
+     */
+    public MultiEndpointHttpTransportOptions ejectAfterFailures(int ejectAfterFailures) {
+        if (ejectAfterFailures <= 0) {
+            throw new IllegalArgumentException("ejectAfterFailures must be positive");
+        }
+        this.ejectAfterFailures = ejectAfterFailures;
+        return this;
+    }
+
+    public MultiEndpointHttpTransportOptions ejectionDuration(@Nonnull Duration ejectionDuration) {
+        if (ejectionDuration == null || ejectionDuration.isNegative() || ejectionDuration.isZero()) {
+            throw new IllegalArgumentException("ejectionDuration must be positive");
+        }
+        this.ejectionDuration = ejectionDuration;
+        return this;
+    }
+
+    /**
+     * Sends a second request for a read to another endpoint when the first one hasn't answered within the given
+     * percentile of recent latencies, e.g. {@code 0.95}, and uses whichever answers first. Hedges never exceed
+     * {@link #maxHedgeRatio(double) a share} of the requests.
+     */
+    public MultiEndpointHttpTransportOptions hedging(double hedgePercentile) {
+        if (!(hedgePercentile > 0 && hedgePercentile < 1)) {
+            throw new IllegalArgumentException("hedgePercentile must be between 0 and 1");
+        }
+        this.hedging = true;
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    /**
+     * The shortest wait before a hedge, however fast recent requests were
+     */
+    public MultiEndpointHttpTransportOptions minHedgeDelay(@Nonnull Duration minHedgeDelay) {
+        if (minHedgeDelay == null || minHedgeDelay.isNegative()) {
+            throw new IllegalArgumentException("minHedgeDelay must not be negative");
+        }
+        this.minHedgeDelay = minHedgeDelay;
+        return this;
+    }
+
+    /**
+     * The largest share of requests that may be hedged, so that a slow host doesn't get up to twice the load
+     */
+    public MultiEndpointHttpTransportOptions maxHedgeRatio(double maxHedgeRatio) {
+        if (!(maxHedgeRatio > 0 && maxHedgeRatio <= 1)) {
+            throw new IllegalArgumentException("maxHedgeRatio must be greater than 0 and at most 1");
+        }
+        this.maxHedgeRatio = maxHedgeRatio;
+        return this;
+    }
+
+    public int getEjectAfterFailures() { return ejectAfterFailures; }
+
+    @Nonnull
+    public Duration getEjectionDuration() { return ejectionDuration; }
+
+    public boolean isHedging() { return hedging; }
+
+    public double getHedgePercentile() { return hedgePercentile; }
+
+    @Nonnull
+    public Duration getMinHedgeDelay() { return minHedgeDelay; }
+
+    public double getMaxHedgeRatio() { return maxHedgeRatio; }
+}
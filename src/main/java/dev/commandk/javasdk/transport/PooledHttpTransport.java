@@ -0,0 +1,99 @@
+package dev.commandk.javasdk.transport;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link HttpTransport} backed by a pool of kept-alive Apache HttpClient connections, so that consecutive
+ * requests to the same host skip the TCP and TLS handshakes. Idle and expired connections are evicted by a daemon
+ * thread.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    private static final long VALIDATE_AFTER_INACTIVITY_MILLIS = 2_000;
+
+    @Nonnull
+    private final CloseableHttpClient httpClient;
+    @Nonnull
+    private final HttpComponentsClientHttpRequestFactory requestFactory;
+    private final boolean shared;
+
+    public PooledHttpTransport() {
+        this(new PooledHttpTransportOptions());
+    }
+
+    public PooledHttpTransport(@Nonnull PooledHttpTransportOptions options) {
+        this(options, false);
+    }
+
+    private PooledHttpTransport(@Nonnull PooledHttpTransportOptions options, boolean shared) {
+        if (options == null) {
+            throw new IllegalArgumentException("options is null");
+        }
+        long keepAliveMillis = options.getKeepAlive().toMillis();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(options.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity((int) VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) options.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) options.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) options.getConnectionRequestTimeout().toMillis())
+                .build();
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long hostKeepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return hostKeepAliveMillis > 0 ? Math.min(hostKeepAliveMillis, keepAliveMillis) : keepAliveMillis;
+        };
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .disableCookieManagement()
+                .build();
+        this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        this.shared = shared;
+    }
+
+    /**
+     * The transport used by clients that aren't configured with one. It lives as long as the process and closing it
+     * has no effect.
+     */
+    public static @Nonnull PooledHttpTransport shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    @Override
+    public @Nonnull ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    @Override
+    public void close() {
+        if (shared) return;
+        try {
+            httpClient.close();
+        } catch (IOException ignored) {
+            // Nothing useful can be done about a failure to release pooled connections
+        }
+    }
+
+    private static class SharedHolder {
+        static final PooledHttpTransport INSTANCE = new PooledHttpTransport(new PooledHttpTransportOptions(), true);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.commandk.javasdk.transport;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Tunables for a {@link PooledHttpTransport}
+ */
+public class PooledHttpTransportOptions {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_CONNECTION_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(1);
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 16;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 64;
+
+    @Nonnull
+    private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    @Nonnull
+    private Duration readTimeout = DEFAULT_READ_TIMEOUT;
+    @Nonnull
+    private Duration connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+    @Nonnull
+    private Duration keepAlive = DEFAULT_KEEP_ALIVE;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+
+    /**
+     * Maximum time to establish a TCP (and TLS) connection
+     */
+    public PooledHttpTransportOptions connectTimeout(@Nonnull Duration connectTimeout) {
+        this.connectTimeout = requirePositive(connectTimeout, "connectTimeout");
+        return this;
+    }
+
+    /**
+     * Maximum time to wait for data on an open connection
+     */
+    public PooledHttpTransportOptions readTimeout(@Nonnull Duration readTimeout) {
+        this.readTimeout = requirePositive(readTimeout, "readTimeout");
+        return this;
+    }
+
+    /**
+     * Maximum time to wait for a free connection from the pool
+     */
+    public PooledHttpTransportOptions connectionRequestTimeout(@Nonnull Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = requirePositive(connectionRequestTimeout, "connectionRequestTimeout");
+        return this;
+    }
+
+    /**
+     * How long an idle connection is kept open for reuse, unless the host asks for less with a
+     * {@code Keep-Alive} header
+     */
+    public PooledHttpTransportOptions keepAlive(@Nonnull Duration keepAlive) {
+        this.keepAlive = requirePositive(keepAlive, "keepAlive");
+        return this;
+    }
+
+    public PooledHttpTransportOptions maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        if (maxConnectionsPerRoute <= 0) {
+            throw new IllegalArgumentException("maxConnectionsPerRoute must be positive");
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }
+
+    public PooledHttpTransportOptions maxConnectionsTotal(int maxConnectionsTotal) {
+        if (maxConnectionsTotal <= 0) {
+            throw new IllegalArgumentException("maxConnectionsTotal must be positive");
+        }
+        this.maxConnectionsTotal = maxConnectionsTotal;
+        return this;
+    }
+
+    @Nonnull
+    public Duration getConnectTimeout() { return connectTimeout; }
+
+    @Nonnull
+    public Duration getReadTimeout() { return readTimeout; }
+
+    @Nonnull
+    public Duration getConnectionRequestTimeout() { return connectionRequestTimeout; }
+
+    @Nonnull
+    public Duration getKeepAlive() { return keepAlive; }
+
+    public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+
+    public int getMaxConnectionsTotal() { return maxConnectionsTotal; }
+
+    private static Duration requirePositive(Duration duration, String name) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException(String.format("%s must be positive", name));
+        }
+        return duration;
+    }
+}
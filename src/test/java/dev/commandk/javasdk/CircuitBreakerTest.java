@@ -0,0 +1,79 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.HostResponseException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+
+    AtomicLong clock = new AtomicLong();
+    CircuitBreaker circuitBreaker = new CircuitBreaker(3, TimeUnit.SECONDS.toNanos(10), clock::get);
+    RuntimeException failure = new HostResponseException(503);
+
+    @Test
+    public void tryAcquire_afterThresholdOfConsecutiveFailures_refusesUntilOpenDurationPasses() {
+        circuitBreaker.onFailure(failure);
+        circuitBreaker.onFailure(failure);
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure(failure);
+        circuitBreaker.onFailure(failure);
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onFailure(failure);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        // Only one probe at a time
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void probe_whenItFails_reopensAndWhenItSucceeds_closes() {
+        for (int i = 0; i < 3; i++) circuitBreaker.onFailure(failure);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onFailure(failure);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void forHost_sharesOneBreakerPerHostAndSettings() {
+        CircuitBreaker hostBreaker = CircuitBreaker.forHost("https://shared.commandk.dev", 3, 10);
+
+        assertSame(hostBreaker, CircuitBreaker.forHost("https://shared.commandk.dev", 3, 10));
+        assertNotSame(hostBreaker, CircuitBreaker.forHost("https://other.commandk.dev", 3, 10));
+        assertNotSame(hostBreaker, CircuitBreaker.forHost("https://shared.commandk.dev", 5, 10));
+    }
+
+    @Test
+    public void backoffNanos_isJitteredWithinTheCappedExponentialBound() {
+        RetryPolicy retryPolicy = new RetryPolicy().initialBackoff(Duration.ofMillis(100)).maxBackoff(Duration.ofMillis(300)).multiplier(2);
+
+        for (int i = 0; i < 1000; i++) {
+            long first = retryPolicy.backoffNanos(1);
+            long third = retryPolicy.backoffNanos(3);
+            assertTrue(first >= 0 && first <= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(third >= 0 && third <= TimeUnit.MILLISECONDS.toNanos(300));
+        }
+    }
+}
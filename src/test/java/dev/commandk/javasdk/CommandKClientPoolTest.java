@@ -0,0 +1,48 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandKClientPoolTest {
+
+    @Test
+    public void getClient_returnsOneClientPerHostAndToken() {
+        try (CommandKClientPool commandKClientPool = new CommandKClientPool()) {
+            CommandKClient client = commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-1"));
+
+            assertSame(client, commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-1")));
+            assertNotSame(client, commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-2")));
+            assertNotSame(client, commandKClientPool.getClient(new CommandKCredentials("http://host-2", "token-1")));
+            assertEquals(3, commandKClientPool.size());
+        }
+    }
+
+    @Test
+    public void removeClient_dropsOnlyThatTenant() {
+        try (CommandKClientPool commandKClientPool = new CommandKClientPool()) {
+            CommandKClient client = commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-1"));
+            CommandKClient other = commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-2"));
+
+            assertTrue(commandKClientPool.removeClient(new CommandKCredentials("http://host-1", "token-1")));
+            assertFalse(commandKClientPool.removeClient(new CommandKCredentials("http://host-1", "token-1")));
+
+            assertEquals(1, commandKClientPool.size());
+            assertSame(other, commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-2")));
+            assertNotSame(client, commandKClientPool.getClient(new CommandKCredentials("http://host-1", "token-1")));
+        }
+    }
+
+    @Test
+    public void tenantOf_doesNotContainToken() {
+        String tenant = CommandKClientPool.tenantOf(new CommandKCredentials("http://host", "secret-token"));
+
+        assertFalse(tenant.contains("secret-token"));
+        assertEquals(tenant, CommandKClientPool.tenantOf(new CommandKCredentials("http://host", "secret-token")));
+    }
+}
@@ -4,11 +4,17 @@ import dev.commandk.javasdk.api.SdkApi;
 import dev.commandk.javasdk.common.Headers;
 import dev.commandk.javasdk.credential.CommandKCredentials;
 import dev.commandk.javasdk.credential.CommandKCredentialsProvider;
+import dev.commandk.javasdk.credential.RefreshableCredentialsProvider;
+import dev.commandk.javasdk.exception.CircuitOpenException;
 import dev.commandk.javasdk.exception.ClientException;
 import dev.commandk.javasdk.exception.ConfigException;
+import dev.commandk.javasdk.exception.HostResponseException;
 import dev.commandk.javasdk.exception.ResponseNotModifiedException;
 import dev.commandk.javasdk.kvstore.KVStore;
 import dev.commandk.javasdk.kvstore.KVStoreFactory;
+import dev.commandk.javasdk.metrics.MetricsRecorder;
+import dev.commandk.javasdk.metrics.Operation;
+import dev.commandk.javasdk.metrics.Outcome;
 import dev.commandk.javasdk.models.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -18,16 +24,30 @@ import org.junit.platform.commons.util.ReflectionUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import dev.commandk.javasdk.transport.HttpTransport;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.lang.reflect.Field;
+import java.net.URI;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -119,6 +139,105 @@ public class CommandKClientTest {
         });
     }
 
+    @Test
+    public void CommandKClientTest_customTransport_sendsRequestsThroughItAndKeepsErrorHandling() throws Exception {
+        ClientHttpResponse clientHttpResponseMock = mock(ClientHttpResponse.class);
+        lenient().when(clientHttpResponseMock.getStatusCode()).thenReturn(HttpStatus.BAD_GATEWAY);
+        lenient().when(clientHttpResponseMock.getRawStatusCode()).thenReturn(HttpStatus.BAD_GATEWAY.value());
+        lenient().when(clientHttpResponseMock.getHeaders()).thenReturn(new HttpHeaders());
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        ClientHttpRequest clientHttpRequestMock = mock(ClientHttpRequest.class);
+        lenient().when(clientHttpRequestMock.getHeaders()).thenReturn(requestHeaders);
+        when(clientHttpRequestMock.execute()).thenReturn(clientHttpResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(any(URI.class), eq(HttpMethod.GET))).thenReturn(clientHttpRequestMock);
+
+        CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+        when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("http://localhost", "token"));
+        KVStoreFactory kvStoreFactoryMock = mock(KVStoreFactory.class);
+        when(kvStoreFactoryMock.getStore()).thenReturn(mock(KVStore.class));
+
+        CommandKClient commandKClient = new CommandKClient(
+                kvStoreFactoryMock,
+                commandKCredentialsProviderMock,
+                new CommandKClientOptions().transport(HttpTransport.of(clientHttpRequestFactoryMock)).retryPolicy(RetryPolicy.none())
+        );
+
+        ClientException clientException = assertThrows(ClientException.class, () -> {
+            commandKClient.getRenderedAppSecrets("catalogAppId", "environment", null);
+        });
+
+        assertTrue(clientException.getMessage().contains("Response from host: 502"));
+        verify(clientHttpRequestFactoryMock).createRequest(any(URI.class), eq(HttpMethod.GET));
+    }
+
+    @Test
+    public void CommandKClientTest_updateCredentials_sendsFollowingRequestsWithNewTokenAndRejectsOtherHost() throws Exception {
+        ClientHttpResponse clientHttpResponseMock = mock(ClientHttpResponse.class);
+        lenient().when(clientHttpResponseMock.getStatusCode()).thenReturn(HttpStatus.BAD_GATEWAY);
+        lenient().when(clientHttpResponseMock.getRawStatusCode()).thenReturn(HttpStatus.BAD_GATEWAY.value());
+        lenient().when(clientHttpResponseMock.getHeaders()).thenReturn(new HttpHeaders());
+
+        HttpHeaders requestHeaders = new HttpHeaders();
+        ClientHttpRequest clientHttpRequestMock = mock(ClientHttpRequest.class);
+        lenient().when(clientHttpRequestMock.getHeaders()).thenReturn(requestHeaders);
+        when(clientHttpRequestMock.execute()).thenReturn(clientHttpResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(any(URI.class), eq(HttpMethod.GET))).thenReturn(clientHttpRequestMock);
+
+        CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+        when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("http://localhost", "old-token"));
+        KVStoreFactory kvStoreFactoryMock = mock(KVStoreFactory.class);
+        when(kvStoreFactoryMock.getStore()).thenReturn(mock(KVStore.class));
+
+        CommandKClient commandKClient = new CommandKClient(
+                kvStoreFactoryMock,
+                commandKCredentialsProviderMock,
+                new CommandKClientOptions().transport(HttpTransport.of(clientHttpRequestFactoryMock)).retryPolicy(RetryPolicy.none())
+        );
+
+        commandKClient.updateCredentials(new CommandKCredentials("http://localhost", "new-token"));
+        assertThrows(ConfigException.class, () -> {
+            commandKClient.updateCredentials(new CommandKCredentials("http://elsewhere", "other-token"));
+        });
+        assertThrows(ClientException.class, () -> {
+            commandKClient.getRenderedAppSecrets("catalogAppId", "environment", null);
+        });
+
+        assertEquals("Bearer new-token", requestHeaders.getFirst("Authorization"));
+    }
+
+    @Test
+    public void CommandKClientTest_construction_defersCreatingTransportToFirstCall() throws Exception {
+        HttpTransport httpTransportMock = mock(HttpTransport.class);
+        CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+        when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("http://localhost", "token"));
+        KVStoreFactory kvStoreFactoryMock = mock(KVStoreFactory.class);
+        when(kvStoreFactoryMock.getStore()).thenReturn(mock(KVStore.class));
+
+        new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock, new CommandKClientOptions().transport(httpTransportMock));
+
+        verify(httpTransportMock, never()).getRequestFactory();
+    }
+
+    @Test
+    public void CommandKClientTest_close_unregistersFromRefreshableCredentialsProvider() throws Exception {
+        RefreshableCredentialsProvider refreshableCredentialsProviderMock = mock(RefreshableCredentialsProvider.class);
+        when(refreshableCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("http://localhost", "token"));
+        KVStoreFactory kvStoreFactoryMock = mock(KVStoreFactory.class);
+        when(kvStoreFactoryMock.getStore()).thenReturn(mock(KVStore.class));
+        ArgumentCaptor<Consumer<CommandKCredentials>> refreshListenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+
+        CommandKClient commandKClient = new CommandKClient(kvStoreFactoryMock, refreshableCredentialsProviderMock, new CommandKClientOptions());
+        verify(refreshableCredentialsProviderMock).addRefreshListener(refreshListenerCaptor.capture());
+        commandKClient.close();
+
+        verify(refreshableCredentialsProviderMock).removeRefreshListener(refreshListenerCaptor.getValue());
+    }
+
     @Nested
     public class RenderedAppSecrets {
         @Captor
@@ -136,7 +255,8 @@ public class CommandKClientTest {
 
         @BeforeEach
         public void setup() throws IllegalAccessException {
-            when(sdkApiMock.getEnvironmentsWithHttpInfo(null, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(environmentDescriptors), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(environmentDescriptors), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, environmentId)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
 
             when(kvStoreMock.get(any(Object.class))).thenReturn(Optional.empty());
             when(kvStoreFactoryMock.getStore()).thenReturn(kvStoreMock);
@@ -269,5 +389,711 @@ public class CommandKClientTest {
             verify(sdkApiMock).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", secretNameFilter);
         }
 
+        @Test
+        public void getRenderedAppSecrets_whenFreshFullSnapshotIsCached_projectsQueriedSecretsWithoutRequest() throws Exception {
+
+            // Setup
+            RenderedAppSecret cachedRenderedAppSecret1 = new RenderedAppSecret().key("secret1").serializedValue("serializedValue1").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret cachedRenderedAppSecret2 = new RenderedAppSecret().key("secret2").serializedValue("serializedValue2").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret cachedRenderedAppSecret3 = new RenderedAppSecret().key("secret3").serializedValue("serializedValue3").secretId("secret3Id").valueType(RenderedAppSecretValueType.STRING);
+            List<RenderedAppSecret> cachedRenderedAppSecrets = Arrays.asList(cachedRenderedAppSecret1, cachedRenderedAppSecret2, cachedRenderedAppSecret3);
+
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+
+            // Test
+            List<RenderedAppSecret> renderedAppSecrets = commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, Arrays.asList("secret3", "secret1", "missing"));
+
+            assertEquals(Arrays.asList(cachedRenderedAppSecret1, cachedRenderedAppSecret3), renderedAppSecrets);
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getSecret_whenFreshFullSnapshotIsCached_looksUpKeyWithoutRequest() throws Exception {
+
+            // Setup
+            RenderedAppSecret cachedRenderedAppSecret = new RenderedAppSecret().key("secret1").serializedValue("serializedValue1").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", Collections.singletonList(cachedRenderedAppSecret))));
+
+            // Test
+            assertEquals(Optional.of(cachedRenderedAppSecret), commandKClient.getSecret(catalogAppId, environmentName, "secret1"));
+            assertEquals(Optional.empty(), commandKClient.getSecret(catalogAppId, environmentName, "missing"));
+            assertSame(commandKClient.getSecretSnapshot(catalogAppId, environmentName), commandKClient.getSecretSnapshot(catalogAppId, environmentId));
+
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_withMetricsRecorder_recordsOutcomesAndCacheLookups() throws Exception {
+
+            // Setup
+            List<String> recordedCalls = new ArrayList<>();
+            List<Boolean> recordedLookups = new ArrayList<>();
+            MetricsRecorder metricsRecorder = new MetricsRecorder() {
+                @Override
+                public void recordCall(Operation operation, Outcome outcome, long durationNanos) {
+                    recordedCalls.add(operation.getOperationName() + ":" + outcome);
+                }
+
+                @Override
+                public void recordCacheLookup(boolean hit) {
+                    recordedLookups.add(hit);
+                }
+            };
+
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(emptyList()), new HttpHeaders() {{
+                        add(Headers.E_TAG, "etag");
+                    }}, HttpStatus.OK))
+                    .thenThrow(new ResponseNotModifiedException())
+                    .thenThrow(new ClientException("Response from host: 500"));
+
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("", ""));
+            commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock, new CommandKClientOptions().metricsRecorder(metricsRecorder));
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId)))
+                    .thenReturn(Optional.empty())
+                    .thenReturn(Optional.of(new CommandKResponse("etag", emptyList())));
+
+            // Test
+            commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            assertThrows(ClientException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+
+            assertEquals(Arrays.asList("getEnvironments:OK", "getRenderedAppSecrets:OK", "getRenderedAppSecrets:NOT_MODIFIED", "getRenderedAppSecrets:ERROR"), recordedCalls);
+            assertEquals(Arrays.asList(false, true, true), recordedLookups);
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenCachedFullSnapshotIsStale_revalidatesSnapshotAndProjectsQueriedSecrets() throws Exception {
+
+            // Setup
+            String cachedEtag = "etag";
+            RenderedAppSecret cachedRenderedAppSecret1 = new RenderedAppSecret().key("secret1").serializedValue("serializedValue1").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret cachedRenderedAppSecret2 = new RenderedAppSecret().key("secret2").serializedValue("serializedValue2").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+            CommandKResponse cachedFullSnapshot = new CommandKResponse(cachedEtag, Arrays.asList(cachedRenderedAppSecret1, cachedRenderedAppSecret2));
+
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(cachedFullSnapshot));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new ResponseNotModifiedException());
+
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("", ""));
+            commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock, new CommandKClientOptions().snapshotMaxAge(Duration.ZERO));
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+
+            // Test
+            List<RenderedAppSecret> renderedAppSecrets = commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, Collections.singletonList("secret2"));
+
+            assertEquals(Collections.singletonList(cachedRenderedAppSecret2), renderedAppSecrets);
+            verify(sdkApiMock).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, cachedEtag, emptyList());
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), eq(Collections.singletonList("secret2")));
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostReturnsOlderVersionThanCached_keepsAndReturnsCachedResponse() throws Exception {
+
+            // Setup
+            RenderedAppSecret cachedRenderedAppSecret = new RenderedAppSecret().key("key").serializedValue("newerValue").secretId("secretId").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret returnedRenderedAppSecret = new RenderedAppSecret().key("key").serializedValue("olderValue").secretId("secretId").valueType(RenderedAppSecretValueType.STRING);
+            GetRenderedAppSecretsRequest getRenderedAppSecretsRequest = new GetRenderedAppSecretsRequest(catalogAppId, environmentId);
+
+            when(kvStoreMock.get(getRenderedAppSecretsRequest)).thenReturn(Optional.of(new CommandKResponse("etag-5", Collections.singletonList(cachedRenderedAppSecret), "changelog-5", 5L, "digest-5")));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().changelogId("changelog-4").incrementalId(4L).secretDigest("digest-4").secrets(Collections.singletonList(returnedRenderedAppSecret)), new HttpHeaders() {{
+                add(Headers.E_TAG, "etag-4");
+            }}, HttpStatus.OK));
+
+            // Test
+            List<RenderedAppSecret> renderedAppSecrets = commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+
+            assertEquals(Collections.singletonList(cachedRenderedAppSecret), renderedAppSecrets);
+            verify(kvStoreMock).get(getRenderedAppSecretsRequest);
+            verify(kvStoreMock, never()).set(any(), any());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostReturnsIdenticalPayload_doesNotStoreItAgain() throws Exception {
+
+            // Setup
+            RenderedAppSecret cachedRenderedAppSecret = new RenderedAppSecret().key("key").serializedValue("value").secretId("secretId").valueType(RenderedAppSecretValueType.STRING);
+            CommandKResponse cachedResponse = new CommandKResponse("etag", Collections.singletonList(cachedRenderedAppSecret), "changelog-1", 1L, "digest");
+
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(cachedResponse));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().changelogId("changelog-1").incrementalId(1L).secretDigest("digest").secrets(Collections.singletonList(cachedRenderedAppSecret)), new HttpHeaders() {{
+                add(Headers.E_TAG, "etag");
+            }}, HttpStatus.OK));
+
+            // Test
+            assertSame(cachedResponse.getResponse(), commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(kvStoreMock, never()).set(any(), any());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenCalledRepeatedly_resolvesEnvironmentsOnlyOnce() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(emptyList()), new HttpHeaders() {{
+                add(Headers.E_TAG, "etag");
+            }}, HttpStatus.OK));
+
+            // Test
+            commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            commandKClient.getRenderedAppSecrets(catalogAppId, environmentId, null);
+
+            verify(sdkApiMock, times(1)).getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null);
+            verify(sdkApiMock, times(2)).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList());
+        }
+
+        @Test
+        public void getRenderedAppSecretsAsync_whenIdenticalFetchIsInFlight_sharesOneRequestAndResult() throws Exception {
+
+            // Setup
+            List<RenderedAppSecret> returnedRenderedAppSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("serializedValue").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+            CountDownLatch requestStarted = new CountDownLatch(1);
+            CountDownLatch releaseResponse = new CountDownLatch(1);
+
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenAnswer(invocation -> {
+                requestStarted.countDown();
+                releaseResponse.await();
+                return new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(returnedRenderedAppSecrets), new HttpHeaders() {{
+                    add(Headers.E_TAG, "etag");
+                }}, HttpStatus.OK);
+            });
+
+            // Test
+            CompletableFuture<List<RenderedAppSecret>> first = commandKClient.getRenderedAppSecretsAsync(catalogAppId, environmentName, null);
+            assertTrue(requestStarted.await(5, TimeUnit.SECONDS));
+            CompletableFuture<List<RenderedAppSecret>> second = commandKClient.getRenderedAppSecretsAsync(catalogAppId, environmentName, null);
+            CompletableFuture<List<RenderedAppSecret>> third = commandKClient.getRenderedAppSecretsAsync(catalogAppId, environmentName, emptyList());
+            releaseResponse.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertSame(first.get(5, TimeUnit.SECONDS), third.get(5, TimeUnit.SECONDS));
+            verify(sdkApiMock, times(1)).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenBatchContainsFailingKey_reportsErrorOnlyForThatKey() throws Exception {
+
+            // Setup
+            List<RenderedAppSecret> returnedRenderedAppSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("serializedValue").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(eq("app1"), anyString(), any(), anyString(), anyList())).thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(returnedRenderedAppSecrets), new HttpHeaders() {{
+                add(Headers.E_TAG, "etag");
+            }}, HttpStatus.OK));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(eq("app2"), anyString(), any(), anyString(), anyList())).thenThrow(new ClientException("Response from host: 500"));
+
+            AppEnvKey app1 = new AppEnvKey("app1", environmentName);
+            AppEnvKey app2 = new AppEnvKey("app2", environmentName);
+            AppEnvKey unknownEnvironment = new AppEnvKey("app1", "no-such-environment");
+
+            // Test
+            Map<AppEnvKey, RenderedAppSecretsResult> results = commandKClient.getRenderedAppSecrets(Arrays.asList(app1, app2, unknownEnvironment, app1));
+
+            assertEquals(Arrays.asList(app1, app2, unknownEnvironment), new ArrayList<>(results.keySet()));
+            assertTrue(results.get(app1).isSuccess());
+            assertEquals(returnedRenderedAppSecrets, results.get(app1).getSecrets());
+            assertEquals("Response from host: 500", results.get(app2).getError().getMessage());
+            assertEquals("No such environment was found", results.get(unknownEnvironment).getError().getMessage());
+
+            verify(sdkApiMock, times(1)).getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null);
+            verify(sdkApiMock, times(1)).getRenderedAppSecretsWithHttpInfo(eq("app1"), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenEnvironmentDoesNotExist_throwClientException() throws Exception {
+
+            // Test
+            ClientException clientException = assertThrows(ClientException.class, () -> {
+                commandKClient.getRenderedAppSecrets(catalogAppId, "no-such-environment", null);
+            });
+
+            assertEquals(clientException.getMessage(), "No such environment was found");
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+    }
+
+    @Nested
+    public class Watcher {
+        String catalogAppId = "catalogAppId";
+        String environmentName = "environment-name";
+        String environmentId = "environment-id";
+        List<EnvironmentDescriptor> environmentDescriptors = Collections.singletonList(new EnvironmentDescriptor().id(environmentId).name(environmentName).slug(environmentName).label("any-label"));
+
+        SdkApi sdkApiMock = mock(SdkApi.class);
+        KVStore<Object, CommandKResponse> kvStoreMock = mock(KVStore.class);
+        KVStoreFactory<Object, CommandKResponse> kvStoreFactoryMock = mock(KVStoreFactory.class);
+
+        CommandKClient commandKClient;
+
+        @BeforeEach
+        public void setup() throws IllegalAccessException {
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(environmentDescriptors), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, environmentId)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
+
+            when(kvStoreMock.get(any(Object.class))).thenReturn(Optional.empty());
+            when(kvStoreFactoryMock.getStore()).thenReturn(kvStoreMock);
+
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("", ""));
+
+            commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock);
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+        }
+
+        private ResponseEntity<RenderedAppSecretsResponse> response(String changelogId, long incrementalId, List<RenderedAppSecret> secrets) {
+            return new ResponseEntity<>(new RenderedAppSecretsResponse().changelogId(changelogId).incrementalId(incrementalId).secretDigest("digest-" + changelogId).secrets(secrets), new HttpHeaders() {{
+                add(Headers.E_TAG, changelogId);
+            }}, HttpStatus.OK);
+        }
+
+        @Test
+        public void poll_whenChangelogDoesNotMove_listenerIsNotNotifiedAgain() throws Exception {
+
+            // Setup
+            List<RenderedAppSecret> initialSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("value1").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+            List<RenderedAppSecret> rotatedSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("value2").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenReturn(response("changelog-1", 1L, initialSecrets))
+                    .thenReturn(response("changelog-1", 1L, initialSecrets))
+                    .thenReturn(response("changelog-2", 2L, rotatedSecrets));
+
+            List<List<RenderedAppSecret>> notifications = new ArrayList<>();
+            SecretsWatcher secretsWatcher = new SecretsWatcher(commandKClient, catalogAppId, environmentName, null, notifications::add);
+
+            // Test
+            secretsWatcher.poll();
+            secretsWatcher.poll();
+            assertEquals(Collections.singletonList(initialSecrets), notifications);
+
+            secretsWatcher.poll();
+            assertEquals(Arrays.asList(initialSecrets, rotatedSecrets), notifications);
+            assertEquals(rotatedSecrets, secretsWatcher.getSecrets());
+
+            secretsWatcher.close();
+        }
+
+        @Test
+        public void poll_whenFetchFails_listenerReceivesErrorAndKeepsLastSecrets() throws Exception {
+
+            // Setup
+            List<RenderedAppSecret> initialSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("value1").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenReturn(response("changelog-1", 1L, initialSecrets))
+                    .thenThrow(new ClientException("Response from host: 502"));
+
+            List<ClientException> errors = new ArrayList<>();
+            SecretsWatcher secretsWatcher = new SecretsWatcher(commandKClient, catalogAppId, environmentName, null, new SecretsChangeListener() {
+                @Override
+                public void onChange(List<RenderedAppSecret> renderedAppSecrets) {}
+
+                @Override
+                public void onError(ClientException clientException) {
+                    errors.add(clientException);
+                }
+            });
+
+            // Test
+            secretsWatcher.poll();
+            secretsWatcher.poll();
+
+            assertEquals(1, errors.size());
+            assertEquals("Response from host: 502", errors.get(0).getMessage());
+            assertEquals(initialSecrets, secretsWatcher.getSecrets());
+
+            secretsWatcher.close();
+        }
+
+        @Test
+        public void poll_whenHostAsksToRetryLater_waitsAtLeastThatLong() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenThrow(new HostResponseException(429, Duration.ofMinutes(5)));
+
+            SecretsWatcher secretsWatcher = new SecretsWatcher(commandKClient, catalogAppId, environmentName, null, renderedAppSecrets -> {});
+
+            // Test
+            assertTrue(secretsWatcher.poll() >= Duration.ofMinutes(5).toNanos());
+
+            secretsWatcher.close();
+        }
+    }
+
+    @Nested
+    public class Environments {
+        SdkApi sdkApiMock = mock(SdkApi.class);
+        KVStoreFactory<Object, CommandKResponse> kvStoreFactoryMock = mock(KVStoreFactory.class);
+
+        CommandKClient commandKClient;
+
+        @BeforeEach
+        public void setup() throws IllegalAccessException {
+            when(kvStoreFactoryMock.getStore()).thenReturn(mock(KVStore.class));
+
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("", ""));
+
+            commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock, new CommandKClientOptions().environmentsPageSize(2));
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+        }
+
+        @Test
+        public void getEnvironments_whenHostReturnsFullPages_followsCursorUntilEmptyPage() throws Exception {
+
+            // Setup
+            EnvironmentDescriptor environment1 = new EnvironmentDescriptor().id("id-1").name("name-1").slug("slug-1").label("label");
+            EnvironmentDescriptor environment2 = new EnvironmentDescriptor().id("id-2").name("name-2").slug("slug-2").label("label");
+            EnvironmentDescriptor environment3 = new EnvironmentDescriptor().id("id-3").name("name-3").slug("slug-3").label("label");
+
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Arrays.asList(environment1, environment2)), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, "id-2")).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(environment3)), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, "id-3")).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
+
+            // Test
+            List<EnvironmentDescriptor> environments = commandKClient.getEnvironments();
+
+            assertEquals(Arrays.asList(environment1, environment2, environment3), environments);
+            verify(sdkApiMock).getEnvironmentsWithHttpInfo(2, null, null);
+            verify(sdkApiMock).getEnvironmentsWithHttpInfo(2, null, "id-2");
+            verify(sdkApiMock).getEnvironmentsWithHttpInfo(2, null, "id-3");
+        }
+
+        @Test
+        public void getEnvironments_whenHostCapsPageSize_stillListsEveryEnvironment() throws Exception {
+
+            // Setup
+            EnvironmentDescriptor environment1 = new EnvironmentDescriptor().id("id-1").name("name-1").slug("slug-1").label("label");
+            EnvironmentDescriptor environment2 = new EnvironmentDescriptor().id("id-2").name("name-2").slug("slug-2").label("label");
+
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(environment1)), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, "id-1")).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(environment2)), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(2, null, "id-2")).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
+
+            // Test
+            assertEquals(Arrays.asList(environment1, environment2), commandKClient.getEnvironments());
+        }
+
+        @Test
+        public void getEnvironments_whenHostIgnoresCursor_stopsAtRepeatedPage() throws Exception {
+
+            // Setup
+            EnvironmentDescriptor environment1 = new EnvironmentDescriptor().id("id-1").name("name-1").slug("slug-1").label("label");
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(eq(2), isNull(), any())).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(environment1)), HttpStatus.OK));
+
+            // Test
+            assertEquals(Collections.singletonList(environment1), commandKClient.getEnvironments());
+            verify(sdkApiMock, times(2)).getEnvironmentsWithHttpInfo(eq(2), isNull(), any());
+        }
+    }
+
+    @Nested
+    public class Resilience {
+        String host = "https://" + UUID.randomUUID() + ".commandk.dev";
+        String catalogAppId = "catalogAppId";
+        String environmentName = "environment-name";
+        String environmentId = "environment-id";
+        List<RenderedAppSecret> cachedRenderedAppSecrets = Collections.singletonList(new RenderedAppSecret().key("key").serializedValue("serializedValue").secretId("secretId").valueType(RenderedAppSecretValueType.STRING));
+
+        SdkApi sdkApiMock = mock(SdkApi.class);
+        KVStore<Object, CommandKResponse> kvStoreMock = mock(KVStore.class);
+
+        @BeforeEach
+        public void setup() {
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(new EnvironmentDescriptor().id(environmentId).name(environmentName).slug(environmentName).label("any-label"))), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, environmentId)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
+            lenient().when(kvStoreMock.get(any(Object.class))).thenReturn(Optional.empty());
+        }
+
+        CommandKClient createClient(CommandKClientOptions options) throws IllegalAccessException {
+            KVStoreFactory<Object, CommandKResponse> kvStoreFactoryMock = mock(KVStoreFactory.class);
+            when(kvStoreFactoryMock.getStore()).thenReturn(kvStoreMock);
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            // A host of its own, since clients of a host share its circuit breaker
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials(host, ""));
+
+            CommandKClient commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock, options);
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+            return commandKClient;
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostFailsTransiently_retriesUntilSuccess() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenThrow(new HostResponseException(503))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(cachedRenderedAppSecrets), HttpStatus.OK));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().retryPolicy(new RetryPolicy().initialBackoff(Duration.ZERO)));
+
+            // Test
+            assertEquals(cachedRenderedAppSecrets, commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, times(2)).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostRejectsRequest_doesNotRetry() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(403));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().retryPolicy(new RetryPolicy().initialBackoff(Duration.ZERO)));
+
+            // Test
+            HostResponseException hostResponseException = assertThrows(HostResponseException.class, () -> {
+                commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            });
+            assertEquals(403, hostResponseException.getStatusCode());
+            verify(sdkApiMock, times(1)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostFailsWithinStaleIfError_returnCachedResponse() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(502));
+
+            CommandKClient staleIfErrorClient = createClient(new CommandKClientOptions().retryPolicy(RetryPolicy.none()).staleIfError(Duration.ofMinutes(5)));
+            CommandKClient strictClient = createClient(new CommandKClientOptions().retryPolicy(RetryPolicy.none()));
+
+            // Test
+            assertEquals(cachedRenderedAppSecrets, staleIfErrorClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertThrows(HostResponseException.class, () -> {
+                strictClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            });
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostIsUnreachable_returnsLastKnownGoodOnlyWhenEnabledAndWithinMaxAge() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new ResourceAccessException("Connection refused"));
+
+            CommandKClient defaultClient = createClient(new CommandKClientOptions().retryPolicy(RetryPolicy.none()));
+            CommandKClient lastKnownGoodClient = createClient(new CommandKClientOptions().retryPolicy(RetryPolicy.none()).serveLastKnownGoodWhenUnreachable(true));
+            CommandKClient expiredLastKnownGoodClient = createClient(new CommandKClientOptions()
+                    .retryPolicy(RetryPolicy.none())
+                    .serveLastKnownGoodWhenUnreachable(true)
+                    .lastKnownGoodMaxAge(Duration.ZERO));
+
+            // Test
+            assertThrows(ClientException.class, () -> defaultClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertEquals(cachedRenderedAppSecrets, lastKnownGoodClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertThrows(ClientException.class, () -> expiredLastKnownGoodClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenStaleWhileRevalidateAndCachedResponseIsYoung_returnCachedResponseWithoutRequest() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().staleWhileRevalidate(Duration.ofMinutes(5), Duration.ofMinutes(10)));
+
+            // Test
+            assertEquals(cachedRenderedAppSecrets, commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenStaleWhileRevalidateAndCachedResponseIsPastSoftTtl_returnCachedResponseAndRevalidatesInBackground() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new ResponseNotModifiedException());
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().staleWhileRevalidate(Duration.ZERO, Duration.ofMinutes(10)));
+
+            // Test
+            assertEquals(cachedRenderedAppSecrets, commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, timeout(5000)).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "etag", emptyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_afterConsecutiveFailures_failsFastWithoutRequest() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(500));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions()
+                    .retryPolicy(RetryPolicy.none())
+                    .circuitBreakerFailureThreshold(2)
+                    .circuitBreakerOpenDuration(Duration.ofMinutes(1)));
+
+            // Test
+            assertThrows(HostResponseException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertThrows(HostResponseException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertThrows(CircuitOpenException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+
+            verify(sdkApiMock, times(2)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenCircuitOpensWhileRetrying_throwsTheHostFailure() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(500));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions()
+                    .retryPolicy(new RetryPolicy().maxAttempts(3).initialBackoff(Duration.ZERO))
+                    .circuitBreakerFailureThreshold(2)
+                    .circuitBreakerOpenDuration(Duration.ofMinutes(1)));
+
+            // Test
+            HostResponseException hostResponseException = assertThrows(HostResponseException.class, () -> {
+                commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            });
+            assertEquals(500, hostResponseException.getStatusCode());
+            verify(sdkApiMock, times(2)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+
+            CircuitOpenException circuitOpenException = assertThrows(CircuitOpenException.class, () -> {
+                commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            });
+            assertSame(hostResponseException, circuitOpenException.getCause());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenRateLimited_doesNotOpenCircuit() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(429));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions()
+                    .retryPolicy(RetryPolicy.none())
+                    .circuitBreakerFailureThreshold(1)
+                    .circuitBreakerOpenDuration(Duration.ofMinutes(1)));
+
+            // Test
+            for (int i = 0; i < 3; i++) {
+                assertThrows(HostResponseException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            }
+            verify(sdkApiMock, times(3)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenHostAsksToRetryLaterThanMaxBackoff_doesNotRetry() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenThrow(new HostResponseException(503, Duration.ofMinutes(5)));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().retryPolicy(new RetryPolicy().initialBackoff(Duration.ZERO)));
+
+            // Test
+            assertThrows(HostResponseException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, times(1)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenCircuitWasOpenedByHostErrors_doesNotServeLastKnownGood() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets)));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList())).thenThrow(new HostResponseException(500));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions()
+                    .retryPolicy(RetryPolicy.none())
+                    .serveLastKnownGoodWhenUnreachable(true)
+                    .circuitBreakerFailureThreshold(1)
+                    .circuitBreakerOpenDuration(Duration.ofMinutes(1)));
+
+            // Test
+            assertThrows(HostResponseException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            assertThrows(CircuitOpenException.class, () -> commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenProbeShowsNoChange_returnsCachedResponseWithoutFullRendering() throws Exception {
+
+            // Setup
+            RenderingMode previewOnly = RenderingMode.fromValue("PreviewOnly");
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId)))
+                    .thenReturn(Optional.of(new CommandKResponse("etag", cachedRenderedAppSecrets, "changelog-7", 7L, "digest-7")));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(eq(catalogAppId), eq(environmentId), eq(previewOnly), anyString(), anyList()))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().changelogId("changelog-7").incrementalId(7L).secretDigest("digest-7"), HttpStatus.OK));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().changeProbes(true));
+
+            // Test
+            assertSame(cachedRenderedAppSecrets, commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), eq(RenderingMode.FULL), anyString(), anyList());
+            verify(kvStoreMock, never()).set(any(), any());
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenProbeShowsChangedSecrets_fetchesOnlyThoseAndMergesThem() throws Exception {
+
+            // Setup
+            RenderingMode previewOnly = RenderingMode.fromValue("PreviewOnly");
+            RenderedAppSecret unchanged = new RenderedAppSecret().key("key1").serializedValue("value1").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret rotated = new RenderedAppSecret().key("key2").serializedValue("value2").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret unchangedPreview = new RenderedAppSecret().key("key1").serializedValue("va****").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret rotatedPreview = new RenderedAppSecret().key("key2").serializedValue("va****").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret rotatedAgainPreview = new RenderedAppSecret().key("key2").serializedValue("ro****").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+            RenderedAppSecret rotatedAgain = new RenderedAppSecret().key("key2").serializedValue("rotated").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId)))
+                    .thenReturn(Optional.of(new CommandKResponse("etag", Arrays.asList(unchanged, rotated), "changelog-7", 7L, "digest-7")));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(eq(catalogAppId), eq(environmentId), eq(previewOnly), anyString(), anyList()))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(Arrays.asList(unchangedPreview, rotatedPreview)).changelogId("changelog-7").incrementalId(7L).secretDigest("digest-7"), HttpStatus.OK))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(Arrays.asList(unchangedPreview, rotatedAgainPreview)).changelogId("changelog-8").incrementalId(8L).secretDigest("digest-8"), HttpStatus.OK));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", Collections.singletonList("key2")))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(Collections.singletonList(rotatedAgain)).changelogId("changelog-8").incrementalId(8L).secretDigest("digest-of-key2"), HttpStatus.OK));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().changeProbes(true).fetchOnlyChangedSecrets(true));
+
+            // Test
+            commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+            List<RenderedAppSecret> renderedAppSecrets = commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null);
+
+            assertEquals(Arrays.asList(unchanged, rotatedAgain), renderedAppSecrets);
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), eq(RenderingMode.FULL), anyString(), eq(emptyList()));
+            // Stored without a version, so that nothing confirms the merge later
+            verify(kvStoreMock).set(eq(new GetRenderedAppSecretsRequest(catalogAppId, environmentId)), argThat(stored -> stored.getETag().isEmpty() && stored.getSecretDigest() == null && stored.getIncrementalId() == null));
+        }
+
+        @Test
+        public void getRenderedAppSecrets_whenCachedResponseWasMerged_fetchesFullRenderingWithoutProbe() throws Exception {
+
+            // Setup
+            when(kvStoreMock.get(new GetRenderedAppSecretsRequest(catalogAppId, environmentId))).thenReturn(Optional.of(new CommandKResponse("", cachedRenderedAppSecrets)));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList()))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(cachedRenderedAppSecrets).changelogId("changelog-8").incrementalId(8L).secretDigest("digest-8"), HttpStatus.OK));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions().changeProbes(true).fetchOnlyChangedSecrets(true));
+
+            // Test
+            assertEquals(cachedRenderedAppSecrets, commandKClient.getRenderedAppSecrets(catalogAppId, environmentName, null));
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), eq(RenderingMode.fromValue("PreviewOnly")), anyString(), anyList());
+        }
+
+        @Test
+        public void fetch_reportsWhetherSecretsChangedAndFailuresWithoutThrowing() throws Exception {
+
+            // Setup
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList()))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(cachedRenderedAppSecrets), new HttpHeaders() {{
+                        add(Headers.E_TAG, "etag");
+                    }}, HttpStatus.OK))
+                    .thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(cachedRenderedAppSecrets), new HttpHeaders() {{
+                        add(Headers.E_TAG, "etag");
+                    }}, HttpStatus.OK))
+                    .thenThrow(new HostResponseException(403));
+            CommandKClient commandKClient = createClient(new CommandKClientOptions());
+
+            // Test
+            FetchResult first = commandKClient.fetch(catalogAppId, environmentName, null, null);
+            assertEquals(FetchResult.Status.MODIFIED, first.getStatus());
+            assertEquals(cachedRenderedAppSecrets, first.getSecrets());
+
+            FetchResult second = commandKClient.fetch(catalogAppId, environmentName, null, first);
+            assertEquals(FetchResult.Status.NOT_MODIFIED, second.getStatus());
+
+            FetchResult third = commandKClient.fetch(catalogAppId, environmentName, null, second);
+            assertEquals(FetchResult.Status.ERROR, third.getStatus());
+            assertEquals(403, ((HostResponseException) third.getError()).getStatusCode());
+            assertEquals("etag", third.getETag());
+        }
     }
 }
@@ -0,0 +1,62 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FetchResultTest {
+
+    List<RenderedAppSecret> secrets = new ArrayList<>();
+
+    @Test
+    public void of_comparesWithPreviousResultByETagOrVersion() {
+        FetchResult first = FetchResult.of(new CommandKResponse("", secrets, "changelog-7", 7L, "digest-7"), null);
+        assertEquals(FetchResult.Status.MODIFIED, first.getStatus());
+
+        // Without ETags, the versions tell
+        assertEquals(FetchResult.Status.NOT_MODIFIED, FetchResult.of(new CommandKResponse("", secrets, "changelog-7", 7L, "digest-7"), first).getStatus());
+        assertEquals(FetchResult.Status.MODIFIED, FetchResult.of(new CommandKResponse("", secrets, "changelog-8", 8L, "digest-8"), first).getStatus());
+
+        FetchResult tagged = FetchResult.of(new CommandKResponse("etag", secrets), null);
+        assertEquals(FetchResult.Status.NOT_MODIFIED, FetchResult.of(new CommandKResponse("etag", secrets), tagged).getStatus());
+        assertEquals(FetchResult.Status.MODIFIED, FetchResult.of(new CommandKResponse("other-etag", secrets), tagged).getStatus());
+    }
+
+    @Test
+    public void failure_keepsPreviousVersionForTheNextComparison() {
+        FetchResult first = FetchResult.of(new CommandKResponse("etag", secrets, "changelog-7", 7L, null), null);
+        ClientException error = new ClientException("unreachable");
+
+        FetchResult failure = FetchResult.failure(error, first);
+
+        assertEquals(FetchResult.Status.ERROR, failure.getStatus());
+        assertThrows(ClientException.class, failure::getSecrets);
+        assertEquals(FetchResult.Status.NOT_MODIFIED, FetchResult.of(new CommandKResponse("etag", secrets, "changelog-7", 7L, null), failure).getStatus());
+    }
+
+    @Test
+    public void of_whenProjectionIsUnchanged_isNotModifiedByChangesToOtherSecrets() {
+        RenderedAppSecret watched = new RenderedAppSecret().key("watched").serializedValue("value").secretId("secretId1");
+        List<String> secretNames = Collections.singletonList("watched");
+        CommandKResponse full7 = new CommandKResponse("etag-7", Arrays.asList(watched, new RenderedAppSecret().key("other").serializedValue("old")), "changelog-7", 7L, "digest-7");
+        CommandKResponse full8 = new CommandKResponse("etag-8", Arrays.asList(watched, new RenderedAppSecret().key("other").serializedValue("new")), "changelog-8", 8L, "digest-8");
+        CommandKResponse full9 = new CommandKResponse("etag-9", Collections.singletonList(new RenderedAppSecret().key("watched").serializedValue("changed").secretId("secretId1")), "changelog-9", 9L, "digest-9");
+
+        FetchResult first = FetchResult.of(full7.project(secretNames), null);
+
+        assertEquals(FetchResult.Status.NOT_MODIFIED, FetchResult.of(full8.project(secretNames), first).getStatus());
+        assertFalse(SecretsWatcher.hasChanged(full7.project(secretNames), full8.project(secretNames)));
+        assertEquals(FetchResult.Status.MODIFIED, FetchResult.of(full9.project(secretNames), first).getStatus());
+        assertTrue(SecretsWatcher.hasChanged(full7.project(secretNames), full9.project(secretNames)));
+    }
+}
@@ -0,0 +1,62 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.common.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RefreshPolicyTest {
+
+    long second = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void nextIntervalNanos_backsOffWhileUnchangedAndResetsAfterChange() {
+        RefreshPolicy refreshPolicy = new RefreshPolicy().maxInterval(Duration.ofSeconds(100)).backoffMultiplier(3);
+
+        long interval = 10 * second;
+        interval = refreshPolicy.nextIntervalNanos(10 * second, interval, false);
+        assertEquals(30 * second, interval);
+        interval = refreshPolicy.nextIntervalNanos(10 * second, interval, false);
+        assertEquals(90 * second, interval);
+        interval = refreshPolicy.nextIntervalNanos(10 * second, interval, false);
+        assertEquals(100 * second, interval);
+        assertEquals(10 * second, refreshPolicy.nextIntervalNanos(10 * second, interval, true));
+
+        // Without a max interval, the interval stays fixed
+        assertEquals(10 * second, new RefreshPolicy().nextIntervalNanos(10 * second, 10 * second, false));
+    }
+
+    @Test
+    public void delayNanos_isJitteredAroundTheIntervalAndNeverShorterThanTheHostAsked() {
+        RefreshPolicy refreshPolicy = new RefreshPolicy().jitter(0.2);
+
+        long shortest = Long.MAX_VALUE, longest = 0;
+        for (int i = 0; i < 1_000; i++) {
+            long delay = refreshPolicy.delayNanos(10 * second, 0);
+            shortest = Math.min(shortest, delay);
+            longest = Math.max(longest, delay);
+        }
+        assertTrue(shortest >= 9 * second && longest <= 11 * second);
+        assertTrue(longest - shortest > second, "delays are spread over the jitter range");
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(refreshPolicy.delayNanos(10 * second, 60 * second) >= 60 * second);
+        }
+        assertTrue(new RefreshPolicy().honorHostHints(false).delayNanos(10 * second, 60 * second) <= 11 * second);
+        assertTrue(refreshPolicy.delayNanos(10 * second, TimeUnit.DAYS.toNanos(1)) <= RefreshPolicy.MAX_HOST_DELAY_NANOS * 2);
+    }
+
+    @Test
+    public void headers_parseMaxAgeAndRetryAfter() {
+        assertEquals(Duration.ofSeconds(120), Headers.maxAge("private, max-age=120"));
+        assertNull(Headers.maxAge("no-cache"));
+        assertEquals(Duration.ofSeconds(30), Headers.retryAfter("30"));
+        assertEquals(Duration.ZERO, Headers.retryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(Headers.retryAfter("soon"));
+    }
+}
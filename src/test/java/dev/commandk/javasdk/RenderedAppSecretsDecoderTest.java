@@ -0,0 +1,79 @@
+package dev.commandk.javasdk;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RenderedAppSecretsDecoderTest {
+
+    static final String RESPONSE = "{"
+            + "\"changelogId\":\"changelogId\","
+            + "\"unknownObject\":{\"nested\":[1,{\"deeper\":true}]},"
+            + "\"secretDigest\":\"secretDigest\","
+            + "\"incrementalId\":42,"
+            + "\"secrets\":["
+            + "{\"key\":\"secret1\",\"serializedValue\":\"value1\",\"valueType\":\"urn:rendered-app-secret:value-type:String\",\"secretId\":\"secret1Id\",\"unknown\":[\"ignored\"]},"
+            + "{\"key\":\"secret2\",\"serializedValue\":null,\"valueType\":\"urn:rendered-app-secret:value-type:None\",\"secretId\":\"secret2Id\"},"
+            + "{\"key\":\"secret3\",\"serializedValue\":\"value3\",\"valueType\":\"urn:rendered-app-secret:value-type:Unknown\",\"secretId\":\"secret3Id\"}"
+            + "],"
+            + "\"unknownScalar\":\"ignored\""
+            + "}";
+
+    static InputStream streamOf(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void decode_whenResponseHasUnknownFields_skipsThemAndReadsEverySecret() throws Exception {
+        RenderedAppSecretsResponse renderedAppSecretsResponse = RenderedAppSecretsDecoder.decode(streamOf(RESPONSE));
+
+        assertEquals("changelogId", renderedAppSecretsResponse.getChangelogId());
+        assertEquals("secretDigest", renderedAppSecretsResponse.getSecretDigest());
+        assertEquals(Long.valueOf(42), renderedAppSecretsResponse.getIncrementalId());
+
+        List<RenderedAppSecret> renderedAppSecrets = renderedAppSecretsResponse.getSecrets();
+        assertEquals(3, renderedAppSecrets.size());
+        assertEquals("secret1", renderedAppSecrets.get(0).getKey());
+        assertEquals("value1", renderedAppSecrets.get(0).getSerializedValue());
+        assertEquals("secret1Id", renderedAppSecrets.get(0).getSecretId());
+        assertEquals(RenderedAppSecretValueType.STRING, renderedAppSecrets.get(0).getValueType());
+        assertNull(renderedAppSecrets.get(1).getSerializedValue());
+        assertEquals(RenderedAppSecretValueType.NONE, renderedAppSecrets.get(1).getValueType());
+        assertNull(renderedAppSecrets.get(2).getValueType());
+    }
+
+    @Test
+    public void decode_withVisitor_passesSecretsInOrderWithoutCollectingThem() throws Exception {
+        List<String> visitedKeys = new ArrayList<>();
+
+        RenderedAppSecretsResponse renderedAppSecretsResponse = RenderedAppSecretsDecoder.decode(
+                streamOf(RESPONSE),
+                renderedAppSecret -> visitedKeys.add(renderedAppSecret.getKey())
+        );
+
+        assertEquals(3, visitedKeys.size());
+        assertEquals("secret1", visitedKeys.get(0));
+        assertEquals("secret3", visitedKeys.get(2));
+        assertTrue(renderedAppSecretsResponse.getSecrets().isEmpty());
+        assertEquals(Long.valueOf(42), renderedAppSecretsResponse.getIncrementalId());
+    }
+
+    @Test
+    public void decode_whenSecretsIsNotAnArray_throwsParseException() {
+        assertThrows(JsonParseException.class, () -> RenderedAppSecretsDecoder.decode(streamOf("{\"secrets\":{}}")));
+        assertThrows(JsonParseException.class, () -> RenderedAppSecretsDecoder.decode(streamOf("[]")));
+    }
+}
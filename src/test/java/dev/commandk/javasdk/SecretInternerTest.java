@@ -0,0 +1,58 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SecretInternerTest {
+
+    private static RenderedAppSecret secret(String key, String serializedValue) {
+        // Fresh strings, as a decoded response would have
+        return new RenderedAppSecret()
+                .key(new String(key))
+                .serializedValue(serializedValue)
+                .secretId(new String(key + "Id"))
+                .valueType(RenderedAppSecretValueType.STRING);
+    }
+
+    @Test
+    public void intern_whenSecretsAreThoseOfPreviousVersion_returnsPreviousList() {
+        List<RenderedAppSecret> previous = Arrays.asList(secret("secret1", "value1"), secret("secret2", "value2"));
+
+        assertSame(previous, SecretInterner.intern(Arrays.asList(secret("secret1", "value1"), secret("secret2", "value2")), previous));
+
+        List<RenderedAppSecret> next = SecretInterner.intern(Arrays.asList(secret("secret1", "value1"), secret("secret2", "rotated")), previous);
+        assertNotSame(previous, next);
+        assertSame(previous.get(0), next.get(0));
+        assertEquals("rotated", next.get(1).getSerializedValue());
+    }
+
+    @Test
+    public void intern_withoutPreviousVersion_sharesNothingAndLeavesSecretsUntouched() {
+        List<RenderedAppSecret> production = Arrays.asList(secret("secret1", "value1"));
+        String key = production.get(0).getKey();
+
+        List<RenderedAppSecret> staging = Arrays.asList(secret("secret1", "value1"));
+        assertSame(staging, SecretInterner.intern(staging, null));
+        assertNotSame(production.get(0), staging.get(0));
+        assertSame(key, production.get(0).getKey());
+        assertNotSame(production.get(0).getKey(), staging.get(0).getKey());
+    }
+
+    @Test
+    public void intern_whenPreviousSecretWasModified_doesNotShareIt() {
+        List<RenderedAppSecret> previous = Arrays.asList(secret("secret1", "value1"));
+        previous.get(0).setSerializedValue("modified by a caller");
+
+        List<RenderedAppSecret> next = SecretInterner.intern(Arrays.asList(secret("secret1", "value1")), previous);
+        assertNotSame(previous.get(0), next.get(0));
+        assertEquals("value1", next.get(0).getSerializedValue());
+    }
+}
@@ -0,0 +1,54 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecretSnapshotTest {
+
+    RenderedAppSecret secret1 = new RenderedAppSecret().key("secret1").serializedValue("serializedValue1").secretId("secret1Id").valueType(RenderedAppSecretValueType.STRING);
+    RenderedAppSecret secret2 = new RenderedAppSecret().key("secret2").serializedValue("serializedValue2").secretId("secret2Id").valueType(RenderedAppSecretValueType.STRING);
+
+    @Test
+    public void get_whenKeyIsPresent_returnsSecretAndOtherwiseEmpty() {
+        SecretSnapshot secretSnapshot = new SecretSnapshot(Arrays.asList(secret1, secret2), "changelogId", 7L);
+
+        assertEquals(Optional.of(secret2), secretSnapshot.get("secret2"));
+        assertEquals(Optional.empty(), secretSnapshot.get("missing"));
+        assertTrue(secretSnapshot.contains("secret1"));
+        assertFalse(secretSnapshot.contains("missing"));
+        assertEquals(2, secretSnapshot.size());
+        assertEquals("changelogId", secretSnapshot.getChangelogId());
+        assertEquals(Long.valueOf(7L), secretSnapshot.getIncrementalId());
+    }
+
+    @Test
+    public void snapshot_whenSourceListChanges_isUnaffectedAndUnmodifiable() {
+        List<RenderedAppSecret> secrets = new ArrayList<>(Arrays.asList(secret1, secret2));
+        SecretSnapshot secretSnapshot = new SecretSnapshot(secrets, null, null);
+
+        secrets.clear();
+
+        assertEquals(Arrays.asList(secret1, secret2), secretSnapshot.getSecrets());
+        assertThrows(UnsupportedOperationException.class, () -> secretSnapshot.getSecrets().clear());
+    }
+
+    @Test
+    public void getSecretSnapshot_whenCalledRepeatedly_buildsIndexOnce() {
+        CommandKResponse commandKResponse = new CommandKResponse("etag", Arrays.asList(secret1, secret2));
+
+        assertSame(commandKResponse.getSecretSnapshot(), commandKResponse.getSecretSnapshot());
+        assertEquals(Optional.of(secret1), commandKResponse.getSecretSnapshot().get("secret1"));
+    }
+}
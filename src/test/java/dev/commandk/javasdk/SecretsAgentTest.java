@@ -0,0 +1,230 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.api.SdkApi;
+import dev.commandk.javasdk.common.Headers;
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.credential.CommandKCredentialsProvider;
+import dev.commandk.javasdk.kvstore.KVStore;
+import dev.commandk.javasdk.kvstore.KVStoreFactory;
+import dev.commandk.javasdk.models.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.commons.util.ReflectionUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class SecretsAgentTest {
+
+    @Test
+    public void catalogAppIdOf_returnsAppOfRenderedSecretsPathOnly() {
+        assertEquals("app id", SecretsAgent.catalogAppIdOf("/apps/app id/secrets/rendered"));
+        assertEquals("app", SecretsAgent.catalogAppIdOf("/api/v1/apps/app/secrets/rendered"));
+        assertNull(SecretsAgent.catalogAppIdOf("/apps//secrets/rendered"));
+        assertNull(SecretsAgent.catalogAppIdOf("/apps/app/secrets"));
+    }
+
+    @Test
+    public void parseQuery_decodesRepeatedParameters() {
+        Map<String, List<String>> query = SecretsAgent.parseQuery("environment=env%20id&secret-name-filter=a&secret-name-filter=b%26c");
+
+        assertEquals(Collections.singletonList("env id"), query.get("environment"));
+        assertEquals(Arrays.asList("a", "b&c"), query.get("secret-name-filter"));
+    }
+
+    @Test
+    public void page_returnsEnvironmentsAfterCursorUpToLimit() {
+        EnvironmentDescriptor environment1 = new EnvironmentDescriptor().id("id-1");
+        EnvironmentDescriptor environment2 = new EnvironmentDescriptor().id("id-2");
+        EnvironmentDescriptor environment3 = new EnvironmentDescriptor().id("id-3");
+        List<EnvironmentDescriptor> environments = Arrays.asList(environment1, environment2, environment3);
+
+        assertEquals(Arrays.asList(environment1, environment2), SecretsAgent.page(environments, "2", null));
+        assertEquals(Collections.singletonList(environment3), SecretsAgent.page(environments, "2", "id-2"));
+        assertEquals(Collections.emptyList(), SecretsAgent.page(environments, "2", "id-3"));
+        assertEquals(environments, SecretsAgent.page(environments, null, null));
+    }
+
+    @Nested
+    public class Serving {
+        String catalogAppId = "catalogAppId";
+        String environmentName = "environment-name";
+        String environmentId = "environment-id";
+        String agentToken = "agent-token";
+        String secretsPath = "/apps/catalogAppId/secrets/rendered?environment=environment-name";
+
+        SdkApi sdkApiMock = mock(SdkApi.class);
+        KVStore<Object, CommandKResponse> kvStoreMock = mock(KVStore.class);
+        SecretsAgent secretsAgent;
+
+        @BeforeEach
+        public void setup() {
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, null)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(Collections.singletonList(new EnvironmentDescriptor().id(environmentId).name(environmentName).slug(environmentName).label("any-label"))), HttpStatus.OK));
+            when(sdkApiMock.getEnvironmentsWithHttpInfo(CommandKClientOptions.DEFAULT_ENVIRONMENTS_PAGE_SIZE, null, environmentId)).thenReturn(new ResponseEntity<>(new GetAllEnvironmentsResponse().environments(emptyList()), HttpStatus.OK));
+            when(sdkApiMock.getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList())).thenReturn(new ResponseEntity<>(new RenderedAppSecretsResponse().secrets(Arrays.asList(
+                    new RenderedAppSecret().key("key1").serializedValue("value1").secretId("secretId1").valueType(RenderedAppSecretValueType.STRING),
+                    new RenderedAppSecret().key("key2").serializedValue("value2").secretId("secretId2").valueType(RenderedAppSecretValueType.STRING)
+            )), new HttpHeaders() {{
+                add(Headers.E_TAG, "etag-1");
+            }}, HttpStatus.OK));
+            lenient().when(kvStoreMock.get(any(Object.class))).thenReturn(Optional.empty());
+        }
+
+        @AfterEach
+        public void teardown() {
+            if (secretsAgent != null) secretsAgent.close();
+        }
+
+        SecretsAgent startAgent(SecretsAgentOptions options) throws IllegalAccessException {
+            KVStoreFactory<Object, CommandKResponse> kvStoreFactoryMock = mock(KVStoreFactory.class);
+            when(kvStoreFactoryMock.getStore()).thenReturn(kvStoreMock);
+            CommandKCredentialsProvider commandKCredentialsProviderMock = mock(CommandKCredentialsProvider.class);
+            when(commandKCredentialsProviderMock.resolveCredentials()).thenReturn(new CommandKCredentials("", agentToken));
+
+            CommandKClient commandKClient = new CommandKClient(kvStoreFactoryMock, commandKCredentialsProviderMock);
+            Field field = ReflectionUtils.findFields(CommandKClient.class, f -> f.getName().equals("sdkApi"), ReflectionUtils.HierarchyTraversalMode.TOP_DOWN).get(0);
+            field.setAccessible(true);
+            field.set(commandKClient, sdkApiMock);
+            secretsAgent = SecretsAgent.start(commandKClient, 0, options);
+            return secretsAgent;
+        }
+
+        HttpURLConnection request(String pathAndQuery) throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(secretsAgent.getUri() + pathAndQuery).openConnection();
+            connection.setRequestProperty("Authorization", "Bearer " + agentToken);
+            return connection;
+        }
+
+        String body(HttpURLConnection connection) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] buffer = new byte[1024];
+                for (int read; (read = inputStream.read(buffer)) >= 0; ) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Test
+        public void renderedAppSecrets_servesSnapshotWithItsETag() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions());
+
+            // Test
+            HttpURLConnection connection = request(secretsPath);
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("etag-1", connection.getHeaderField("ETag"));
+            String body = body(connection);
+            assertTrue(body.contains("\"key\":\"key1\"") && body.contains("\"key\":\"key2\""));
+        }
+
+        @Test
+        public void renderedAppSecrets_whenClientHasSnapshot_answersNotModified() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions());
+
+            // Test
+            HttpURLConnection connection = request(secretsPath);
+            connection.setRequestProperty("If-None-Match", "etag-1");
+            assertEquals(304, connection.getResponseCode());
+            assertEquals("etag-1", connection.getHeaderField("ETag"));
+        }
+
+        @Test
+        public void renderedAppSecrets_withoutAgentToken_answersUnauthorized() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions());
+
+            // Test
+            HttpURLConnection connection = (HttpURLConnection) new URL(secretsAgent.getUri() + secretsPath).openConnection();
+            assertEquals(401, connection.getResponseCode());
+            HttpURLConnection wrongToken = (HttpURLConnection) new URL(secretsAgent.getUri() + secretsPath).openConnection();
+            wrongToken.setRequestProperty("Authorization", "Bearer other-token");
+            assertEquals(401, wrongToken.getResponseCode());
+            verify(sdkApiMock, never()).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void renderedAppSecrets_inPreviewMode_answersBadRequest() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions());
+
+            // Test
+            assertEquals(400, request(secretsPath + "&mode=PreviewOnly").getResponseCode());
+        }
+
+        @Test
+        public void renderedAppSecrets_withSecretNameFilter_servesProjectionOfTheFullSnapshot() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions());
+
+            // Test
+            HttpURLConnection connection = request(secretsPath + "&secret-name-filter=key2");
+            assertEquals(200, connection.getResponseCode());
+            String body = body(connection);
+            assertTrue(body.contains("\"key\":\"key2\""));
+            assertFalse(body.contains("\"key\":\"key1\""));
+            // The filter is applied by the agent, the host is asked for every secret once
+            verify(sdkApiMock, times(1)).getRenderedAppSecretsWithHttpInfo(anyString(), anyString(), any(), anyString(), anyList());
+        }
+
+        @Test
+        public void renderedAppSecrets_whenHostHasNotConfirmedSecretsForMaxStaleness_answersServiceUnavailable() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions().maxStaleness(Duration.ofMillis(200)));
+            assertEquals(200, request(secretsPath).getResponseCode());
+            Thread.sleep(300);
+
+            // Test
+            assertEquals(503, request(secretsPath).getResponseCode());
+        }
+
+        @Test
+        public void renderedAppSecrets_afterIdleTimeout_stopsWatchingAndFetchesAgainOnNextRequest() throws Exception {
+
+            // Setup
+            startAgent(new SecretsAgentOptions().idleTimeout(Duration.ofMillis(100)));
+            assertEquals(200, request(secretsPath).getResponseCode());
+            assertEquals(1, secretsAgent.getWatcherCount());
+
+            // Test
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (secretsAgent.getWatcherCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, secretsAgent.getWatcherCount());
+            assertEquals(200, request(secretsPath).getResponseCode());
+            verify(sdkApiMock, times(2)).getRenderedAppSecretsWithHttpInfo(catalogAppId, environmentId, RenderingMode.FULL, "", emptyList());
+        }
+    }
+}
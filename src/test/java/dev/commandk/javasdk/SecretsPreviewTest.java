@@ -0,0 +1,54 @@
+package dev.commandk.javasdk;
+
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import dev.commandk.javasdk.models.RenderedAppSecretsResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SecretsPreviewTest {
+
+    private static RenderedAppSecret secret(String key, String serializedValue) {
+        return new RenderedAppSecret().key(key).serializedValue(serializedValue).secretId(key + "Id").valueType(RenderedAppSecretValueType.STRING);
+    }
+
+    private static SecretsPreview preview(Long incrementalId, RenderedAppSecret... previews) {
+        return new SecretsPreview("", new RenderedAppSecretsResponse().secrets(Arrays.asList(previews)).incrementalId(incrementalId));
+    }
+
+    @Test
+    public void changedKeys_whenPreviewsDiffer_returnsChangedAndNewKeys() {
+        SecretsPreview previous = preview(7L, secret("a", "a***"), secret("b", "b***"), secret("c", "c***"), secret("d", "d***"));
+        SecretsPreview next = preview(8L, secret("a", "a***"), secret("c", "x***"), secret("d", "d***"), secret("e", "e***"));
+
+        assertEquals(Arrays.asList("c", "e"), previous.changedKeys(next));
+    }
+
+    @Test
+    public void changedKeys_whenPreviewsHideTheChangeOrMostSecretsChanged_returnsNull() {
+        SecretsPreview previous = preview(7L, secret("a", "a***"), secret("b", "b***"));
+
+        assertNull(previous.changedKeys(preview(8L, secret("a", "a***"), secret("b", "b***"))));
+        assertNull(previous.changedKeys(preview(8L, secret("a", "x***"), secret("b", "y***"))));
+    }
+
+    @Test
+    public void merge_takesChangedSecretsFromFetchAndOthersFromCacheInPreviewOrder() {
+        RenderedAppSecret a = secret("a", "value-a");
+        RenderedAppSecret b = secret("b", "value-b");
+        RenderedAppSecret c = secret("c", "value-c");
+        RenderedAppSecret rotatedB = secret("b", "rotated-b");
+        SecretsPreview next = preview(8L, secret("b", "r***"), secret("a", "v***"));
+
+        List<RenderedAppSecret> merged = next.merge(Arrays.asList(a, b, c), Collections.singletonList(rotatedB), Collections.singletonList("b"));
+
+        assertEquals(Arrays.asList(rotatedB, a), merged);
+        assertNull(next.merge(Arrays.asList(a, b), Collections.emptyList(), Collections.singletonList("b")));
+    }
+}
@@ -0,0 +1,30 @@
+package dev.commandk.javasdk;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecretsVersionTest {
+
+    @Test
+    public void isNewerThan_comparesIncrementalIdsOnlyWhenBothArePresent() {
+        SecretsVersion version1 = new SecretsVersion("changelog-1", 1L, "digest-1");
+        SecretsVersion version2 = new SecretsVersion("changelog-2", 2L, "digest-2");
+        SecretsVersion unversioned = new SecretsVersion(null, null, null);
+
+        assertTrue(version2.isNewerThan(version1));
+        assertFalse(version1.isNewerThan(version2));
+        assertFalse(version1.isNewerThan(version1));
+        assertFalse(version2.isNewerThan(unversioned));
+        assertFalse(unversioned.isNewerThan(version1));
+    }
+
+    @Test
+    public void hasSameSecretsAs_prefersDigestsOverChangelog() {
+        assertTrue(new SecretsVersion("changelog-1", 1L, "digest").hasSameSecretsAs(new SecretsVersion("changelog-2", 2L, "digest")));
+        assertFalse(new SecretsVersion("changelog-1", 1L, "digest-1").hasSameSecretsAs(new SecretsVersion("changelog-1", 1L, "digest-2")));
+        assertTrue(new SecretsVersion("changelog-1", 1L, null).hasSameSecretsAs(new SecretsVersion("changelog-1", 1L, "digest")));
+        assertFalse(new SecretsVersion(null, null, null).hasSameSecretsAs(new SecretsVersion(null, null, null)));
+    }
+}
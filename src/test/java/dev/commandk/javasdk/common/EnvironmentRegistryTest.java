@@ -0,0 +1,31 @@
+package dev.commandk.javasdk.common;
+
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.models.EnvironmentDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EnvironmentRegistryTest {
+
+    EnvironmentDescriptor environment = new EnvironmentDescriptor().id("id").name("name").slug("slug").label("label");
+
+    @Test
+    public void resolve_whenReloadFails_servesPreviousListingWithoutReloadingOnEveryLookup() {
+        AtomicInteger loads = new AtomicInteger();
+        EnvironmentRegistry environmentRegistry = new EnvironmentRegistry(() -> {
+            if (loads.incrementAndGet() > 1) throw new ClientException("Response from host: 503");
+            return Collections.singletonList(environment);
+        }, Runnable::run, 1);
+
+        assertEquals(environment, environmentRegistry.resolve("name"));
+        // The listing expired right away; the failed reload is only tried once
+        for (int i = 0; i < 10; i++) {
+            assertEquals(environment, environmentRegistry.resolve("slug"));
+        }
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,46 @@
+package dev.commandk.javasdk.credential;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ConfigFileCredentialsProviderTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void teardown() {
+        System.clearProperty("commandk.configFile");
+    }
+
+    @Test
+    public void resolveCredentials_whenTokenIsRotatedWithSameLengthAndTimestamp_returnsNewToken() throws Exception {
+        Path configFile = writeConfig("http://localhost", "token-1");
+        FileTime lastModifiedTime = Files.getLastModifiedTime(configFile);
+        System.setProperty("commandk.configFile", configFile.toString());
+        ConfigFileCredentialsProvider provider = new ConfigFileCredentialsProvider();
+
+        CommandKCredentials first = provider.resolveCredentials();
+        assertSame(first, provider.resolveCredentials());
+
+        writeConfig("http://localhost", "token-2");
+        Files.setLastModifiedTime(configFile, lastModifiedTime);
+
+        assertEquals("token-2", provider.resolveCredentials().apiToken);
+    }
+
+    private Path writeConfig(String host, String apiToken) throws Exception {
+        Path configFile = directory.resolve("commandk.properties");
+        Files.write(configFile, String.format("host=%s%napiToken=%s%n", host, apiToken).getBytes(StandardCharsets.UTF_8));
+        return configFile;
+    }
+}
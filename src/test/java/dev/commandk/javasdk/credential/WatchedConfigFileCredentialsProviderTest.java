@@ -0,0 +1,56 @@
+package dev.commandk.javasdk.credential;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class WatchedConfigFileCredentialsProviderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void resolveCredentials_whenTokenIsRotatedInFile_notifiesListenerAndReturnsNewToken() throws Exception {
+        Path configFile = writeConfig("http://localhost", "old-token");
+        BlockingQueue<CommandKCredentials> refreshed = new ArrayBlockingQueue<>(10);
+
+        try (WatchedConfigFileCredentialsProvider provider = new WatchedConfigFileCredentialsProvider(configFile.toString())) {
+            provider.addRefreshListener(refreshed::add);
+            assertEquals("old-token", provider.resolveCredentials().apiToken);
+
+            writeConfig("http://localhost", "new-token");
+
+            CommandKCredentials commandKCredentials = refreshed.poll(30, TimeUnit.SECONDS);
+            assertNotNull(commandKCredentials);
+            assertEquals("new-token", commandKCredentials.apiToken);
+            assertEquals("new-token", provider.resolveCredentials().apiToken);
+        }
+    }
+
+    @Test
+    public void reload_whenFileIsIncomplete_keepsCurrentCredentials() throws Exception {
+        Path configFile = writeConfig("http://localhost", "token");
+
+        try (WatchedConfigFileCredentialsProvider provider = new WatchedConfigFileCredentialsProvider(configFile.toString())) {
+            Files.write(configFile, "host=http://localhost\n".getBytes(StandardCharsets.UTF_8));
+            provider.reload();
+
+            assertEquals("token", provider.resolveCredentials().apiToken);
+        }
+    }
+
+    private Path writeConfig(String host, String apiToken) throws Exception {
+        Path configFile = directory.resolve("commandk.properties");
+        Files.write(configFile, String.format("host=%s%napiToken=%s%n", host, apiToken).getBytes(StandardCharsets.UTF_8));
+        return configFile;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.commandk.javasdk.kvstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedKVStoreTest {
+
+    AtomicLong clock = new AtomicLong();
+
+    static class WeighedValue implements Weighable {
+        final long weight;
+
+        WeighedValue(long weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public long estimatedSizeBytes() {
+            return weight;
+        }
+    }
+
+    @Test
+    public void set_whenOverBudget_evictsLeastRecentlyReadEntries() {
+        BoundedKVStore<String, WeighedValue> store = new BoundedKVStore<>(new BoundedKVStoreOptions().maxWeightBytes(300), clock::get);
+        WeighedValue first = new WeighedValue(100);
+        WeighedValue second = new WeighedValue(100);
+        WeighedValue third = new WeighedValue(100);
+
+        store.set("first", first);
+        clock.incrementAndGet();
+        store.set("second", second);
+        clock.incrementAndGet();
+        store.set("third", third);
+        clock.incrementAndGet();
+        store.get("first");
+        clock.incrementAndGet();
+
+        store.set("fourth", new WeighedValue(100));
+
+        assertEquals(Optional.of(first), store.get("first"));
+        assertEquals(Optional.empty(), store.get("second"));
+        assertEquals(Optional.of(third), store.get("third"));
+        assertEquals(1, store.getStats().getEvictionCount());
+        assertEquals(3, store.getStats().getEntryCount());
+        assertEquals(300, store.getStats().getWeightBytes());
+    }
+
+    @Test
+    public void set_whenManyEntriesGoOverBudget_keepsReadEntriesAndStaysWithinBudget() {
+        BoundedKVStore<String, WeighedValue> store = new BoundedKVStore<>(new BoundedKVStoreOptions().maxWeightBytes(10_000), clock::get);
+        WeighedValue read = new WeighedValue(100);
+
+        store.set("read", read);
+        for (int i = 0; i < 1_000; i++) {
+            store.get("read");
+            store.set("key" + i, new WeighedValue(100));
+            // Replacing keys leaves entries in the eviction queue that must not count against the budget
+            store.set("key" + i, new WeighedValue(100));
+        }
+
+        assertEquals(Optional.of(read), store.get("read"));
+        assertEquals(Optional.empty(), store.get("key0"));
+        assertTrue(store.get("key999").isPresent());
+        assertEquals(901, store.getStats().getEvictionCount());
+        assertEquals(100, store.getStats().getEntryCount());
+        assertEquals(10_000, store.getStats().getWeightBytes());
+    }
+
+    @Test
+    public void get_whenEntryOutlivedTtl_returnsEmptyAndCountsExpiration() {
+        BoundedKVStore<String, String> store = new BoundedKVStore<>(new BoundedKVStoreOptions().expireAfterWrite(Duration.ofNanos(10)), clock::get);
+
+        store.set("key", "value");
+        clock.addAndGet(9);
+        assertEquals(Optional.of("value"), store.get("key"));
+        clock.addAndGet(1);
+        assertEquals(Optional.empty(), store.get("key"));
+
+        KVStoreStats stats = store.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getExpirationCount());
+        assertEquals(0, stats.getEntryCount());
+        assertEquals(0, stats.getWeightBytes());
+    }
+
+    @Test
+    public void set_whenReplacingEntry_adjustsWeight() {
+        BoundedKVStore<String, WeighedValue> store = new BoundedKVStore<>(new BoundedKVStoreOptions(), clock::get);
+
+        store.set("key", new WeighedValue(100));
+        store.set("key", new WeighedValue(40));
+
+        assertEquals(40, store.getStats().getWeightBytes());
+        assertEquals(1, store.getStats().getEntryCount());
+    }
+}
@@ -0,0 +1,88 @@
+package dev.commandk.javasdk.kvstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class FileKVStoreTest {
+
+    @TempDir
+    Path directory;
+
+    SecretKey secretKey = new SecretKeySpec(new byte[16], "AES");
+
+    @Test
+    public void get_whenWrittenByAnotherStore_returnsPersistedValue() {
+        KVStore<String, String> writer = new FileKVStoreFactory<String, String>(directory, secretKey).getStore();
+        writer.set("key", "value");
+
+        KVStore<String, String> reader = new FileKVStoreFactory<String, String>(directory, secretKey).getStore();
+
+        assertEquals(Optional.of("value"), reader.get("key"));
+        assertEquals(Optional.empty(), reader.get("other-key"));
+    }
+
+    @Test
+    public void get_whenSnapshotWasWrittenAfterStoreWasCreated_returnsEmpty() {
+        KVStore<String, String> reader = new FileKVStoreFactory<String, String>(directory, secretKey).getStore();
+        KVStore<String, String> writer = new FileKVStoreFactory<String, String>(directory, secretKey).getStore();
+
+        writer.set("key", "value");
+
+        // The reader only knows the snapshots listed when it was created, and misses don't go to the disk
+        assertEquals(Optional.empty(), reader.get("key"));
+        assertEquals(Optional.of("value"), new FileKVStoreFactory<String, String>(directory, secretKey).getStore().get("key"));
+    }
+
+    @Test
+    public void get_whenSnapshotWasEncryptedWithAnotherKey_returnsEmpty() {
+        new FileKVStoreFactory<String, String>(directory, secretKey).getStore().set("key", "value");
+
+        SecretKey otherSecretKey = new SecretKeySpec(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}, "AES");
+        KVStore<String, String> reader = new FileKVStoreFactory<String, String>(directory, otherSecretKey).getStore();
+
+        assertEquals(Optional.empty(), reader.get("key"));
+    }
+
+    @Test
+    public void get_whenSnapshotIsCorrupt_returnsEmpty() throws Exception {
+        new FileKVStoreFactory<String, String>(directory, secretKey).getStore().set("key", "value");
+
+        for (Path snapshot : snapshots()) {
+            byte[] bytes = Files.readAllBytes(snapshot);
+            bytes[bytes.length - 1] ^= 0x1;
+            Files.write(snapshot, bytes);
+        }
+        KVStore<String, String> reader = new FileKVStoreFactory<String, String>(directory, secretKey).getStore();
+
+        assertEquals(Optional.empty(), reader.get("key"));
+    }
+
+    @Test
+    public void set_doesNotWriteKeysOrValuesInPlaintext() throws Exception {
+        new FileKVStoreFactory<String, String>(directory, secretKey).getStore().set("plaintext-key", "plaintext-value");
+
+        List<Path> snapshots = snapshots();
+        assertEquals(1, snapshots.size());
+        String snapshot = new String(Files.readAllBytes(snapshots.get(0)), "ISO-8859-1");
+        assertFalse(snapshot.contains("plaintext"));
+        assertFalse(snapshots.get(0).getFileName().toString().contains("plaintext"));
+    }
+
+    private List<Path> snapshots() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.commandk.javasdk.kvstore;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NamespacedKVStoreFactoryTest {
+
+    BoundedKVStoreFactory<Object, String> backingKVStoreFactory = new BoundedKVStoreFactory<>();
+
+    @Test
+    public void get_whenKeyWasSetInAnotherNamespace_returnsEmpty() {
+        KVStore<String, String> tenant1 = new NamespacedKVStoreFactory<String, String>(backingKVStoreFactory, "tenant-1").getStore();
+        KVStore<String, String> tenant2 = new NamespacedKVStoreFactory<String, String>(backingKVStoreFactory, "tenant-2").getStore();
+
+        tenant1.set("key", "value-1");
+
+        assertEquals(Optional.of("value-1"), tenant1.get("key"));
+        assertEquals(Optional.empty(), tenant2.get("key"));
+        assertEquals(1, backingKVStoreFactory.getStore().getStats().getEntryCount());
+    }
+
+    @Test
+    public void get_whenKeyWasSetInSameNamespace_returnsSharedValue() {
+        KVStore<String, String> writer = new NamespacedKVStoreFactory<String, String>(backingKVStoreFactory, "tenant").getStore();
+        KVStore<String, String> reader = new NamespacedKVStoreFactory<String, String>(backingKVStoreFactory, "tenant").getStore();
+
+        writer.set("key", "value");
+
+        assertEquals(Optional.of("value"), reader.get("key"));
+    }
+
+    @Test
+    public void getStore_whenBackingStoreIsInstrumented_reportsItsStats() {
+        KVStore<String, String> tenant = new NamespacedKVStoreFactory<String, String>(backingKVStoreFactory, "tenant").getStore();
+
+        tenant.set("key", "value");
+        tenant.get("key");
+        tenant.get("other-key");
+
+        assertTrue(tenant instanceof InstrumentedKVStore);
+        KVStoreStats stats = ((InstrumentedKVStore<String, String>) tenant).getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getEntryCount());
+    }
+
+    @Test
+    public void getStore_whenBackingStoreIsNotInstrumented_isNotInstrumented() {
+        KVStore<String, String> tenant = new NamespacedKVStoreFactory<String, String>(new GlobalKVStoreFactory<Object, String>(), "tenant").getStore();
+
+        assertFalse(tenant instanceof InstrumentedKVStore);
+    }
+}
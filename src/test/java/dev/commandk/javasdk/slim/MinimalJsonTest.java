@@ -0,0 +1,51 @@
+package dev.commandk.javasdk.slim;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MinimalJsonTest {
+
+    private static Object parse(String json) throws IOException {
+        return MinimalJson.parse(new StringReader(json));
+    }
+
+    @Test
+    public void parse_readsEveryKindOfValue() throws IOException {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("string", "a \"quoted\" \u00e9\n");
+        expected.put("integer", 9007199254740993L);
+        expected.put("decimal", -1.5e3);
+        expected.put("flags", Arrays.asList(true, false, null));
+        expected.put("empty", Collections.emptyMap());
+        expected.put("nested", Collections.singletonList(Collections.singletonMap("key", Collections.emptyList())));
+
+        assertEquals(expected, parse(" {\"string\": \"a \\\"quoted\\\" \\u00e9\\n\", \"integer\": 9007199254740993, \"decimal\": -1.5e3,"
+                + " \"flags\": [true, false, null], \"empty\": {}, \"nested\": [{\"key\": []}]}\n"));
+    }
+
+    @Test
+    public void parse_keepsFieldOrder() throws IOException {
+        Map<?, ?> object = (Map<?, ?>) parse("{\"b\": 1, \"a\": 2, \"c\": 3}");
+
+        assertEquals(Arrays.asList("b", "a", "c"), new ArrayList<>(object.keySet()));
+    }
+
+    @Test
+    public void parse_whenDocumentIsMalformed_throws() {
+        List<String> malformed = Arrays.asList("{\"a\": 1", "{\"a\" 1}", "[1, 2", "{\"a\": tru}", "\"unterminated", "{} {}", "[01x]", "");
+        for (String json : malformed) {
+            assertThrows(IOException.class, () -> parse(json), json);
+        }
+    }
+}
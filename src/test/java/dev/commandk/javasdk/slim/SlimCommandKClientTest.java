@@ -0,0 +1,129 @@
+package dev.commandk.javasdk.slim;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.commandk.javasdk.credential.CommandKCredentials;
+import dev.commandk.javasdk.exception.ClientException;
+import dev.commandk.javasdk.exception.HostResponseException;
+import dev.commandk.javasdk.models.RenderedAppSecret;
+import dev.commandk.javasdk.models.RenderedAppSecretValueType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SlimCommandKClientTest {
+
+    HttpServer host;
+    List<String> requests = new CopyOnWriteArrayList<>();
+    SlimCommandKClient slimCommandKClient;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        host = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        host.createContext("/environments", exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            if (exchange.getRequestURI().getQuery().contains("after=")) {
+                respond(exchange, 200, "{\"environments\": []}", null, false);
+            } else {
+                respond(exchange, 200, "{\"environments\": [{\"id\": \"env-id\", \"slug\": \"prod\", \"name\": \"production\", \"label\": \"Production\"}]}", null, false);
+            }
+        });
+        host.createContext("/apps/", exchange -> {
+            requests.add(exchange.getRequestURI().toString() + " " + exchange.getRequestHeaders().getFirst("If-None-Match"));
+            if (!"Bearer token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                respond(exchange, 401, "", null, false);
+            } else if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                boolean gzip = "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+                respond(exchange, 200, "{\"changelogId\": \"changelog\", \"incrementalId\": 7, \"secretDigest\": \"digest\", \"secrets\": ["
+                        + "{\"key\": \"DB_URL\", \"serializedValue\": \"postgres://db\", \"secretId\": \"secret-id\", \"valueType\": \"urn:rendered-app-secret:value-type:String\", \"unknown\": {\"nested\": [1]}}]}", "\"v1\"", gzip);
+            }
+        });
+        host.start();
+        String hostUrl = "http://" + host.getAddress().getHostString() + ":" + host.getAddress().getPort();
+        slimCommandKClient = new SlimCommandKClient(() -> new CommandKCredentials(hostUrl, "token"));
+    }
+
+    @AfterEach
+    public void teardown() {
+        host.stop(0);
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int statusCode, String body, String eTag, boolean gzip) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (eTag != null) exchange.getResponseHeaders().set("ETag", eTag);
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(statusCode, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                out.write(bytes);
+            }
+        } else {
+            exchange.sendResponseHeaders(statusCode, bytes.length == 0 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    @Test
+    public void getRenderedAppSecrets_resolvesEnvironmentAndDecodesCompressedSecrets() {
+        List<RenderedAppSecret> renderedAppSecrets = slimCommandKClient.getRenderedAppSecrets("app", "production", null);
+
+        assertEquals(1, renderedAppSecrets.size());
+        assertEquals("DB_URL", renderedAppSecrets.get(0).getKey());
+        assertEquals("postgres://db", renderedAppSecrets.get(0).getSerializedValue());
+        assertEquals("secret-id", renderedAppSecrets.get(0).getSecretId());
+        assertEquals(RenderedAppSecretValueType.STRING, renderedAppSecrets.get(0).getValueType());
+        assertEquals("/environments?limit=100", requests.get(0));
+        assertEquals("/environments?limit=100&after=env-id", requests.get(1));
+        assertEquals("/apps/app/secrets/rendered?environment=env-id&mode=Full null", requests.get(2));
+    }
+
+    @Test
+    public void getRenderedAppSecrets_whenHostAnswers304_returnsCachedSecrets() {
+        List<RenderedAppSecret> first = slimCommandKClient.getRenderedAppSecrets("app", "prod", null);
+
+        assertSame(first, slimCommandKClient.getRenderedAppSecrets("app", "env-id", null));
+        assertEquals("/apps/app/secrets/rendered?environment=env-id&mode=Full \"v1\"", requests.get(3));
+        assertEquals(4, requests.size());
+    }
+
+    @Test
+    public void getRenderedAppSecrets_whenMoreFiltersThanTheCacheHolds_dropsLeastRecentlyUsedResponse() {
+        slimCommandKClient.getRenderedAppSecrets("app", "prod", Collections.singletonList("first"));
+        for (int i = 0; i < SlimCommandKClient.MAX_CACHED_RESPONSES; i++) {
+            slimCommandKClient.getRenderedAppSecrets("app", "prod", Collections.singletonList("secret" + i));
+        }
+        slimCommandKClient.getRenderedAppSecrets("app", "prod", Collections.singletonList("secret0"));
+        slimCommandKClient.getRenderedAppSecrets("app", "prod", Collections.singletonList("first"));
+
+        assertEquals("/apps/app/secrets/rendered?environment=env-id&mode=Full&secret-name-filter=secret0 \"v1\"", requests.get(requests.size() - 2));
+        assertEquals("/apps/app/secrets/rendered?environment=env-id&mode=Full&secret-name-filter=first null", requests.get(requests.size() - 1));
+    }
+
+    @Test
+    public void getRenderedAppSecrets_whenHostRejectsRequestOrEnvironmentIsUnknown_throws() {
+        String hostUrl = "http://" + host.getAddress().getHostString() + ":" + host.getAddress().getPort();
+        SlimCommandKClient unauthorized = new SlimCommandKClient(() -> new CommandKCredentials(hostUrl, "wrong-token"));
+
+        HostResponseException hostResponseException = assertThrows(HostResponseException.class, () -> unauthorized.getRenderedAppSecrets("app", "production", null));
+        assertEquals(401, hostResponseException.getStatusCode());
+        assertThrows(ClientException.class, () -> slimCommandKClient.getRenderedAppSecrets("app", "staging", null));
+    }
+}
@@ -0,0 +1,61 @@
+package dev.commandk.javasdk.transport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.net.ConnectException;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+public class AgentHttpTransportTest {
+
+    URI hostUri = URI.create("https://host.commandk.dev/apps/app%20id/secrets/rendered?environment=env&secret-name-filter=a");
+    URI agentUri = URI.create("http://127.0.0.1:7777/apps/app%20id/secrets/rendered?environment=env&secret-name-filter=a");
+
+    @Test
+    public void execute_whenAgentIsListening_sendsRequestToAgent() throws Exception {
+        ClientHttpResponse clientHttpResponseMock = mock(ClientHttpResponse.class);
+        HttpHeaders agentRequestHeaders = new HttpHeaders();
+        ClientHttpRequest agentRequestMock = mock(ClientHttpRequest.class);
+        when(agentRequestMock.getHeaders()).thenReturn(agentRequestHeaders);
+        when(agentRequestMock.execute()).thenReturn(clientHttpResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(agentUri, HttpMethod.GET)).thenReturn(agentRequestMock);
+
+        AgentHttpTransport agentHttpTransport = new AgentHttpTransport(URI.create("http://127.0.0.1:7777/"), HttpTransport.of(clientHttpRequestFactoryMock));
+        ClientHttpRequest clientHttpRequest = agentHttpTransport.getRequestFactory().createRequest(hostUri, HttpMethod.GET);
+        clientHttpRequest.getHeaders().set("Authorization", "Bearer token");
+
+        assertSame(clientHttpResponseMock, clientHttpRequest.execute());
+        assertEquals("Bearer token", agentRequestHeaders.getFirst("Authorization"));
+        verify(clientHttpRequestFactoryMock, never()).createRequest(hostUri, HttpMethod.GET);
+    }
+
+    @Test
+    public void execute_whenAgentIsNotListening_sendsRequestToHost() throws Exception {
+        ClientHttpRequest agentRequestMock = mock(ClientHttpRequest.class);
+        when(agentRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(agentRequestMock.execute()).thenThrow(new ConnectException("Connection refused"));
+
+        ClientHttpResponse clientHttpResponseMock = mock(ClientHttpResponse.class);
+        ClientHttpRequest hostRequestMock = mock(ClientHttpRequest.class);
+        when(hostRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(hostRequestMock.execute()).thenReturn(clientHttpResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(agentUri, HttpMethod.GET)).thenReturn(agentRequestMock);
+        when(clientHttpRequestFactoryMock.createRequest(hostUri, HttpMethod.GET)).thenReturn(hostRequestMock);
+
+        AgentHttpTransport agentHttpTransport = new AgentHttpTransport(URI.create("http://127.0.0.1:7777"), HttpTransport.of(clientHttpRequestFactoryMock));
+
+        assertSame(clientHttpResponseMock, agentHttpTransport.getRequestFactory().createRequest(hostUri, HttpMethod.GET).execute());
+    }
+}
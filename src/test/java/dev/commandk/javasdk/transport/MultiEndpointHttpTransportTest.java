@@ -0,0 +1,95 @@
+package dev.commandk.javasdk.transport;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class MultiEndpointHttpTransportTest {
+
+    URI hostUri = URI.create("https://host.commandk.dev/apps/app%20id/secrets/rendered?environment=env");
+    URI firstEndpointUri = URI.create("https://eu.commandk.dev/apps/app%20id/secrets/rendered?environment=env");
+    URI secondEndpointUri = URI.create("https://us.commandk.dev/apps/app%20id/secrets/rendered?environment=env");
+
+    @Test
+    public void execute_whenEndpointKeepsFailing_sendsRequestsToTheOthers() throws Exception {
+        ClientHttpRequest firstRequestMock = mock(ClientHttpRequest.class);
+        when(firstRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(firstRequestMock.execute()).thenThrow(new ConnectException("Connection refused"));
+
+        ClientHttpResponse clientHttpResponseMock = mock(ClientHttpResponse.class);
+        ClientHttpRequest secondRequestMock = mock(ClientHttpRequest.class);
+        when(secondRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(secondRequestMock.execute()).thenReturn(clientHttpResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(firstEndpointUri, HttpMethod.GET)).thenReturn(firstRequestMock);
+        when(clientHttpRequestFactoryMock.createRequest(secondEndpointUri, HttpMethod.GET)).thenReturn(secondRequestMock);
+
+        MultiEndpointHttpTransport multiEndpointHttpTransport = new MultiEndpointHttpTransport(
+                Arrays.asList(URI.create("https://eu.commandk.dev"), URI.create("https://us.commandk.dev/")),
+                new MultiEndpointHttpTransportOptions().ejectAfterFailures(1),
+                HttpTransport.of(clientHttpRequestFactoryMock)
+        );
+
+        int failures = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                assertSame(clientHttpResponseMock, multiEndpointHttpTransport.getRequestFactory().createRequest(hostUri, HttpMethod.GET).execute());
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+
+        assertTrue(failures <= 1);
+        verify(clientHttpRequestFactoryMock, atMostOnce()).createRequest(firstEndpointUri, HttpMethod.GET);
+    }
+
+    @Test
+    public void execute_whenHedgingAndAnEndpointIsSlow_returnsTheFirstResponse() throws Exception {
+        AtomicBoolean slow = new AtomicBoolean();
+        ClientHttpResponse slowResponseMock = mock(ClientHttpResponse.class);
+        ClientHttpRequest slowRequestMock = mock(ClientHttpRequest.class);
+        when(slowRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(slowRequestMock.execute()).thenAnswer(invocation -> {
+            if (slow.get()) Thread.sleep(2_000);
+            return slowResponseMock;
+        });
+
+        ClientHttpResponse fastResponseMock = mock(ClientHttpResponse.class);
+        ClientHttpRequest fastRequestMock = mock(ClientHttpRequest.class);
+        when(fastRequestMock.getHeaders()).thenReturn(new HttpHeaders());
+        when(fastRequestMock.execute()).thenReturn(fastResponseMock);
+
+        ClientHttpRequestFactory clientHttpRequestFactoryMock = mock(ClientHttpRequestFactory.class);
+        when(clientHttpRequestFactoryMock.createRequest(firstEndpointUri, HttpMethod.GET)).thenReturn(slowRequestMock);
+        when(clientHttpRequestFactoryMock.createRequest(secondEndpointUri, HttpMethod.GET)).thenReturn(fastRequestMock);
+
+        MultiEndpointHttpTransport multiEndpointHttpTransport = new MultiEndpointHttpTransport(
+                Arrays.asList(URI.create("https://eu.commandk.dev"), URI.create("https://us.commandk.dev")),
+                new MultiEndpointHttpTransportOptions().hedging(0.95).maxHedgeRatio(1),
+                HttpTransport.of(clientHttpRequestFactoryMock),
+                () -> 0L
+        );
+        for (int i = 0; i < MultiEndpointHttpTransport.MIN_LATENCY_SAMPLES; i++) {
+            multiEndpointHttpTransport.getRequestFactory().createRequest(hostUri, HttpMethod.GET).execute();
+        }
+        slow.set(true);
+
+        long startedAt = System.nanoTime();
+        assertSame(fastResponseMock, multiEndpointHttpTransport.getRequestFactory().createRequest(hostUri, HttpMethod.GET).execute());
+        assertTrue(System.nanoTime() - startedAt < 1_000_000_000L);
+    }
+}